@@ -0,0 +1,200 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.aliyun.cloudops.acs.AcsClient;
+import com.aliyun.cloudops.acs.AcsResponseDecoder;
+import com.aliyuncs.AcsRequest;
+import com.aliyuncs.AcsResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeCloudAssistantStatusResponse.InstanceCloudAssistantStatus;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation.InvokeInstance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * <pre>
+ * 基准测试共用的数据：模拟的 OpenAPI 响应、不发送请求的 {@link AcsClient}、不执行任务的调度器。
+ * </pre>
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @param instances - 任务包含的实例数
+     * @param status    - 任务与各实例的状态
+     * @return - 只包含一个任务的 DescribeInvocations 响应
+     */
+    static DescribeInvocationsResponse invocationsResponse(int instances, String status) {
+        String now = Instant.now().toString();
+        Invocation invocation = new Invocation();
+        invocation.setInvokeId("t-bench0000000001");
+        invocation.setCommandId("c-bench0000000001");
+        invocation.setCommandName("benchmark");
+        invocation.setCommandType("RunShellScript");
+        invocation.setCommandContent("echo hello");
+        invocation.setRepeatMode("Once");
+        invocation.setInvocationStatus(status);
+        invocation.setInvokeStatus(status);
+        invocation.setCreationTime(now);
+        invocation.setTimeout(3600L);
+        invocation.setTimed(false);
+        List<InvokeInstance> invokeInstances = new ArrayList<>(instances);
+        for (int i = 0; i < instances; i++) {
+            InvokeInstance instance = new InvokeInstance();
+            instance.setInstanceId(String.format("i-bench%010d", i));
+            instance.setInvocationStatus(status);
+            instance.setInstanceInvokeStatus(status);
+            instance.setCreationTime(now);
+            instance.setUpdateTime(now);
+            instance.setStartTime(now);
+            instance.setRepeats(1);
+            instance.setDropped(0);
+            instance.setTimed(false);
+            invokeInstances.add(instance);
+        }
+        invocation.setInvokeInstances(invokeInstances);
+
+        DescribeInvocationsResponse response = new DescribeInvocationsResponse();
+        response.setRequestId("bench-request");
+        response.setTotalCount(1L);
+        response.setPageNumber(1L);
+        response.setPageSize(10L);
+        List<Invocation> invocations = new ArrayList<>(1);
+        invocations.add(invocation);
+        response.setInvocations(invocations);
+        return response;
+    }
+
+    /**
+     * 将响应模型转换为 OpenAPI 返回的 JSON：字段名首字母大写，列表以单数名称包装，如 {"Invocations":{"Invocation":[...]}}
+     *
+     * @param response - 响应模型
+     * @return - UTF-8 编码的响应内容
+     */
+    static byte[] responseJson(AcsResponse response) {
+        return JSON.toJSONString(toWireFormat(JSON.toJSON(response))).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Object toWireFormat(Object value) {
+        if (value instanceof JSONArray) {
+            JSONArray array = new JSONArray();
+            for (Object item : (JSONArray) value) {
+                array.add(toWireFormat(item));
+            }
+            return array;
+        }
+        if (!(value instanceof JSONObject)) {
+            return value;
+        }
+        JSONObject object = new JSONObject(true);
+        for (Map.Entry<String, Object> entry : ((JSONObject) value).entrySet()) {
+            String name = StringUtils.capitalize(entry.getKey());
+            Object field = toWireFormat(entry.getValue());
+            if (field instanceof JSONArray) {
+                JSONObject wrapper = new JSONObject(true);
+                wrapper.put(StringUtils.removeEnd(name, "s"), field);
+                field = wrapper;
+            }
+            object.put(name, field);
+        }
+        return object;
+    }
+
+    /**
+     * @param instances - 实例数
+     * @return - 云助手均在运行中的 Linux 实例
+     */
+    static List<InstanceCloudAssistantStatus> linuxStatus(int instances) {
+        List<InstanceCloudAssistantStatus> statusSet = new ArrayList<>(instances);
+        for (int i = 0; i < instances; i++) {
+            InstanceCloudAssistantStatus status = new InstanceCloudAssistantStatus();
+            status.setInstanceId(String.format("i-bench%010d", i));
+            status.setOSType("Linux");
+            status.setCloudAssistantVersion("2.2.3.857");
+            status.setCloudAssistantStatus("true");
+            statusSet.add(status);
+        }
+        return statusSet;
+    }
+
+    /**
+     * @param response - 各请求返回的响应
+     * @return - 轮询只访问 {@link StubAcsClient} 与 {@link NoopScheduler} 的 CloudAssistant
+     */
+    static CloudAssistant cloudAssistant(AcsResponse response) {
+        CloudAssistant cloudAssistant = new CloudAssistant(new StubAcsClient(response), null);
+        ReflectionTestUtils.setField(cloudAssistant, "meterRegistry", new SimpleMeterRegistry());
+        cloudAssistant.init();
+        cloudAssistant.destroy();
+        ReflectionTestUtils.setField(cloudAssistant, "scheduler", new NoopScheduler());
+        return cloudAssistant;
+    }
+
+    /**
+     * 对任何请求都返回同一个响应，不访问网络
+     */
+    static class StubAcsClient extends AcsClient {
+        private final AcsResponse response;
+
+        StubAcsClient(AcsResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends AcsResponse> T sendRequest(AcsRequest<T> request) {
+            return (T) this.response;
+        }
+
+        @Override
+        public <T extends AcsResponse> T sendRequest(AcsRequest<T> request, long maxWaitMillis) {
+            return this.sendRequest(request);
+        }
+
+        @Override
+        public <T extends AcsResponse> T sendRequest(AcsRequest<T> request, AcsResponseDecoder<T> decoder) {
+            return this.sendRequest(request);
+        }
+    }
+
+    /**
+     * 丢弃提交的任务，使每次基准调用只执行一次轮询
+     */
+    static class NoopScheduler implements TaskScheduler {
+        @Override
+        public void schedule(Runnable task, long delay, TimeUnit unit) {
+        }
+
+        @Override
+        public int getQueueSize() {
+            return 0;
+        }
+
+        @Override
+        public long getLagMillis() {
+            return 0;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
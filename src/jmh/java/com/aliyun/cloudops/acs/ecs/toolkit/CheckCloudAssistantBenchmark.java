@@ -0,0 +1,54 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyuncs.ecs.model.v20140526.DescribeCloudAssistantStatusResponse.InstanceCloudAssistantStatus;
+import com.aliyuncs.ecs.model.v20140526.RunCommandRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <pre>
+ * 发送命令前检查实例的操作系统与云助手状态，实例的状态已从 {@link CloudAssistantIndex} 取得。
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckCloudAssistantBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int instances;
+
+    private CloudAssistant cloudAssistant;
+
+    private RunCommandRequest request;
+
+    private List<InstanceCloudAssistantStatus> statusSet;
+
+    @Setup
+    public void setup() {
+        this.cloudAssistant = BenchmarkFixtures.cloudAssistant(null);
+        this.request = new RunCommandRequest();
+        this.request.setType(CloudAssistant.CommandType.RunShellScript.name());
+        this.statusSet = BenchmarkFixtures.linuxStatus(this.instances);
+    }
+
+    @Benchmark
+    public boolean checkCloudAssistant() {
+        return this.cloudAssistant.checkCloudAssistant(this.request, this.statusSet);
+    }
+}
@@ -0,0 +1,44 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <pre>
+ * 轮询时解析任务的创建时间：每次新建 SimpleDateFormat，对比 {@link CloudAssistant#parseTime(String)}。
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CreationTimeBenchmark {
+
+    private final String creationTime = Instant.ofEpochSecond(1700000000L).toString();
+
+    @Benchmark
+    public long simpleDateFormat() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        return format.parse(this.creationTime).getTime() + TimeZone.getDefault().getRawOffset();
+    }
+
+    @Benchmark
+    public long parseTime() {
+        return CloudAssistant.parseTime(this.creationTime);
+    }
+}
@@ -0,0 +1,73 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation.InvokeInstance;
+import com.aliyuncs.http.FormatType;
+import com.aliyuncs.reader.ReaderFactory;
+import com.aliyuncs.transform.UnmarshallerContext;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <pre>
+ * DescribeInvocations 响应的解码：SDK 的解析(展开为字段路径的 Map，再构造响应模型)对比 {@link InvocationDecoder} 的流式解码。
+ * outputBytes 为每个实例的 Output 长度，0 表示轮询只查询状态(IncludeOutput=false)。
+ * 使用 -prof gc 查看每次解码的内存分配。
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvocationDecodeBenchmark {
+
+    @Param({"100", "1000"})
+    private int instances;
+
+    @Param({"0", "1024"})
+    private int outputBytes;
+
+    private byte[] content;
+
+    @Setup
+    public void setup() {
+        DescribeInvocationsResponse response = BenchmarkFixtures.invocationsResponse(this.instances, "Success");
+        if (this.outputBytes > 0) {
+            String output = StringUtils.repeat('x', this.outputBytes);
+            for (InvokeInstance instance : response.getInvocations().get(0).getInvokeInstances()) {
+                instance.setOutput(output);
+                instance.setExitCode(0L);
+            }
+        }
+        this.content = BenchmarkFixtures.responseJson(response);
+    }
+
+    @Benchmark
+    public DescribeInvocationsResponse sdkDecode() throws Exception {
+        UnmarshallerContext context = new UnmarshallerContext();
+        context.setResponseMap(ReaderFactory.createInstance(FormatType.JSON)
+                .read(new String(this.content, StandardCharsets.UTF_8), "DescribeInvocationsResponse"));
+        return new DescribeInvocationsResponse().getInstance(context);
+    }
+
+    @Benchmark
+    public DescribeInvocationsResponse streamingDecode() throws IOException {
+        return InvocationDecoder.decodeInvocations(this.content);
+    }
+}
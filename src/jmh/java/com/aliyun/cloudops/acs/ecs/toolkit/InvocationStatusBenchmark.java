@@ -0,0 +1,47 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <pre>
+ * 轮询时判断任务状态是否已结束：以 valueOf 与异常处理未知状态，对比 {@link CloudAssistant#isFinished(String)}。
+ * Finished 是实例级别的状态，不在 {@link InvocationStatus} 中，用于衡量未知状态的开销。
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvocationStatusBenchmark {
+
+    @Param({"Running", "Success", "Finished"})
+    private String status;
+
+    @Benchmark
+    public boolean valueOf() {
+        try {
+            return InvocationStatus.valueOf(this.status).isFinished();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean isFinished() {
+        return CloudAssistant.isFinished(this.status);
+    }
+}
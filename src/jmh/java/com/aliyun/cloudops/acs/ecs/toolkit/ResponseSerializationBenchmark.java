@@ -0,0 +1,73 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.fastjson.JSON;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <pre>
+ * SDK 响应模型 DescribeInvocationsResponse 的序列化与反序列化：fastjson 对比 Jackson。
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int instances;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private DescribeInvocationsResponse response;
+
+    private String fastjsonText;
+
+    private String jacksonText;
+
+    @Setup
+    public void setup() throws IOException {
+        this.response = BenchmarkFixtures.invocationsResponse(this.instances, "Success");
+        this.fastjsonText = JSON.toJSONString(this.response);
+        this.jacksonText = this.objectMapper.writeValueAsString(this.response);
+    }
+
+    @Benchmark
+    public String fastjsonWrite() {
+        return JSON.toJSONString(this.response);
+    }
+
+    @Benchmark
+    public DescribeInvocationsResponse fastjsonRead() {
+        return JSON.parseObject(this.fastjsonText, DescribeInvocationsResponse.class);
+    }
+
+    @Benchmark
+    public String jacksonWrite() throws IOException {
+        return this.objectMapper.writeValueAsString(this.response);
+    }
+
+    @Benchmark
+    public DescribeInvocationsResponse jacksonRead() throws IOException {
+        return this.objectMapper.readValue(this.jacksonText, DescribeInvocationsResponse.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.TaskQuery;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation.InvokeInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <pre>
+ * 一次任务轮询 {@link TaskQuery#run()} 的本地开销：OpenAPI 请求由 {@link BenchmarkFixtures.StubAcsClient} 直接返回，
+ * 任务处于运行中，回调与 OpsTaskController 一样逐个判断实例的状态，下一次轮询提交给不执行任务的调度器。
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskQueryBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int instances;
+
+    private TaskQuery query;
+
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        CloudAssistant cloudAssistant = BenchmarkFixtures.cloudAssistant(
+                BenchmarkFixtures.invocationsResponse(this.instances, "Running"));
+        this.query = cloudAssistant.new TaskQuery("cn-hangzhou", "t-bench0000000001", this::test);
+    }
+
+    @Benchmark
+    public void run() {
+        this.query.run();
+    }
+
+    private boolean test(Invocation invocation) {
+        int finished = 0;
+        for (InvokeInstance instance : invocation.getInvokeInstances()) {
+            if (CloudAssistant.isFinished(instance.getInvocationStatus())) {
+                finished++;
+            }
+        }
+        this.blackhole.consume(finished);
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+package com.aliyun.cloudops.acs;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.aliyuncs.exceptions.ClientException;
+import com.aliyuncs.exceptions.ErrorType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <pre>
+ * 按地域服务地址(Endpoint)的熔断器。某个地域的OpenAPI连续失败（服务端异常或网络异常）达到阈值后，
+ * 熔断器打开，在一段时间内对该地域的请求直接失败，不再占用请求线程；之后进入半开状态，仅放行少量
+ * 探测请求，探测成功则关闭熔断器，失败则再次打开。
+ * </pre>
+ */
+@Component
+public class AcsCircuitBreaker {
+
+    public enum State {
+        Closed,     // 正常放行请求
+        Open,       // 熔断中，请求直接失败
+        HalfOpen,   // 放行少量探测请求
+    }
+
+    @Value("${acs.profile.breaker.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 触发熔断的连续失败次数
+     */
+    @Value("${acs.profile.breaker.failureThreshold:5}")
+    private int failureThreshold = 5;
+
+    /**
+     * 熔断打开的持续时间，以毫秒为单位
+     */
+    @Value("${acs.profile.breaker.openMillis:30000}")
+    private long openMillis = 30000;
+
+    /**
+     * 半开状态下，同时放行的探测请求数
+     */
+    @Value("${acs.profile.breaker.halfOpenProbes:1}")
+    private int halfOpenProbes = 1;
+
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    private static final String BREAKER_OPEN = "SDK.CircuitBreakerOpen";
+
+    private static final Logger logger = LoggerFactory.getLogger(AcsCircuitBreaker.class);
+
+    /**
+     * 请求发出之前调用，检查是否允许向该地址发送请求
+     *
+     * @param endpoint - 地域服务地址
+     * @throws ClientException - 熔断器已打开，或半开状态下的探测请求数已满
+     */
+    public void acquire(String endpoint) throws ClientException {
+        if (!this.enabled) {
+            return;
+        }
+        Breaker breaker = this.breakers.computeIfAbsent(endpoint, key -> new Breaker());
+        if (!breaker.tryAcquire()) {
+            ClientException e = new ClientException(BREAKER_OPEN,
+                    String.format("endpoint %s is unavailable, circuit breaker is %s.", endpoint, breaker.state));
+            e.setErrorType(ErrorType.Server);
+            throw e;
+        }
+    }
+
+    /**
+     * 该地址响应了请求（包括返回 4xx 错误）
+     */
+    public void onSuccess(String endpoint) {
+        Breaker breaker = this.breakers.get(endpoint);
+        if (breaker != null) {
+            breaker.onSuccess(endpoint);
+        }
+    }
+
+    /**
+     * 该地址出现服务端异常或网络异常
+     */
+    public void onFailure(String endpoint) {
+        Breaker breaker = this.breakers.get(endpoint);
+        if (breaker != null) {
+            breaker.onFailure(endpoint);
+        }
+    }
+
+    /**
+     * 请求的结果不能说明该地址是否正常（如被限流），仅释放探测请求的名额
+     */
+    public void onIgnored(String endpoint) {
+        Breaker breaker = this.breakers.get(endpoint);
+        if (breaker != null) {
+            breaker.release();
+        }
+    }
+
+    /**
+     * @return - 各地域服务地址的熔断器状态
+     */
+    public Map<String, State> getStates() {
+        Map<String, State> states = new TreeMap<>();
+        this.breakers.forEach((endpoint, breaker) -> states.put(endpoint, breaker.getState()));
+        return states;
+    }
+
+    public static boolean isOpen(ClientException e) {
+        return BREAKER_OPEN.equals(e.getErrCode());
+    }
+
+    private class Breaker {
+        private State state = State.Closed;
+        private int failures;
+        private int probes;
+        private long openTime;
+
+        private synchronized boolean tryAcquire() {
+            if (this.state == State.Open) {
+                if (System.currentTimeMillis() - this.openTime < openMillis) {
+                    return false;
+                }
+                this.state = State.HalfOpen;
+                this.probes = 0;
+            }
+            if (this.state == State.HalfOpen) {
+                if (this.probes >= halfOpenProbes) {
+                    return false;
+                }
+                this.probes++;
+            }
+            return true;
+        }
+
+        private synchronized void onSuccess(String endpoint) {
+            if (this.state == State.HalfOpen) {
+                logger.info("endpoint {} recovered, circuit breaker closed.", endpoint);
+            }
+            this.state = State.Closed;
+            this.failures = 0;
+            this.probes = 0;
+        }
+
+        private synchronized void onFailure(String endpoint) {
+            this.failures++;
+            if (this.state == State.HalfOpen || this.failures >= failureThreshold) {
+                if (this.state != State.Open) {
+                    logger.warn("endpoint {} failed {} times, circuit breaker opened.", endpoint, this.failures);
+                }
+                this.state = State.Open;
+                this.openTime = System.currentTimeMillis();
+                this.probes = 0;
+            }
+        }
+
+        private synchronized void release() {
+            if (this.state == State.HalfOpen && this.probes > 0) {
+                this.probes--;
+            }
+        }
+
+        private synchronized State getState() {
+            return this.state;
+        }
+    }
+}
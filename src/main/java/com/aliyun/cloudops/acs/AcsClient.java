@@ -1,23 +1,51 @@
 package com.aliyun.cloudops.acs;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import com.aliyuncs.AcsRequest;
 import com.aliyuncs.AcsResponse;
 import com.aliyuncs.DefaultAcsClient;
 import com.aliyuncs.IAcsClient;
-import com.aliyuncs.auth.sts.AssumeRoleRequest;
-import com.aliyuncs.auth.sts.AssumeRoleResponse;
-import com.aliyuncs.auth.sts.AssumeRoleResponse.Credentials;
+import com.aliyuncs.auth.BasicCredentials;
+import com.aliyuncs.auth.StaticCredentialsProvider;
+import com.aliyuncs.ecs.model.v20140526.DescribeRegionsRequest;
 import com.aliyuncs.exceptions.ClientException;
 import com.aliyuncs.exceptions.ErrorType;
+import com.aliyuncs.exceptions.ServerException;
+import com.aliyuncs.http.FormatType;
 import com.aliyuncs.http.HttpClientConfig;
 import com.aliyuncs.http.HttpClientType;
+import com.aliyuncs.http.HttpResponse;
+import com.aliyuncs.http.ProtocolType;
 import com.aliyuncs.profile.DefaultProfile;
 import com.aliyuncs.profile.IClientProfile;
+import com.aliyuncs.regions.ProductDomain;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -36,6 +64,18 @@ public class AcsClient {
     @Value("${acs.profile.ramRoleArn:#{null}}")
     private String ramRoleArn;
 
+    /**
+     * 扮演角色时，STS临时凭证的有效时长，以秒为单位
+     */
+    @Value("${acs.profile.stsDurationSeconds:3600}")
+    private long stsDurationSeconds = 3600;
+
+    /**
+     * 在STS临时凭证过期前多久，由后台线程提前刷新，以秒为单位
+     */
+    @Value("${acs.profile.stsRefreshAheadSeconds:300}")
+    private long stsRefreshAheadSeconds = 300;
+
     /**
      * 阿里云OpenAPI请求可能会网络等原因导致偶然的失败，该参数
      * 用于控制请求重试的最多次数。
@@ -43,79 +83,576 @@ public class AcsClient {
     @Value("${acs.profile.maxReties:3}")
     private int maxRetry = 3;
 
-    private IAcsClient rawClient;
+    /**
+     * 访问OpenAPI的协议：HTTPS 或 HTTP
+     */
+    @Value("${acs.profile.http.protocol:HTTPS}")
+    private ProtocolType protocol = ProtocolType.HTTPS;
+
+    /**
+     * 固定的服务地址，为空时按产品与地域使用默认的服务地址。
+     * 用于将全部请求(含 AssumeRole)发送到本地的模拟服务，如：127.0.0.1:18080，见 AcsSimulator
+     */
+    @Value("${acs.profile.endpoint:}")
+    private String endpoint;
+
+    /**
+     * HTTP连接池的最大连接数
+     */
+    @Value("${acs.profile.http.maxConnections:128}")
+    private int maxConnections = 128;
+
+    /**
+     * 每个服务地址(route)的最大连接数
+     */
+    @Value("${acs.profile.http.maxConnectionsPerRoute:32}")
+    private int maxConnectionsPerRoute = 32;
+
+    /**
+     * 连接的保持时间，以毫秒为单位
+     */
+    @Value("${acs.profile.http.keepAliveMillis:60000}")
+    private long keepAliveMillis = 60000;
+
+    /**
+     * 空闲连接的回收时间，以毫秒为单位
+     */
+    @Value("${acs.profile.http.maxIdleMillis:60000}")
+    private long maxIdleMillis = 60000;
+
+    @Value("${acs.profile.http.connectTimeoutMillis:5000}")
+    private long connectTimeoutMillis = 5000;
+
+    @Value("${acs.profile.http.readTimeoutMillis:10000}")
+    private long readTimeoutMillis = 10000;
+
+    /**
+     * 启动时预先建立连接的地域，多个地域以逗号分隔，如：cn-hangzhou,cn-beijing
+     */
+    @Value("${acs.profile.http.warmupRegions:}")
+    private Set<String> warmupRegions;
+
+    /**
+     * 每个预热地域并发建立的连接数
+     */
+    @Value("${acs.profile.http.warmupConnections:4}")
+    private int warmupConnections = 4;
+
+    /**
+     * 异步请求的最大并发数。运行时支持虚拟线程(JDK 21+)时，每个异步请求使用一个虚拟线程，
+     * 否则使用该大小的平台线程池。
+     */
+    @Value("${acs.profile.async.maxConcurrency:256}")
+    private int asyncMaxConcurrency = 256;
+
+    /**
+     * 等待执行(含等待限流令牌与重试退避)的异步请求数上限，超出后请求将立即失败
+     */
+    @Value("${acs.profile.async.queueSize:4096}")
+    private int asyncQueueSize = 4096;
+
+    /**
+     * 运行时支持时，是否使用虚拟线程执行异步请求
+     */
+    @Value("${acs.profile.async.virtualThreads:true}")
+    private boolean asyncVirtualThreads = true;
+
+    @Autowired
+    private AcsRateLimiter rateLimiter;
+
+    @Autowired
+    private AcsRetryPolicy retryPolicy;
+
+    @Autowired
+    private AcsCircuitBreaker circuitBreaker;
 
-    private IAcsClient roleClient;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    private long tokenExpireTime;
+    /**
+     * 全部地域共用的客户端，请求按其地域(RegionId)解析服务地址。
+     * SDK 的 ApacheHttpClient 为进程内单例，各客户端实际共用同一个 HTTP 连接池，连接按服务地址(route)分别复用，
+     * 连接池的参数以首次创建客户端时的 HttpClientConfig 为准，按服务地址分别创建客户端并不能分别调整连接池，因此只创建一个客户端。
+     */
+    private IAcsClient client;
+
+    private StsCredentialsProvider stsCredentialsProvider;
+
+    private ExecutorService warmupExecutor;
+
+    private ExecutorService asyncExecutor;
+
+    /**
+     * 异步请求等待限流令牌与重试退避的定时器，到期后将请求提交到执行器
+     */
+    private ScheduledExecutorService asyncScheduler;
+
+    /**
+     * 使用虚拟线程时，限制同时进行的异步请求数
+     */
+    private Semaphore asyncPermits;
+
+    private final AtomicInteger asyncPending = new AtomicInteger();
+
+    /**
+     * 请求耗时的 Timer，以 Action|地域|结果 为键
+     */
+    private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+
+    private static final String ASYNC_REJECTED = "SDK.AsyncRejected";
+
+    private static final String INVALID_RESPONSE_FORMAT = "SDK.InvalidResponseFormat";
+
+    private static final ObjectReader ERROR_READER = new ObjectMapper().reader();
+
+    private static final String METRIC_REQUEST = "acs.request";
+
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_THROTTLED = "throttled";
+    private static final String OUTCOME_CLIENT_ERROR = "client_error";
+    private static final String OUTCOME_ERROR = "error";
 
     private static final Logger logger = LoggerFactory.getLogger(AcsClient.class);
 
     @PostConstruct
     public void init() {
-        IClientProfile rawProfile = DefaultProfile.getProfile(regionId, accessKeyId, accessSecret);
         HttpClientConfig httpClientConfig = new HttpClientConfig();
         httpClientConfig.setClientType(HttpClientType.ApacheHttpClient);
-        httpClientConfig.setReadTimeoutMillis(10 * 1000L);
-        rawProfile.setHttpClientConfig(httpClientConfig);
-        this.rawClient = new DefaultAcsClient(rawProfile);
-        this.tokenExpireTime = 0;
-    }
+        httpClientConfig.setProtocolType(this.protocol);
+        httpClientConfig.setMaxRequests(this.maxConnections);
+        httpClientConfig.setMaxRequestsPerHost(this.maxConnectionsPerRoute);
+        httpClientConfig.setKeepAliveDurationMillis(this.keepAliveMillis);
+        httpClientConfig.setMaxIdleTimeMillis(this.maxIdleMillis);
+        httpClientConfig.setConnectionTimeoutMillis(this.connectTimeoutMillis);
+        httpClientConfig.setReadTimeoutMillis(this.readTimeoutMillis);
 
-    public String getRegionId() {
-        return regionId;
+        IClientProfile profile = DefaultProfile.getProfile(this.regionId);
+        profile.setHttpClientConfig(httpClientConfig);
+        if (StringUtils.isEmpty(this.ramRoleArn)) {
+            this.client = new DefaultAcsClient(profile,
+                    new StaticCredentialsProvider(new BasicCredentials(this.accessKeyId, this.accessSecret)));
+        } else {
+            // 角色客户端的凭证由 StsCredentialsProvider 在后台刷新，每次请求时读取最新的凭证
+            IClientProfile rawProfile = DefaultProfile.getProfile(regionId, accessKeyId, accessSecret);
+            rawProfile.setHttpClientConfig(httpClientConfig);
+            IAcsClient rawClient = new DefaultAcsClient(rawProfile);
+            this.stsCredentialsProvider = new StsCredentialsProvider(
+                    rawClient, this.ramRoleArn, this.stsDurationSeconds, this.stsRefreshAheadSeconds,
+                    StringUtils.trimToNull(this.endpoint));
+            this.stsCredentialsProvider.start();
+            this.client = new DefaultAcsClient(profile, this.stsCredentialsProvider);
+        }
+        this.asyncExecutor = this.createAsyncExecutor();
+        this.asyncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "acs-async-delay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.warmup();
     }
 
-    public IAcsClient getAcsClient() throws ClientException {
-        if (StringUtils.isEmpty(this.ramRoleArn)) {
-            return this.rawClient;
+    @PreDestroy
+    public void destroy() {
+        this.asyncScheduler.shutdownNow();
+        this.asyncExecutor.shutdownNow();
+        if (this.warmupExecutor != null) {
+            this.warmupExecutor.shutdownNow();
         }
-        if (System.currentTimeMillis() < tokenExpireTime) {
-            return this.roleClient;
+        if (this.stsCredentialsProvider != null) {
+            this.stsCredentialsProvider.shutdown();
         }
+        this.client.shutdown();
+    }
 
-        AssumeRoleRequest assumeRoleRequest = new AssumeRoleRequest();
-        assumeRoleRequest.setRoleArn(this.ramRoleArn);
-        assumeRoleRequest.setRoleSessionName("");
-        assumeRoleRequest.setDurationSeconds(3600L);
-        AssumeRoleResponse response = this.rawClient.getAcsResponse(assumeRoleRequest);
+    public String getRegionId() {
+        return regionId;
+    }
 
-        Credentials credentials = response.getCredentials();
-        String newKeyId = credentials.getAccessKeyId();
-        String newSecret = credentials.getAccessKeySecret();
-        String newStsToken = credentials.getSecurityToken();
-        DefaultProfile roleProfile = DefaultProfile.getProfile(regionId, newKeyId, newSecret, newStsToken);
-        this.tokenExpireTime = System.currentTimeMillis() + 3600 * 1000 - 60 * 100; //TODO: readExpireTime;
-        this.roleClient = new DefaultAcsClient(roleProfile);
-        return this.roleClient;
+    /**
+     * @return - OpenAPI 客户端，未指定地域的请求使用默认地域
+     */
+    public IAcsClient getAcsClient() throws ClientException {
+        return this.client;
     }
 
     /**
      * 带有自动重试的的阿里云OpenAPI调用。
      * 如果请求入参不合法，服务端返回状态码为 4xx 时，会立即返回异常不再重试。
+     * 请求受客户端限流控制，等待令牌的最长时间见配置 acs.profile.rateLimit.maxWaitMillis
      *
      * @param request - OpenAPI 请求值
      * @return - OpenAPI响应值，不可能为空
      * @throws - ClientException: 请求异常或服务端异常
      */
     public <T extends AcsResponse> T sendRequest(AcsRequest<T> request) throws ClientException {
-        String action = request.getSysActionName();
-        for (int i = 0; ; i++) {
+        return this.sendRequest(request, this.rateLimiter.getMaxWaitMillis());
+    }
+
+    /**
+     * 带有自动重试与客户端限流的阿里云OpenAPI调用。
+     * 如果请求入参不合法，服务端返回状态码为 4xx 时，会立即返回异常不再重试；
+     * 如果服务端返回 Throttling.* 限流错误，将降低客户端的请求速率，并在获得令牌后重试。
+     * 重试之前将以指数退避加随机抖动的方式等待，且重试次数受重试预算的限制，见 {@link AcsRetryPolicy}；
+     * 若目标地域的服务地址连续失败，将触发熔断，见 {@link AcsCircuitBreaker}。
+     *
+     * @param request       - OpenAPI 请求值
+     * @param maxWaitMillis - 等待限流令牌的最长时间，为 0 时若超出限流值则立即失败
+     * @return - OpenAPI响应值，不可能为空
+     * @throws - ClientException: 请求异常、服务端异常、熔断(SDK.CircuitBreakerOpen)，或超出客户端限流值(Throttling.Client)
+     */
+    public <T extends AcsResponse> T sendRequest(AcsRequest<T> request, long maxWaitMillis) throws ClientException {
+        return this.sendRequest(request, maxWaitMillis, null);
+    }
+
+    /**
+     * 与 {@link #sendRequest(AcsRequest)} 相同，但成功的响应由指定的解码器从响应内容中直接解码，
+     * 不经过 SDK 的解析过程。用于轮询等高频请求，响应较大而调用方只读取少数字段的场景。
+     *
+     * @param request - OpenAPI 请求值
+     * @param decoder - 成功响应的解码器；失败的响应仍按 SDK 的方式转换为异常
+     * @return - 解码器返回的响应值
+     * @throws - ClientException: 请求异常、服务端异常，或响应内容无法解码(SDK.InvalidResponseFormat)
+     */
+    public <T extends AcsResponse> T sendRequest(AcsRequest<T> request, AcsResponseDecoder<T> decoder)
+            throws ClientException {
+        return this.sendRequest(request, this.rateLimiter.getMaxWaitMillis(), decoder);
+    }
+
+    /**
+     * 轮询请求：与 {@link #sendRequest(AcsRequest, AcsResponseDecoder)} 相同，但等待限流令牌的时间较短，
+     * 见配置 acs.profile.rateLimit.pollWaitMillis。超出时以 Throttling.Client 失败，由调用方稍后重新查询，
+     * 避免调度线程长时间阻塞在限流等待上。
+     *
+     * @param request - OpenAPI 请求值
+     * @param decoder - 成功响应的解码器，为空时按 SDK 的方式解析
+     * @return - OpenAPI响应值
+     * @throws - ClientException: 请求异常、服务端异常，或超出客户端限流值(Throttling.Client)
+     */
+    public <T extends AcsResponse> T pollRequest(AcsRequest<T> request, AcsResponseDecoder<T> decoder)
+            throws ClientException {
+        return this.sendRequest(request, this.rateLimiter.getPollWaitMillis(), decoder);
+    }
+
+    private <T extends AcsResponse> T sendRequest(AcsRequest<T> request, long maxWaitMillis,
+                                                  AcsResponseDecoder<T> decoder) throws ClientException {
+        Call<T> call = this.newCall(request, decoder);
+        while (true) {
+            this.rateLimiter.acquire(this.accessKeyId, call.action, maxWaitMillis);
             try {
-                return this.getAcsClient().getAcsResponse(request);
+                return this.attempt(call);
             } catch (ClientException e) {
-                if (e.getErrorType() == ErrorType.Client) {
-                    logger.error("{} invalid, requestId: {}, error: {}, {}",
-                            action, e.getRequestId(), e.getErrCode(), e.getErrMsg());
+                if (call.retryDelay < 0) {
                     throw e;
                 }
-                if (i >= this.maxRetry - 1) {
-                    logger.warn("{} failed, requestId: {}, error: {}, {}",
-                            action, e.getRequestId(), e.getErrCode(), e.getErrMsg());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(call.retryDelay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
                     throw e;
                 }
             }
         }
     }
 
+    private <T extends AcsResponse> Call<T> newCall(AcsRequest<T> request, AcsResponseDecoder<T> decoder) {
+        if (StringUtils.isNotEmpty(this.endpoint)) {
+            request.setSysEndpoint(this.endpoint);
+        }
+        this.retryPolicy.onRequest();
+        return new Call<>(request, decoder, this.getEndpoint(request),
+                StringUtils.defaultIfEmpty(request.getSysRegionId(), this.regionId));
+    }
+
+    /**
+     * 发送一次请求(首次或重试)，调用方已获得限流令牌。
+     * 失败时若还可以重试，call.retryDelay 为重试前的退避时长，否则为 -1
+     */
+    private <T extends AcsResponse> T attempt(Call<T> call) throws ClientException {
+        String action = call.action;
+        call.attempts++;
+        call.retryDelay = -1;
+        this.circuitBreaker.acquire(call.endpoint);
+        long startTime = System.nanoTime();
+        try {
+            T response = call.decoder == null
+                    ? this.client.getAcsResponse(call.request) : decode(this.client, call.request, call.decoder);
+            this.record(action, call.region, OUTCOME_SUCCESS, startTime);
+            this.rateLimiter.onSuccess(this.accessKeyId, action);
+            this.circuitBreaker.onSuccess(call.endpoint);
+            return response;
+        } catch (ClientException e) {
+            boolean throttling = AcsRateLimiter.isThrottling(e);
+            this.record(action, call.region, throttling ? OUTCOME_THROTTLED
+                    : e.getErrorType() == ErrorType.Client ? OUTCOME_CLIENT_ERROR : OUTCOME_ERROR, startTime);
+            if (throttling) {
+                this.rateLimiter.onThrottled(this.accessKeyId, action);
+                this.circuitBreaker.onIgnored(call.endpoint);
+            } else if (e.getErrorType() == ErrorType.Client) {
+                this.circuitBreaker.onSuccess(call.endpoint);
+                logger.error("{} invalid, requestId: {}, error: {}, {}",
+                        action, e.getRequestId(), e.getErrCode(), e.getErrMsg());
+                throw e;
+            } else {
+                this.circuitBreaker.onFailure(call.endpoint);
+            }
+            if (call.attempts < this.maxRetry) {
+                call.retryDelay = this.retryPolicy.retryDelay(call.attempts);
+            }
+            if (call.retryDelay < 0) {
+                this.retryPolicy.onFailure(throttling);
+                logger.warn("{} failed, requestId: {}, error: {}, {}",
+                        action, e.getRequestId(), e.getErrCode(), e.getErrMsg());
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            // SDK 或解码器的非预期异常：不能说明服务地址是否正常，只释放半开状态下的探测名额
+            this.record(action, call.region, OUTCOME_ERROR, startTime);
+            this.circuitBreaker.onIgnored(call.endpoint);
+            this.retryPolicy.onFailure(false);
+            throw e;
+        }
+    }
+
+    /**
+     * 发送请求并以解码器解码成功的响应。失败的响应与 SDK 一致：状态码 5xx 为 ServerException，其他为 ClientException
+     */
+    static <T extends AcsResponse> T decode(IAcsClient client, AcsRequest<T> request,
+                                            AcsResponseDecoder<T> decoder) throws ClientException {
+        HttpResponse response = client.doAction(request);
+        if (response.getHttpContentType() != FormatType.JSON) {
+            throw new ClientException(INVALID_RESPONSE_FORMAT, String.format("%s response has a bad format type: %s.",
+                    request.getSysActionName(), response.getHttpContentType()));
+        }
+        if (!response.isSuccess()) {
+            JsonNode error;
+            try {
+                error = ERROR_READER.readTree(response.getHttpContent());
+            } catch (IOException e) {
+                throw new ClientException(INVALID_RESPONSE_FORMAT, e.getMessage(), e);
+            }
+            String code = error.path("Code").asText(null);
+            String message = error.path("Message").asText(null);
+            String requestId = error.path("RequestId").asText(null);
+            if (response.getStatus() >= 500) {
+                throw new ServerException(code, message, requestId);
+            }
+            throw new ClientException(code, message, requestId);
+        }
+        try {
+            return decoder.decode(response.getHttpContent());
+        } catch (IOException | RuntimeException e) {
+            throw new ClientException(INVALID_RESPONSE_FORMAT, String.format("%s response decode failed: %s",
+                    request.getSysActionName(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * 记录一次请求(含每次重试)的耗时，按 Action、地域与结果区分。各组合的 Timer 注册一次后缓存，
+     * 请求时不再创建 Builder 与标签，也不再查找注册表
+     */
+    private void record(String action, String region, String outcome, long startTime) {
+        String key = action + '|' + region + '|' + outcome;
+        Timer timer = this.requestTimers.get(key);
+        if (timer == null) {
+            timer = this.requestTimers.computeIfAbsent(key, name -> Timer.builder(METRIC_REQUEST)
+                    .tag("action", action)
+                    .tag("region", region)
+                    .tag("outcome", outcome)
+                    .register(this.meterRegistry));
+        }
+        timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 异步的阿里云OpenAPI调用，重试、限流与熔断的行为与 {@link #sendRequest(AcsRequest)} 相同。
+     * 请求在独立的有界执行器上运行，不会阻塞调用方的线程；等待限流令牌与重试前的退避由定时器延后提交，
+     * 期间不占用执行器的线程。
+     *
+     * @param request - OpenAPI 请求值
+     * @return - OpenAPI响应值；请求失败时以 ClientException 异常结束，
+     * 异步请求数超出上限时以 SDK.AsyncRejected 异常结束
+     */
+    public <T extends AcsResponse> CompletableFuture<T> sendRequestAsync(AcsRequest<T> request) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (this.asyncPending.incrementAndGet() > this.asyncMaxConcurrency + this.asyncQueueSize) {
+            this.asyncPending.decrementAndGet();
+            future.completeExceptionally(new ClientException(ASYNC_REJECTED,
+                    String.format("%s rejected, too many pending async requests.", request.getSysActionName())));
+            return future;
+        }
+        future.whenComplete((response, e) -> this.asyncPending.decrementAndGet());
+        Call<T> call = this.newCall(request, null);
+        call.future = future;
+        this.acquireAsync(call);
+        return future;
+    }
+
+    /**
+     * 预约限流令牌，需要等待时由定时器在等待结束后提交请求
+     */
+    private <T extends AcsResponse> void acquireAsync(Call<T> call) {
+        long waitMillis;
+        try {
+            waitMillis = this.rateLimiter.reserve(this.accessKeyId, call.action, this.rateLimiter.getMaxWaitMillis());
+        } catch (ClientException e) {
+            call.future.completeExceptionally(e);
+            return;
+        }
+        this.executeAsync(call, waitMillis);
+    }
+
+    private <T extends AcsResponse> void executeAsync(Call<T> call, long delayMillis) {
+        try {
+            if (delayMillis > 0) {
+                this.asyncScheduler.schedule(() -> this.executeAsync(call, 0), delayMillis, TimeUnit.MILLISECONDS);
+            } else if (this.asyncPermits == null) {
+                this.asyncExecutor.execute(() -> this.attemptAsync(call));
+            } else {
+                this.asyncExecutor.execute(() -> {
+                    try {
+                        this.asyncPermits.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        call.future.completeExceptionally(new ClientException(ASYNC_REJECTED, "interrupted while waiting.", e));
+                        return;
+                    }
+                    try {
+                        this.attemptAsync(call);
+                    } finally {
+                        this.asyncPermits.release();
+                    }
+                });
+            }
+        } catch (RejectedExecutionException e) {
+            call.future.completeExceptionally(new ClientException(ASYNC_REJECTED,
+                    String.format("%s rejected, async executor is shut down.", call.action), e));
+        }
+    }
+
+    /**
+     * 在执行器上发送一次请求；可以重试时，由定时器在退避时长之后重新获取令牌并提交
+     */
+    private <T extends AcsResponse> void attemptAsync(Call<T> call) {
+        try {
+            call.future.complete(this.attempt(call));
+        } catch (ClientException e) {
+            if (call.retryDelay < 0) {
+                call.future.completeExceptionally(e);
+                return;
+            }
+            try {
+                this.asyncScheduler.schedule(() -> this.acquireAsync(call), call.retryDelay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException re) {
+                call.future.completeExceptionally(e);
+            }
+        } catch (Throwable e) {
+            call.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 创建异步请求的执行器：运行时支持虚拟线程时，每个请求一个虚拟线程，并以信号量限制并发数；
+     * 否则使用固定大小、有界队列的平台线程池。
+     */
+    private ExecutorService createAsyncExecutor() {
+        if (this.asyncVirtualThreads) {
+            try {
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                ExecutorService executor = (ExecutorService) method.invoke(null);
+                this.asyncPermits = new Semaphore(this.asyncMaxConcurrency);
+                logger.info("async requests run on virtual threads, max concurrency: {}.", this.asyncMaxConcurrency);
+                return executor;
+            } catch (ReflectiveOperationException e) {
+                logger.info("virtual threads not supported, async requests run on a thread pool.");
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(this.asyncMaxConcurrency, this.asyncMaxConcurrency,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(this.asyncQueueSize), runnable -> {
+            Thread thread = new Thread(runnable, "acs-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 在后台并发请求各预热地域的 DescribeRegions，预先完成 DNS 解析与 TLS 握手，
+     * 使建立的连接保留在连接池中，避免首批跨地域请求承担建连的耗时。预热失败不影响启动。
+     */
+    private void warmup() {
+        if (this.warmupRegions == null || this.warmupRegions.isEmpty() || this.warmupConnections <= 0) {
+            return;
+        }
+        int connections = Math.min(this.warmupConnections, this.maxConnectionsPerRoute);
+        this.warmupExecutor = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "acs-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String warmupRegion : this.warmupRegions) {
+            if (StringUtils.isBlank(warmupRegion)) {
+                continue;
+            }
+            String region = warmupRegion.trim();
+            long startTime = System.currentTimeMillis();
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[connections];
+            for (int i = 0; i < connections; i++) {
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    DescribeRegionsRequest request = new DescribeRegionsRequest();
+                    request.setSysRegionId(region);
+                    try {
+                        this.sendRequest(request);
+                    } catch (ClientException e) {
+                        throw new IllegalStateException(e.getErrCode() + ", " + e.getErrMsg(), e);
+                    }
+                }, this.warmupExecutor);
+            }
+            CompletableFuture.allOf(futures).whenComplete((result, e) -> {
+                if (e == null) {
+                    logger.info("warmup {} connections to {} in {}ms.",
+                            connections, region, System.currentTimeMillis() - startTime);
+                } else {
+                    logger.warn("warmup connections to {} failed, error: {}.", region, e.getMessage());
+                }
+            });
+        }
+        this.warmupExecutor.shutdown();
+    }
+
+    /**
+     * 请求的目标服务地址：若请求指定了 Endpoint 则使用该地址，否则为 产品.地域
+     */
+    private String getEndpoint(AcsRequest<?> request) {
+        ProductDomain domain = request.getSysProductDomain();
+        if (domain != null && StringUtils.isNotEmpty(domain.getDomainName())) {
+            return domain.getDomainName();
+        }
+        String region = StringUtils.defaultIfEmpty(request.getSysRegionId(), this.regionId);
+        return String.format("%s.%s", StringUtils.lowerCase(request.getSysProduct()), region);
+    }
+
+    /**
+     * 一次OpenAPI调用(含各次重试)的状态
+     */
+    private static class Call<T extends AcsResponse> {
+        private final AcsRequest<T> request;
+        private final AcsResponseDecoder<T> decoder;
+        private final String action;
+        private final String endpoint;
+        private final String region;
+        private int attempts;
+        private long retryDelay = -1;
+        private CompletableFuture<T> future;    // 仅异步调用
+
+        private Call(AcsRequest<T> request, AcsResponseDecoder<T> decoder, String endpoint, String region) {
+            this.request = request;
+            this.decoder = decoder;
+            this.action = request.getSysActionName();
+            this.endpoint = endpoint;
+            this.region = region;
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.aliyun.cloudops.acs;
+
+import com.aliyun.cloudops.acs.AcsCircuitBreaker.State;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * <pre>
+ * 将OpenAPI请求的重试、限流与熔断的统计注册为 Micrometer 指标，统计值仍由各组件自己维护：
+ * acs.retry.requests         - 发起的请求数(不含重试)
+ * acs.retry.attempts         - 重试次数
+ * acs.retry.budget.exhausted - 因重试预算用完而放弃重试的次数
+ * acs.request.failures       - 重试后仍失败的请求数，throttled 标签区分服务端限流
+ * acs.breaker.open           - 处于熔断(打开与半开)状态的服务地址数
+ * 每次请求的耗时见 {@link AcsClient} 记录的 acs.request。
+ * </pre>
+ */
+@Component
+public class AcsMetrics implements MeterBinder {
+
+    @Autowired
+    private AcsRetryPolicy retryPolicy;
+
+    @Autowired
+    private AcsCircuitBreaker circuitBreaker;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("acs.retry.requests", this.retryPolicy, AcsRetryPolicy::getRequests)
+                .description("OpenAPI requests, excluding retries")
+                .register(registry);
+        FunctionCounter.builder("acs.retry.attempts", this.retryPolicy, AcsRetryPolicy::getRetries)
+                .description("OpenAPI request retries")
+                .register(registry);
+        FunctionCounter.builder("acs.retry.budget.exhausted", this.retryPolicy, AcsRetryPolicy::getBudgetExhausted)
+                .description("retries given up because the retry budget is exhausted")
+                .register(registry);
+        FunctionCounter.builder("acs.request.failures", this.retryPolicy,
+                        policy -> policy.getFailures() - policy.getThrottles())
+                .tag("throttled", "false")
+                .description("OpenAPI requests failed after retries")
+                .register(registry);
+        FunctionCounter.builder("acs.request.failures", this.retryPolicy, AcsRetryPolicy::getThrottles)
+                .tag("throttled", "true")
+                .description("OpenAPI requests failed after retries")
+                .register(registry);
+        Gauge.builder("acs.breaker.open", this.circuitBreaker,
+                        breaker -> breaker.getStates().values().stream().filter(state -> state != State.Closed).count())
+                .description("endpoints with an open or half-open circuit breaker")
+                .register(registry);
+    }
+}
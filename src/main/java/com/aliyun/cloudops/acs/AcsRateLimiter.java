@@ -0,0 +1,273 @@
+package com.aliyun.cloudops.acs;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.aliyuncs.exceptions.ClientException;
+import com.aliyuncs.exceptions.ErrorType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <pre>
+ * 阿里云OpenAPI客户端限流器。ECS的多数API的默认限制值为 1000次/分钟/帐号，超出后服务端将返回
+ * Throttling.* 错误码。该限流器按帐号、按API分别使用令牌桶限制请求速率，并根据服务端返回的限流
+ * 错误，以“乘性减、加性增”(AIMD) 的方式自适应调整实际速率，从而在接近配额上限时避免限流风暴。
+ * </pre>
+ */
+@Component
+public class AcsRateLimiter {
+
+    /**
+     * 是否启用客户端限流
+     */
+    @Value("${acs.profile.rateLimit.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 每个帐号每分钟的请求数上限
+     */
+    @Value("${acs.profile.rateLimit.perMinute:1000}")
+    private int accountPerMinute = 1000;
+
+    /**
+     * 每个API每分钟的默认请求数上限
+     */
+    @Value("${acs.profile.rateLimit.actionPerMinute:1000}")
+    private int actionPerMinute = 1000;
+
+    /**
+     * 指定API的每分钟请求数上限，如：{RunCommand:300,DescribeInvocations:600}
+     */
+    @Value("#{${acs.profile.rateLimit.actions:{:}}}")
+    private Map<String, Integer> actionLimits = Collections.emptyMap();
+
+    /**
+     * 未指定等待时长的请求，获取令牌的最长等待时间，以毫秒为单位。为 0 时不等待，直接失败。
+     */
+    @Value("${acs.profile.rateLimit.maxWaitMillis:10000}")
+    private long maxWaitMillis = 10000;
+
+    /**
+     * 轮询请求获取令牌的最长等待时间，以毫秒为单位。轮询在调度线程或I/O线程上执行，超出时请求以
+     * Throttling.Client 失败，由轮询稍后重新查询，不长时间占用这些线程。
+     */
+    @Value("${acs.profile.rateLimit.pollWaitMillis:200}")
+    private long pollWaitMillis = 200;
+
+    /**
+     * 令牌补充与速率调整使用的时钟
+     */
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final Map<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+
+    private final Map<String, TokenBucket> actionBuckets = new ConcurrentHashMap<>();
+
+    public static final String THROTTLING_PREFIX = "Throttling";
+
+    private static final String LOCAL_THROTTLING = "Throttling.Client";
+
+    private static final Logger logger = LoggerFactory.getLogger(AcsRateLimiter.class);
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public long getPollWaitMillis() {
+        return pollWaitMillis;
+    }
+
+    /**
+     * 获取一次请求的令牌，必要时等待。
+     *
+     * @param account       - 帐号（AccessKeyId）
+     * @param action        - API名称
+     * @param maxWaitMillis - 最长等待时间，为 0 时若没有可用令牌则立即失败
+     * @throws ClientException - 在最长等待时间内无法获得令牌
+     */
+    public void acquire(String account, String action, long maxWaitMillis) throws ClientException {
+        long waitMillis = this.reserve(account, action, maxWaitMillis);
+        if (waitMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClientException(LOCAL_THROTTLING, "interrupted while waiting for rate limit.", e);
+            }
+        }
+    }
+
+    /**
+     * 预约一次请求的令牌但不等待，由调用方在返回的时长之后发送请求，如异步请求由定时器延后提交。
+     *
+     * @param account       - 帐号（AccessKeyId）
+     * @param action        - API名称
+     * @param maxWaitMillis - 最长等待时间，为 0 时若没有可用令牌则立即失败
+     * @return - 发送请求前需要等待的毫秒数
+     * @throws ClientException - 在最长等待时间内无法获得令牌
+     */
+    public long reserve(String account, String action, long maxWaitMillis) throws ClientException {
+        if (!this.enabled) {
+            return 0;
+        }
+        TokenBucket accountBucket = this.accountBuckets.computeIfAbsent(account,
+                key -> new TokenBucket(this.accountPerMinute, this.clock));
+        TokenBucket actionBucket = this.actionBuckets.computeIfAbsent(action,
+                key -> new TokenBucket(this.actionLimits.getOrDefault(key, this.actionPerMinute), this.clock));
+
+        long accountWait = accountBucket.reserve(maxWaitMillis);
+        if (accountWait < 0) {
+            throw throttled(action, "account");
+        }
+        long actionWait = actionBucket.reserve(maxWaitMillis);
+        if (actionWait < 0) {
+            accountBucket.refund();
+            throw throttled(action, "action");
+        }
+        return Math.max(accountWait, actionWait);
+    }
+
+    /**
+     * 服务端返回限流错误时调用，乘性降低帐号与该API的请求速率
+     */
+    public void onThrottled(String account, String action) {
+        TokenBucket accountBucket = this.accountBuckets.get(account);
+        TokenBucket actionBucket = this.actionBuckets.get(action);
+        if (accountBucket != null) {
+            accountBucket.decrease();
+        }
+        if (actionBucket != null) {
+            actionBucket.decrease();
+        }
+        logger.warn("{} throttled by server, rate limit decreased.", action);
+    }
+
+    /**
+     * 请求成功时调用，加性恢复帐号与该API的请求速率
+     */
+    public void onSuccess(String account, String action) {
+        TokenBucket accountBucket = this.accountBuckets.get(account);
+        TokenBucket actionBucket = this.actionBuckets.get(action);
+        if (accountBucket != null) {
+            accountBucket.increase();
+        }
+        if (actionBucket != null) {
+            actionBucket.increase();
+        }
+    }
+
+    /**
+     * @return - 各API当前的实际速率，以每分钟请求数表示
+     */
+    public Map<String, Long> getActionRates() {
+        Map<String, Long> rates = new TreeMap<>();
+        this.actionBuckets.forEach((action, bucket) -> rates.put(action, bucket.getPerMinute()));
+        return rates;
+    }
+
+    public static boolean isThrottling(ClientException e) {
+        return e.getErrorType() == ErrorType.Throttling
+                || (e.getErrCode() != null && e.getErrCode().startsWith(THROTTLING_PREFIX));
+    }
+
+    private static ClientException throttled(String action, String scope) {
+        ClientException e = new ClientException(LOCAL_THROTTLING,
+                String.format("%s exceeds the client-side %s rate limit.", action, scope));
+        e.setErrorType(ErrorType.Throttling);
+        return e;
+    }
+
+    /**
+     * 可调整速率的令牌桶。令牌数允许为负数，表示已被预约的令牌，预约者需等待相应的时长。
+     */
+    private static class TokenBucket {
+        private static final double DECREASE_FACTOR = 0.5;      // 限流时速率减半
+        private static final double INCREASE_RATIO = 0.05;      // 每秒恢复上限的 5%
+        private static final double MIN_RATIO = 0.1;            // 速率不低于上限的 10%
+        private static final long ADJUST_INTERVAL = 1000L;      // 两次调整的最小间隔
+
+        private final LongSupplier clock;
+        private final double maxRate;   // 每毫秒令牌数上限
+        private double rate;            // 当前每毫秒令牌数
+        private double tokens;
+        private long refillTime;
+        private long adjustTime;
+
+        private TokenBucket(int perMinute, LongSupplier clock) {
+            this.clock = clock;
+            this.maxRate = Math.max(perMinute, 1) / 60000.0;
+            this.rate = this.maxRate;
+            this.tokens = this.capacity();
+            this.refillTime = clock.getAsLong();
+            this.adjustTime = this.refillTime;
+        }
+
+        /**
+         * 预约一个令牌
+         *
+         * @return - 需要等待的毫秒数；若超过最长等待时间，则返回 -1 且不预约
+         */
+        private synchronized long reserve(long maxWaitMillis) {
+            this.refill();
+            if (this.tokens >= 1) {
+                this.tokens -= 1;
+                return 0;
+            }
+            long waitMillis = (long) Math.ceil((1 - this.tokens) / this.rate);
+            if (waitMillis > maxWaitMillis) {
+                return -1;
+            }
+            this.tokens -= 1;
+            return waitMillis;
+        }
+
+        private synchronized void refund() {
+            this.tokens = Math.min(this.capacity(), this.tokens + 1);
+        }
+
+        private synchronized void decrease() {
+            long now = this.clock.getAsLong();
+            if (now - this.adjustTime < ADJUST_INTERVAL) {
+                return; // 同一时间窗口内的多个限流错误，只降低一次
+            }
+            this.refill();
+            this.rate = Math.max(this.maxRate * MIN_RATIO, this.rate * DECREASE_FACTOR);
+            this.tokens = Math.min(this.tokens, this.capacity());
+            this.adjustTime = now;
+        }
+
+        private synchronized void increase() {
+            long now = this.clock.getAsLong();
+            if (this.rate >= this.maxRate || now - this.adjustTime < ADJUST_INTERVAL) {
+                return;
+            }
+            this.refill();
+            this.rate = Math.min(this.maxRate, this.rate + this.maxRate * INCREASE_RATIO);
+            this.adjustTime = now;
+        }
+
+        private synchronized long getPerMinute() {
+            return Math.round(this.rate * 60000);
+        }
+
+        /**
+         * 令牌桶容量为1秒的请求数，避免瞬时突发超出服务端的限制
+         */
+        private double capacity() {
+            return Math.max(1, this.rate * 1000);
+        }
+
+        private void refill() {
+            long now = this.clock.getAsLong();
+            this.tokens = Math.min(this.capacity(), this.tokens + (now - this.refillTime) * this.rate);
+            this.refillTime = now;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.aliyun.cloudops.acs;
+
+import java.io.IOException;
+
+import com.aliyuncs.AcsResponse;
+
+/**
+ * <pre>
+ * OpenAPI 成功响应(JSON)的解码器，用于替代 SDK 默认的解析过程。
+ * SDK 默认先将整个响应展开为以字段路径为键的 Map，再逐个字段构造响应模型；响应较大、调用方只读取少数字段时，
+ * 可以由解码器直接从响应内容中逐个读取需要的字段，跳过其余内容。见 {@link AcsClient#sendRequest(com.aliyuncs.AcsRequest, AcsResponseDecoder)}
+ * </pre>
+ */
+@FunctionalInterface
+public interface AcsResponseDecoder<T extends AcsResponse> {
+
+    /**
+     * @param content - 响应内容，UTF-8 编码的 JSON
+     * @return - 响应值，不可以为空
+     * @throws IOException - 响应内容不是合法的 JSON
+     */
+    T decode(byte[] content) throws IOException;
+}
@@ -0,0 +1,138 @@
+package com.aliyun.cloudops.acs;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <pre>
+ * 阿里云OpenAPI请求的重试策略：
+ * 1. 指数退避与完全随机抖动(full jitter)：第 n 次重试前等待 random(0, min(maxDelay, baseDelay * 2^n))；
+ * 2. 重试预算：重试请求数不超过请求总数的一定比例，避免在服务端故障期间，重试成倍放大请求量。
+ * </pre>
+ */
+@Component
+public class AcsRetryPolicy {
+
+    @Value("${acs.profile.retry.baseDelayMillis:100}")
+    private long baseDelayMillis = 100;
+
+    @Value("${acs.profile.retry.maxDelayMillis:5000}")
+    private long maxDelayMillis = 5000;
+
+    /**
+     * 重试请求数占请求总数的最大百分比
+     */
+    @Value("${acs.profile.retry.budgetPercent:10}")
+    private int budgetPercent = 10;
+
+    /**
+     * 请求量很小时，每秒至少允许的重试次数
+     */
+    @Value("${acs.profile.retry.minPerSecond:3}")
+    private int minPerSecond = 3;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong throttles = new AtomicLong();
+
+    /**
+     * 重试预算，以百分之一次重试为单位，按整数累加，避免浮点误差使预算略小于一次重试
+     */
+    private long budget;
+    private long budgetTime = System.currentTimeMillis();
+
+    private static final int RETRY_COST = 100;
+
+    private static final int MAX_BUDGET = 100 * RETRY_COST;
+
+    /**
+     * 发起一次新的请求（非重试）时调用，按比例存入重试预算
+     */
+    public void onRequest() {
+        this.requests.incrementAndGet();
+        synchronized (this) {
+            this.refill();
+            this.budget = Math.min(MAX_BUDGET, this.budget + this.budgetPercent);
+        }
+    }
+
+    /**
+     * 请求最终失败时调用
+     *
+     * @param throttling - 是否为服务端限流错误
+     */
+    public void onFailure(boolean throttling) {
+        if (throttling) {
+            this.throttles.incrementAndGet();
+        }
+        this.failures.incrementAndGet();
+    }
+
+    /**
+     * 判断是否还能重试，若可以则扣减一次重试预算。不在此等待，由调用方在退避时长之后重试(如异步请求由定时器延后提交)
+     *
+     * @param attempt - 已经失败的次数，从 1 开始
+     * @return - 重试前的退避时长(毫秒); 重试预算已用完则为 -1
+     */
+    public long retryDelay(int attempt) {
+        synchronized (this) {
+            this.refill();
+            if (this.budget < RETRY_COST) {
+                this.budgetExhausted.incrementAndGet();
+                return -1;
+            }
+            this.budget -= RETRY_COST;
+        }
+        this.retries.incrementAndGet();
+        long ceiling = Math.min(this.maxDelayMillis, this.baseDelayMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getBudgetExhausted() {
+        return budgetExhausted.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getThrottles() {
+        return throttles.get();
+    }
+
+    /**
+     * 按经过的时间补充预算。budgetTime 只前进已计入预算的时长，不足一个单位的时长留到下次计入
+     */
+    private void refill() {
+        long now = System.currentTimeMillis();
+        long perSecond = (long) this.minPerSecond * RETRY_COST;
+        if (perSecond <= 0 || this.budget >= MAX_BUDGET) {
+            this.budgetTime = now;
+            return;
+        }
+        long credit = (now - this.budgetTime) * perSecond / 1000;
+        if (credit <= 0) {
+            return;
+        }
+        this.budget += credit;
+        if (this.budget >= MAX_BUDGET) {
+            this.budget = MAX_BUDGET;
+            this.budgetTime = now;
+        } else {
+            this.budgetTime += (credit * 1000 + perSecond - 1) / perSecond;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.aliyun.cloudops.acs;
+
+import java.util.Map;
+
+import com.aliyun.cloudops.acs.AcsCircuitBreaker.State;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController()
+@RequestMapping("/api/acs/stats")
+public class AcsStatsController extends AcsController {
+
+    @Autowired
+    private AcsRateLimiter rateLimiter;
+
+    @Autowired
+    private AcsRetryPolicy retryPolicy;
+
+    @Autowired
+    private AcsCircuitBreaker circuitBreaker;
+
+    /**
+     * 查看各地域服务地址的熔断器状态
+     *
+     * @return
+     */
+    @GetMapping("/breakers")
+    public ResponseEntity<Map<String, State>> getBreakers() {
+        return new ResponseEntity<>(this.circuitBreaker.getStates(), HttpStatus.OK);
+    }
+
+    /**
+     * 查看OpenAPI请求的重试计数
+     *
+     * @return
+     */
+    @GetMapping("/retries")
+    public ResponseEntity<RetryStats> getRetries() {
+        return new ResponseEntity<>(new RetryStats(this.retryPolicy), HttpStatus.OK);
+    }
+
+    /**
+     * 查看客户端限流器当前的实际速率（每分钟请求数）
+     *
+     * @return
+     */
+    @GetMapping("/rate-limits")
+    public ResponseEntity<Map<String, Long>> getRateLimits() {
+        return new ResponseEntity<>(this.rateLimiter.getActionRates(), HttpStatus.OK);
+    }
+
+    public static class RetryStats {
+        private final long requests;
+        private final long retries;
+        private final long budgetExhausted;
+        private final long failures;
+        private final long throttles;
+
+        public RetryStats(AcsRetryPolicy retryPolicy) {
+            this.requests = retryPolicy.getRequests();
+            this.retries = retryPolicy.getRetries();
+            this.budgetExhausted = retryPolicy.getBudgetExhausted();
+            this.failures = retryPolicy.getFailures();
+            this.throttles = retryPolicy.getThrottles();
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getRetries() {
+            return retries;
+        }
+
+        public long getBudgetExhausted() {
+            return budgetExhausted;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getThrottles() {
+            return throttles;
+        }
+    }
+}
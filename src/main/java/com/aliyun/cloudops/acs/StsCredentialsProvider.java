@@ -0,0 +1,240 @@
+package com.aliyun.cloudops.acs;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.aliyuncs.IAcsClient;
+import com.aliyuncs.auth.AlibabaCloudCredentials;
+import com.aliyuncs.auth.AlibabaCloudCredentialsProvider;
+import com.aliyuncs.auth.BasicSessionCredentials;
+import com.aliyuncs.auth.sts.AssumeRoleRequest;
+import com.aliyuncs.auth.sts.AssumeRoleResponse;
+import com.aliyuncs.auth.sts.AssumeRoleResponse.Credentials;
+import com.aliyuncs.exceptions.ClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <pre>
+ * 使用 RamRoleArn 扮演角色时的 STS 临时凭证提供者：
+ * 1. 读取凭证时只读取 volatile 引用，不加锁；
+ * 2. 由后台线程根据 STS 返回的真实过期时间(Expiration)，提前刷新凭证；
+ * 3. 即使在高并发下凭证已过期，也只会有一个 AssumeRole 请求，其余线程等待该请求的结果；
+ * 4. 首次获取在启动时完成({@link #start()})；AssumeRole 失败后记录失败时间，在重试间隔内读取凭证的调用方立即失败，
+ *    不再各自发起 AssumeRole，由后台线程按间隔重试。
+ * </pre>
+ */
+public class StsCredentialsProvider implements AlibabaCloudCredentialsProvider {
+
+    private final IAcsClient rawClient;
+
+    private final String ramRoleArn;
+
+    private final long durationSeconds;
+
+    private final long refreshAheadSeconds;
+
+    private final String endpoint;
+
+    private final ScheduledExecutorService refresher;
+
+    private final AtomicReference<CompletableFuture<Session>> refreshing = new AtomicReference<>();
+
+    private volatile Session session;
+
+    private volatile Failure failure;
+
+    private ScheduledFuture<?> scheduled;
+
+    private static final String ROLE_SESSION_NAME = "cloudops";
+
+    private static final long RETRY_DELAY_SECONDS = 30;
+
+    private static final Logger logger = LoggerFactory.getLogger(StsCredentialsProvider.class);
+
+    /**
+     * @param rawClient           - 使用 AccessKey 的客户端，用于调用 AssumeRole
+     * @param ramRoleArn          - 扮演的角色
+     * @param durationSeconds     - 临时凭证的有效时长
+     * @param refreshAheadSeconds - 在凭证过期前多久开始刷新
+     * @param endpoint            - AssumeRole 的服务地址，为 null 时使用默认的服务地址
+     */
+    public StsCredentialsProvider(IAcsClient rawClient, String ramRoleArn, long durationSeconds, long refreshAheadSeconds,
+                                  String endpoint) {
+        this.rawClient = rawClient;
+        this.ramRoleArn = ramRoleArn;
+        this.durationSeconds = durationSeconds;
+        this.refreshAheadSeconds = Math.min(refreshAheadSeconds, durationSeconds / 2);
+        this.endpoint = endpoint;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sts-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动时获取首个凭证。获取失败时不抛出异常，由后台线程按间隔重试，期间读取凭证的调用方立即失败
+     */
+    public void start() {
+        this.refresh(true);
+    }
+
+    @Override
+    public AlibabaCloudCredentials getCredentials() throws ClientException {
+        Session current = this.validSession();
+        if (current != null) {
+            return current.credentials;
+        }
+        ClientException unavailable = this.recentFailure();
+        if (unavailable != null) {
+            throw unavailable; // 在重试间隔内不再发起 AssumeRole，等待后台重试
+        }
+        // 后台刷新未能及时完成，且不在失败的重试间隔内：等待唯一的一个刷新请求
+        try {
+            return this.refresh(false).get().credentials;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("SDK.InvalidCredentials", "interrupted while refreshing sts token.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ClientException) {
+                throw (ClientException) e.getCause();
+            }
+            throw new ClientException("SDK.InvalidCredentials", "failed to refresh sts token.", e.getCause());
+        }
+    }
+
+    public void shutdown() {
+        this.refresher.shutdownNow();
+    }
+
+    /**
+     * @return - 未过期的凭证，没有则为 null
+     */
+    private Session validSession() {
+        Session current = this.session;
+        return current != null && System.currentTimeMillis() < current.expireTime ? current : null;
+    }
+
+    /**
+     * @return - 最近一次刷新失败且仍在重试间隔内时，返回读取凭证的异常，否则为 null
+     */
+    private ClientException recentFailure() {
+        Failure last = this.failure;
+        if (last != null && System.currentTimeMillis() < last.time + TimeUnit.SECONDS.toMillis(RETRY_DELAY_SECONDS)) {
+            return new ClientException("SDK.InvalidCredentials",
+                    "sts token unavailable, last error: " + last.error.getMessage(), last.error);
+        }
+        return null;
+    }
+
+    /**
+     * 发起一次刷新；若已有刷新正在进行，则返回该次刷新的结果
+     *
+     * @param force - 启动时与后台的刷新总是发起 AssumeRole。读取凭证的调用方取得刷新权之后，先重新检查凭证：
+     *              其判断凭证已过期之后，可能已有另一次刷新完成，此时不再重复发起 AssumeRole
+     */
+    private CompletableFuture<Session> refresh(boolean force) {
+        CompletableFuture<Session> future = new CompletableFuture<>();
+        while (!this.refreshing.compareAndSet(null, future)) {
+            CompletableFuture<Session> inflight = this.refreshing.get();
+            if (inflight != null) {
+                return inflight;
+            }
+        }
+        if (!force) {
+            Session current = this.validSession();
+            ClientException unavailable = current == null ? this.recentFailure() : null;
+            if (current != null || unavailable != null) {
+                this.refreshing.set(null);
+                if (current != null) {
+                    future.complete(current);
+                } else {
+                    future.completeExceptionally(unavailable);
+                }
+                return future;
+            }
+        }
+        try {
+            Session refreshed = this.assumeRole();
+            this.session = refreshed;
+            this.failure = null;
+            future.complete(refreshed);
+            this.scheduleRefresh(refreshed.refreshTime - System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.error("assume role {} failed, error: {}.", this.ramRoleArn, e.getMessage());
+            this.failure = new Failure(System.currentTimeMillis(), e);
+            future.completeExceptionally(e);
+            this.scheduleRefresh(TimeUnit.SECONDS.toMillis(RETRY_DELAY_SECONDS));
+        } finally {
+            this.refreshing.set(null);
+        }
+        return future;
+    }
+
+    private synchronized void scheduleRefresh(long delayMillis) {
+        if (this.refresher.isShutdown()) {
+            return;
+        }
+        if (this.scheduled != null) {
+            this.scheduled.cancel(false); // 只保留最近一次的后台刷新
+        }
+        this.scheduled = this.refresher.schedule(() -> this.refresh(true), Math.max(delayMillis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private Session assumeRole() throws ClientException {
+        AssumeRoleRequest assumeRoleRequest = new AssumeRoleRequest();
+        assumeRoleRequest.setRoleArn(this.ramRoleArn);
+        assumeRoleRequest.setRoleSessionName(ROLE_SESSION_NAME);
+        assumeRoleRequest.setDurationSeconds(this.durationSeconds);
+        if (this.endpoint != null) {
+            assumeRoleRequest.setSysEndpoint(this.endpoint);
+        }
+        long requestTime = System.currentTimeMillis();
+        AssumeRoleResponse response = this.rawClient.getAcsResponse(assumeRoleRequest);
+
+        Credentials credentials = response.getCredentials();
+        long expireTime;
+        try {
+            expireTime = Instant.parse(credentials.getExpiration()).toEpochMilli(); // UTC 时间，如：2023-10-01T08:00:00Z
+        } catch (Exception e) {
+            expireTime = requestTime + TimeUnit.SECONDS.toMillis(this.durationSeconds);
+        }
+        long refreshTime = expireTime - TimeUnit.SECONDS.toMillis(this.refreshAheadSeconds);
+        logger.info("assume role {} success, expiration: {}.", this.ramRoleArn, credentials.getExpiration());
+        return new Session(new BasicSessionCredentials(
+                credentials.getAccessKeyId(),
+                credentials.getAccessKeySecret(),
+                credentials.getSecurityToken(),
+                this.durationSeconds
+        ), refreshTime, expireTime - TimeUnit.SECONDS.toMillis(RETRY_DELAY_SECONDS));
+    }
+
+    private static class Session {
+        private final BasicSessionCredentials credentials;
+        private final long refreshTime;
+        private final long expireTime;
+
+        private Session(BasicSessionCredentials credentials, long refreshTime, long expireTime) {
+            this.credentials = credentials;
+            this.refreshTime = refreshTime;
+            this.expireTime = expireTime;
+        }
+    }
+
+    private static class Failure {
+        private final long time;
+        private final Exception error;
+
+        private Failure(long time, Exception error) {
+            this.time = time;
+            this.error = error;
+        }
+    }
+}
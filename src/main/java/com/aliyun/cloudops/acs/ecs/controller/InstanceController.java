@@ -3,6 +3,7 @@ package com.aliyun.cloudops.acs.ecs.controller;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.alibaba.fastjson.JSON;
 import com.aliyun.cloudops.acs.AcsController;
@@ -13,11 +14,9 @@ import com.aliyuncs.ecs.model.v20140526.DescribeInstancesResponse;
 import com.aliyuncs.ecs.model.v20140526.DescribeManagedInstancesRequest;
 import com.aliyuncs.ecs.model.v20140526.DescribeManagedInstancesResponse;
 import com.aliyuncs.ecs.model.v20140526.DescribeRegionsRequest;
-import com.aliyuncs.ecs.model.v20140526.DescribeRegionsResponse;
 import com.aliyuncs.ecs.model.v20140526.DescribeRegionsResponse.Region;
 import com.aliyuncs.ecs.model.v20140526.StartTerminalSessionRequest;
 import com.aliyuncs.ecs.model.v20140526.StartTerminalSessionResponse;
-import com.aliyuncs.exceptions.ClientException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -37,16 +36,16 @@ public class InstanceController extends AcsController {
      * </pre>
      *
      * @return
-     * @throws ClientException
      */
     @GetMapping("/regions")
-    public ResponseEntity<RegionsResponse> getRegions() throws ClientException {
+    public CompletableFuture<ResponseEntity<RegionsResponse>> getRegions() {
         DescribeRegionsRequest request = new DescribeRegionsRequest();
-        DescribeRegionsResponse response = this.acsClient.sendRequest(request);
         String current = this.acsClient.getRegionId();
-        List<Region> regions = response.getRegions();
-        RegionsResponse result = new RegionsResponse(current, regions);
-        return new ResponseEntity<>(result, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request).thenApply(response -> {
+            List<Region> regions = response.getRegions();
+            RegionsResponse result = new RegionsResponse(current, regions);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        });
     }
 
     public static class RegionsResponse {
@@ -77,14 +76,13 @@ public class InstanceController extends AcsController {
      * @param nextToken -
      * @param maxResult -
      * @return
-     * @throws ClientException
      */
     @GetMapping("/regions/{regionId}/instances")
-    public ResponseEntity<DescribeInstancesResponse> getInstances(
+    public CompletableFuture<ResponseEntity<DescribeInstancesResponse>> getInstances(
             @PathVariable(name = "regionId") String regionId,
             @RequestParam(name = "pageSize", defaultValue = "20") int pageSize,
             @RequestParam(name = "pageIndex", defaultValue = "1") int pageIndex
-    ) throws ClientException {
+    ) {
         if ("default".equals(regionId)) {
             regionId = this.acsClient.getRegionId();
         }
@@ -92,46 +90,46 @@ public class InstanceController extends AcsController {
         request.setSysRegionId(regionId);
         request.setPageSize(pageSize);
         request.setPageNumber(pageIndex);
-        DescribeInstancesResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
     }
 
     @GetMapping("/regions/{regionId}/instances/{instanceId}")
-    public ResponseEntity<DescribeInstancesResponse> getInstance(
+    public CompletableFuture<ResponseEntity<DescribeInstancesResponse>> getInstance(
             @PathVariable(name = "regionId") String regionId,
             @PathVariable(name = "instanceId") String instanceId
-    ) throws ClientException {
+    ) {
         if ("default".equals(regionId)) {
             regionId = this.acsClient.getRegionId();
         }
         DescribeInstancesRequest request = new DescribeInstancesRequest();
         request.setSysRegionId(regionId);
         request.setInstanceIds(JSON.toJSONString(new String[]{instanceId}));
-        DescribeInstancesResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
     }
 
     @GetMapping("/regions/{regionId}/assistants")
-    public ResponseEntity<DescribeCloudAssistantStatusResponse> getCloudAssistants(
+    public CompletableFuture<ResponseEntity<DescribeCloudAssistantStatusResponse>> getCloudAssistants(
             @PathVariable(name = "regionId") String regionId,
             @RequestParam(name = "instanceId") String[] instanceIds
-    ) throws ClientException {
+    ) {
         if ("default".equals(regionId)) {
             regionId = this.acsClient.getRegionId();
         }
         DescribeCloudAssistantStatusRequest request = new DescribeCloudAssistantStatusRequest();
         request.setSysRegionId(regionId);
         request.setInstanceIds(Arrays.asList(instanceIds));
-        DescribeCloudAssistantStatusResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
     }
 
     @GetMapping("/regions/{regionId}/managed-instances")
-    public ResponseEntity<DescribeManagedInstancesResponse> getManagedInstances(
+    public CompletableFuture<ResponseEntity<DescribeManagedInstancesResponse>> getManagedInstances(
             @PathVariable(name = "regionId") String regionId,
             @RequestParam(name = "pageSize", defaultValue = "20") long pageSize,
             @RequestParam(name = "pageIndex", defaultValue = "1") long pageIndex
-    ) throws ClientException {
+    ) {
         if ("default".equals(regionId)) {
             regionId = this.acsClient.getRegionId();
         }
@@ -139,23 +137,23 @@ public class InstanceController extends AcsController {
         request.setSysRegionId(regionId);
         request.setPageSize(pageSize);
         request.setPageNumber(pageIndex);
-        DescribeManagedInstancesResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
     }
 
     @GetMapping("/regions/{regionId}/managed-instances/{instanceId}")
-    public ResponseEntity<DescribeManagedInstancesResponse> getManagedInstances(
+    public CompletableFuture<ResponseEntity<DescribeManagedInstancesResponse>> getManagedInstances(
             @PathVariable(name = "regionId") String regionId,
             @PathVariable(name = "instanceId") String instanceId
-    ) throws ClientException {
+    ) {
         if ("default".equals(regionId)) {
             regionId = this.acsClient.getRegionId();
         }
         DescribeManagedInstancesRequest request = new DescribeManagedInstancesRequest();
         request.setSysRegionId(regionId);
         request.setInstanceIds(Collections.singletonList(instanceId));
-        DescribeManagedInstancesResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
     }
 
     /**
@@ -168,20 +166,19 @@ public class InstanceController extends AcsController {
      * @param instanceId -
      * @param portNumber -
      * @return
-     * @throws ClientException
      */
     @PutMapping("/sessions/{regionId}/instances/{instanceId}")
-    public ResponseEntity<StartTerminalSessionResponse> startSession(
+    public CompletableFuture<ResponseEntity<StartTerminalSessionResponse>> startSession(
             @PathVariable("regionId") String regionId,
             @PathVariable("instanceId") String instanceId,
             @RequestParam(name = "portNumber", required = false) Integer portNumber
-    ) throws ClientException {
+    ) {
         StartTerminalSessionRequest request = new StartTerminalSessionRequest();
         request.setSysRegionId(regionId);
         request.setInstanceIds(Collections.singletonList(instanceId));
         request.setPortNumber(portNumber);
-        StartTerminalSessionResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
     }
 
 }
@@ -1,20 +1,52 @@
 package com.aliyun.cloudops.acs.ecs.controller;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletResponse;
 
 import com.alibaba.fastjson.JSON;
 import com.aliyun.cloudops.acs.AcsController;
 import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant;
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.CommandChunk;
 import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.CommandType;
 import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
 import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.RepeatMode;
 import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.TaskQuery;
 import com.aliyun.cloudops.domain.OpsTask;
+import com.aliyun.cloudops.domain.OpsTaskInvocation;
 import com.aliyun.cloudops.domain.OpsTaskItem;
+import com.aliyun.cloudops.domain.TaskExportQuery;
+import com.aliyun.cloudops.domain.TaskExportQuery.Format;
+import com.aliyun.cloudops.domain.TaskItemSummary;
+import com.aliyun.cloudops.domain.TaskOutputGroup;
+import com.aliyun.cloudops.domain.TaskSummary;
 import com.aliyun.cloudops.service.TaskService;
 import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation;
 import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation.InvokeInstance;
@@ -23,8 +55,15 @@ import com.aliyuncs.ecs.model.v20140526.RunCommandResponse;
 import com.aliyuncs.exceptions.ClientException;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -38,7 +77,7 @@ import static com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.isFinished;
 
 @RestController()
 @RequestMapping("/api/ecs")
-public class OpsTaskController extends AcsController implements Predicate<Invocation> {
+public class OpsTaskController extends AcsController {
 
     @Autowired
     private CloudAssistant cloudAssistant;
@@ -46,6 +85,76 @@ public class OpsTaskController extends AcsController implements Predicate<Invoca
     @Autowired
     private TaskService taskService;
 
+    /**
+     * 启动时是否从数据库恢复未结束任务的轮询
+     */
+    @Value("${com.aliyun.cloudops.task.resume.enabled:true}")
+    private boolean resumeEnabled = true;
+
+    /**
+     * 只恢复该天数以内创建的任务，云助手的执行记录只保存4周
+     */
+    @Value("${com.aliyun.cloudops.task.resume.days:28}")
+    private int resumeDays = 28;
+
+    /**
+     * 恢复的轮询在该时间内随机开始，以秒为单位，避免启动时集中查询超出OpenAPI限流值
+     */
+    @Value("${com.aliyun.cloudops.task.resume.spreadSeconds:30}")
+    private int resumeSpreadSeconds = 30;
+
+    /**
+     * 多个实例共用数据库时，是否以租约分配各任务的轮询：每个未结束的任务只由持有租约的实例轮询，
+     * 租约过期(实例已停止或失去响应)的任务由其他实例接管。开启后，启动时的恢复也由接管完成。
+     */
+    @Value("${com.aliyun.cloudops.task.lease.enabled:false}")
+    private boolean leaseEnabled = false;
+
+    /**
+     * 实例的标识，默认为主机名。同一主机上运行多个实例时须分别配置；重启后标识不变的实例立即取回自己的任务
+     */
+    @Value("${com.aliyun.cloudops.task.lease.owner:}")
+    private String leaseOwner = "";
+
+    /**
+     * 租约时长，以秒为单位。实例停止后，其任务在租约过期后由其他实例接管
+     */
+    @Value("${com.aliyun.cloudops.task.lease.seconds:60}")
+    private int leaseSeconds = 60;
+
+    /**
+     * 续期与接管的间隔，以秒为单位，应小于租约时长的一半
+     */
+    @Value("${com.aliyun.cloudops.task.lease.renewSeconds:20}")
+    private int leaseRenewSeconds = 20;
+
+    /**
+     * 每次最多接管的任务数。各实例轮流接管，过期的任务分散到多个实例
+     */
+    @Value("${com.aliyun.cloudops.task.lease.claimSize:200}")
+    private int leaseClaimSize = 200;
+
+    /**
+     * 本实例持有租约、正在轮询的任务，以 InvokeId 为键。回调发现自己不在其中时(租约已被其他实例接管)停止轮询
+     */
+    private final Map<String, TaskCallback> ownedTasks = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService leaseExecutor;
+
+    private boolean ownTasksClaimed;
+
+    private static final int RESUME_PAGE_SIZE = 200;
+
+    /**
+     * 查询任务明细时，创建时间的下限相对于批次创建时间的提前量。早期的任务先创建任务明细，再创建任务
+     */
+    private static final long SINCE_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 未查询到的批次(InvokeId 有误，或云助手的执行记录已过期)记为失败时的错误码
+     */
+    private static final String INVOCATION_NOT_FOUND = "InvocationNotFound";
+
     @GetMapping("/tasks")
     public ResponseEntity<PageResult<OpsTask>> listInvocations(
             @RequestParam(name = "pageSize", defaultValue = "20") int pageSize,
@@ -55,34 +164,199 @@ public class OpsTaskController extends AcsController implements Predicate<Invoca
         return new ResponseEntity<>(new PageResult<>(page), HttpStatus.OK);
     }
 
+    /**
+     * 任务列表的游标分页，按创建顺序从新到旧。after 为上一页返回的 nextCursor，总数为缓存的近似值
+     */
+    @GetMapping(value = "/tasks", params = "limit")
+    public ResponseEntity<CursorResult<OpsTask>> listInvocationsAfter(
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "limit") int limit
+    ) {
+        int size = clampLimit(limit);
+        List<OpsTask> tasks = this.taskService.findTasksAfter(after, size + 1);
+        return new ResponseEntity<>(new CursorResult<>(tasks, size, OpsTask::getId, this.taskService.countTasks()),
+                HttpStatus.OK);
+    }
+
+    /**
+     * 任务明细列表，不含各实例的执行结果
+     */
     @GetMapping("/tasks/{invokeId:[-\\w]+}")
-    public ResponseEntity<List<OpsTaskItem>> listTaskItems(
+    public ResponseEntity<List<TaskItemSummary>> listTaskItems(
             @PathVariable("invokeId") String invokeId
     ) {
-        List<OpsTaskItem> items = this.taskService.findTaskItems(invokeId);
+        List<TaskItemSummary> items = this.taskService.findTaskItemSummaries(invokeId);
         return new ResponseEntity<>(items, HttpStatus.OK);
     }
 
+    /**
+     * 任务明细列表的游标分页，after 为上一页返回的 nextCursor，总数为任务的实例数
+     */
+    @GetMapping(value = "/tasks/{invokeId:[-\\w]+}", params = "limit")
+    public ResponseEntity<CursorResult<TaskItemSummary>> listTaskItemsAfter(
+            @PathVariable("invokeId") String invokeId,
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "limit") int limit
+    ) {
+        OpsTask task = this.taskService.findTask(invokeId);
+        if (task == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        int size = clampLimit(limit);
+        List<TaskItemSummary> items = this.taskService.findTaskItemSummariesAfter(invokeId, after, size + 1);
+        return new ResponseEntity<>(new CursorResult<>(items, size, TaskItemSummary::getId, task.getInstances()),
+                HttpStatus.OK);
+    }
+
+    /**
+     * 任务的执行进度，各状态的实例数随轮询增量更新，不统计任务明细
+     */
+    @GetMapping("/tasks/{invokeId:[-\\w]+}/summary")
+    public ResponseEntity<TaskSummary> getTaskSummary(
+            @PathVariable("invokeId") String invokeId
+    ) {
+        OpsTask task = this.taskService.findTask(invokeId);
+        if (task == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(new TaskSummary(task), HttpStatus.OK);
+    }
+
+    /**
+     * 按执行结果分组统计实例数，相同的执行结果只返回一次
+     */
+    @GetMapping("/tasks/{invokeId:[-\\w]+}/output-groups")
+    public ResponseEntity<List<TaskOutputGroup>> listOutputGroups(
+            @PathVariable("invokeId") String invokeId,
+            @RequestParam(name = "limit", defaultValue = "50") int limit
+    ) {
+        List<TaskOutputGroup> groups = this.taskService.findTaskOutputGroups(invokeId, Math.max(1, Math.min(limit, 500)));
+        return new ResponseEntity<>(groups, HttpStatus.OK);
+    }
+
+    /**
+     * 查询单个实例的执行结果
+     */
+    @GetMapping(value = "/tasks/{invokeId:[-\\w]+}/outputs/{instanceId:[-\\w]+}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getTaskOutput(
+            @PathVariable("invokeId") String invokeId,
+            @PathVariable("instanceId") String instanceId
+    ) {
+        String output = this.taskService.findTaskOutput(invokeId, instanceId);
+        if (output == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(output, HttpStatus.OK);
+    }
+
+    /**
+     * 以流的方式导出任务历史，用于审计。format 为 ndjson(默认) 或 csv，按创建时间 [from, to)、地域与状态过滤
+     */
+    @GetMapping("/exports/tasks")
+    public void exportTasks(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format,
+            @RequestParam(name = "from", required = false)
+            @DateTimeFormat(iso = ISO.DATE_TIME, fallbackPatterns = {"yyyy-MM-dd'T'HH:mm:ssXXX", "yyyy-MM-dd"}) Date from,
+            @RequestParam(name = "to", required = false)
+            @DateTimeFormat(iso = ISO.DATE_TIME, fallbackPatterns = {"yyyy-MM-dd'T'HH:mm:ssXXX", "yyyy-MM-dd"}) Date to,
+            @RequestParam(name = "regionId", required = false) String regionId,
+            @RequestParam(name = "status", required = false) InvocationStatus status,
+            HttpServletResponse response
+    ) throws IOException {
+        TaskExportQuery query = newExportQuery(format, from, to, regionId, status);
+        if (query == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "unsupported format: " + format);
+            return;
+        }
+        try (Writer writer = openExport(response, query, "tasks")) {
+            long rows = this.taskService.exportTasks(query, writer);
+            logger.info("export tasks, rows: {}.", rows);
+        }
+    }
+
+    /**
+     * 以流的方式导出任务明细，参数同 {@link #exportTasks}，不含执行结果的内容
+     */
+    @GetMapping("/exports/task-items")
+    public void exportTaskItems(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format,
+            @RequestParam(name = "from", required = false)
+            @DateTimeFormat(iso = ISO.DATE_TIME, fallbackPatterns = {"yyyy-MM-dd'T'HH:mm:ssXXX", "yyyy-MM-dd"}) Date from,
+            @RequestParam(name = "to", required = false)
+            @DateTimeFormat(iso = ISO.DATE_TIME, fallbackPatterns = {"yyyy-MM-dd'T'HH:mm:ssXXX", "yyyy-MM-dd"}) Date to,
+            @RequestParam(name = "regionId", required = false) String regionId,
+            @RequestParam(name = "status", required = false) InvocationStatus status,
+            HttpServletResponse response
+    ) throws IOException {
+        TaskExportQuery query = newExportQuery(format, from, to, regionId, status);
+        if (query == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "unsupported format: " + format);
+            return;
+        }
+        try (Writer writer = openExport(response, query, "task-items")) {
+            long rows = this.taskService.exportTaskItems(query, writer);
+            logger.info("export task items, rows: {}.", rows);
+        }
+    }
+
+    private static TaskExportQuery newExportQuery(String format, Date from, Date to, String regionId,
+                                                  InvocationStatus status) {
+        Format exportFormat;
+        try {
+            exportFormat = Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new TaskExportQuery(exportFormat, from, to, StringUtils.trimToNull(regionId), status);
+    }
+
+    /**
+     * 直接写入响应的输出流，不经过异步请求，避免导出大量数据时超出异步请求的超时时间
+     */
+    private static Writer openExport(HttpServletResponse response, TaskExportQuery query, String name)
+            throws IOException {
+        boolean csv = query.getFormat() == Format.CSV;
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + (csv ? ".csv" : ".ndjson") + "\"");
+        return new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 65536);
+    }
+
     @PutMapping("/tasks/{regionId:[-\\w]+}")
-    public ResponseEntity<RunCommandResponse> runCommand(
+    public CompletableFuture<ResponseEntity<RunCommandResponse>> runCommand(
             @PathVariable(name = "regionId") String regionId,
             @RequestBody RunCommandRequest request
-    ) throws ClientException {
+    ) {
         request.setSysRegionId(regionId);
         if (request.getParameters() != null) {
             request.setEnableParameter(true);
         }
-        // 使用云助手执行命令
-        RunCommandResponse response = this.cloudAssistant.runCommand(request, true);
-        String invokeId = response.getInvokeId();
-        this.saveTask(request, response);
+        // 使用云助手执行命令，实例数超出单次请求的上限时，自动拆分为多个批次并行提交
+        return this.cloudAssistant.runCommandChunks(request, true).thenApply(chunks -> {
+            if (chunks == null || chunks.isEmpty()) {
+                return new ResponseEntity<RunCommandResponse>(HttpStatus.BAD_REQUEST);
+            }
+            List<CommandChunk> submitted = chunks.stream()
+                    .filter(chunk -> chunk.getResponse() != null)
+                    .collect(Collectors.toList());
+            if (submitted.isEmpty()) {
+                throw new CompletionException(chunks.get(0).getError());
+            }
+            // 以第一个批次的 InvokeId 作为整个运维任务的 InvokeId
+            RunCommandResponse response = submitted.get(0).getResponse();
+            TaskCallback callback = this.saveTask(request, response.getInvokeId(), chunks);
 
-        // 创建一个异步的任务轮询任务，并在回调中处理查询到的结果
-        this.cloudAssistant.scheduleTaskQuery(regionId, invokeId, this);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+            // 为每个批次创建一个异步的任务轮询任务，由同一个回调汇总处理查询到的结果
+            for (CommandChunk chunk : submitted) {
+                String chunkInvokeId = chunk.getResponse().getInvokeId();
+                this.cloudAssistant.scheduleTaskQuery(regionId, chunkInvokeId, callback.forChunk(chunkInvokeId));
+            }
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        });
     }
 
-    private void saveTask(RunCommandRequest request, RunCommandResponse response) {
+    private TaskCallback saveTask(RunCommandRequest request, String invokeId, List<CommandChunk> chunks) {
         CommandType commandType = CommandType.valueOf(request.getType());
         RepeatMode repeatMode = RepeatMode.Once;
         if (StringUtils.isNotEmpty(request.getRepeatMode())) {
@@ -107,64 +381,450 @@ public class OpsTaskController extends AcsController implements Predicate<Invoca
         }
         opsTask.setRepeatMode(repeatMode);
         opsTask.setStatus(InvocationStatus.Pending);
-        opsTask.setInvokeId(response.getInvokeId());
+        opsTask.setInvokeId(invokeId);
         opsTask.setInstances(request.getInstanceIds().size());
-        // 保存每个实例上的命令执行状态、执行结果、退出码等
+        if (this.leaseEnabled) {
+            opsTask.setOwner(this.leaseOwner);
+            opsTask.setLeaseExpiry(new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(this.leaseSeconds)));
+        }
+        // 保存每个批次的云助手调用，以及每个实例上的命令执行状态、执行结果、退出码等
+        List<OpsTaskInvocation> invocations = new ArrayList<>();
         List<OpsTaskItem> taskItemList = new ArrayList<>();
-        for (String instanceId : request.getInstanceIds()) {
-            OpsTaskItem opsTaskItem = new OpsTaskItem();
-            opsTaskItem.setRegionId(request.getSysRegionId());
-            opsTaskItem.setInvokeId(response.getInvokeId());
-            opsTaskItem.setInstanceId(instanceId);
-            opsTaskItem.setStatus(InvocationStatus.Pending);
-            opsTaskItem.setOutput("");
-            opsTaskItem.setErrorCode("");
-            opsTaskItem.setErrorInfo("");
-            opsTaskItem.setCreationTime(new Date());
-            taskItemList.add(opsTaskItem);
+        for (CommandChunk chunk : chunks) {
+            ClientException error = chunk.getError();
+            OpsTaskInvocation invocation = new OpsTaskInvocation();
+            invocation.setRegionId(request.getSysRegionId());
+            invocation.setTaskInvokeId(invokeId);
+            invocation.setInstances(chunk.getInstanceIds().size());
+            invocation.setCreationTime(new Date());
+            if (error == null) {
+                invocation.setInvokeId(chunk.getResponse().getInvokeId());
+                invocation.setStatus(InvocationStatus.Pending);
+                invocation.setErrorCode("");
+            } else {
+                // 提交失败的批次，其中的实例直接记为失败
+                invocation.setStatus(InvocationStatus.Failed);
+                invocation.setErrorCode(StringUtils.left(error.getErrCode(), 64));
+                invocation.setFinishTime(new Date());
+            }
+            invocations.add(invocation);
+
+            for (String instanceId : chunk.getInstanceIds()) {
+                OpsTaskItem opsTaskItem = new OpsTaskItem();
+                opsTaskItem.setRegionId(request.getSysRegionId());
+                opsTaskItem.setInvokeId(invokeId);
+                opsTaskItem.setInstanceId(instanceId);
+                opsTaskItem.setOutput("");
+                opsTaskItem.setCreationTime(new Date());
+                if (error == null) {
+                    opsTaskItem.setStatus(InvocationStatus.Pending);
+                    opsTaskItem.setErrorCode("");
+                    opsTaskItem.setErrorInfo("");
+                } else {
+                    opsTaskItem.setStatus(InvocationStatus.Failed);
+                    opsTaskItem.setErrorCode(StringUtils.left(StringUtils.defaultString(error.getErrCode()), 24));
+                    opsTaskItem.setErrorInfo(StringUtils.left(StringUtils.defaultString(error.getErrMsg()), 96));
+                    opsTaskItem.setFinishTime(new Date());
+                }
+                taskItemList.add(opsTaskItem);
+            }
         }
+        taskItemList.forEach(item -> countFinished(opsTask, item.getStatus()));
+        opsTask.setPendingCount(unfinishedCount(opsTask));
         opsTask.setCreationTime(new Date());
-        this.taskService.saveTask(opsTask, taskItemList);
-    }
-
-    /**
-     * {@link TaskQuery} 云助手任务轮询结果的回调处理
-     *
-     * @param invocation - 云助手任务
-     * @return
-     */
-    @Override
-    public boolean test(Invocation invocation) {
-        if (invocation == null) {
-            return false;
-        }
-        for (InvokeInstance instance : invocation.getInvokeInstances()) {
-            if (isFinished(instance.getInvocationStatus())) {
-                OpsTaskItem item = this.taskService.findTaskItem(
-                        invocation.getInvokeId(),
-                        instance.getInstanceId()
-                );
-                if (!item.getStatus().isFinished()) {
-                    item.setStatus(InvocationStatus.valueOf(instance.getInvocationStatus()));
-                    item.setOutput(instance.getOutput());
-                    item.setDropped(instance.getDropped());
-                    item.setExitCode(instance.getExitCode());
-                    item.setErrorCode(instance.getErrorCode());
-                    item.setErrorInfo(instance.getErrorInfo());
-                    item.setUpdateTime(new Date());
-                    item.setFinishTime(new Date());
-                    this.taskService.saveTaskItem(item);
+        this.taskService.saveTask(opsTask, taskItemList, invocations);
+        TaskCallback callback = new TaskCallback(opsTask, invocations);
+        if (this.leaseEnabled) {
+            this.ownedTasks.put(invokeId, callback);
+        }
+        return callback;
+    }
+
+    /**
+     * <pre>
+     * 启动时恢复未结束任务的轮询(进程重启或崩溃后，内存中的轮询已丢失)：
+     * 1. 按主键分页读取近期创建、尚未结束的任务，每页 {@link #RESUME_PAGE_SIZE} 个，不一次加载全部任务；
+     * 2. 各批次均已结束的任务，直接汇总任务状态；早期没有批次记录的任务，以任务的 InvokeId 补充一个批次；
+     * 3. 未结束的批次重新注册轮询，首次查询在 spreadSeconds 内随机分散，避免集中查询。
+     * 4. 未查询到的批次(云助手的执行记录只保存4周，或 InvokeId 有误)记为失败，任务随之结束，不会在每次启动时重复恢复。
+     * 任务各状态的实例数已保存在数据库中，恢复后只统计数据库中尚未结束的任务明细，不会重复计数。
+     * </pre>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeTasks() {
+        if (this.leaseEnabled) {
+            this.startLeases();
+            return;
+        }
+        if (!this.resumeEnabled) {
+            return;
+        }
+        Date since = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(this.resumeDays));
+        long after = 0;
+        int tasks = 0;
+        int queries = 0;
+        List<OpsTask> page;
+        do {
+            page = this.taskService.findUnfinishedTasks(since, after, RESUME_PAGE_SIZE);
+            for (OpsTask task : page) {
+                after = task.getId();
+                try {
+                    queries += this.resumeTask(task);
+                    tasks++;
+                } catch (Exception e) {
+                    logger.error("resume task {} failed, error: {}.", task.getInvokeId(), e.getMessage(), e);
                 }
             }
+        } while (page.size() == RESUME_PAGE_SIZE);
+        logger.info("resume {} unfinished tasks, {} task queries scheduled.", tasks, queries);
+    }
+
+    /**
+     * @return - 重新注册轮询的批次数
+     */
+    private int resumeTask(OpsTask task) {
+        List<OpsTaskInvocation> invocations = new ArrayList<>(this.taskService.findTaskInvocations(task.getInvokeId()));
+        if (invocations.isEmpty()) {
+            OpsTaskInvocation invocation = new OpsTaskInvocation();
+            invocation.setRegionId(task.getRegionId());
+            invocation.setTaskInvokeId(task.getInvokeId());
+            invocation.setInvokeId(task.getInvokeId());
+            invocation.setInstances(task.getInstances());
+            invocation.setStatus(InvocationStatus.Pending);
+            invocation.setErrorCode("");
+            invocation.setCreationTime(task.getCreationTime());
+            this.taskService.saveTaskInvocation(invocation);
+            invocations.add(invocation);
+        }
+        TaskCallback callback = new TaskCallback(task, invocations);
+        if (this.leaseEnabled) {
+            this.ownedTasks.put(task.getInvokeId(), callback);
+        }
+        if (callback.finishIfDone()) {
+            return 0;
+        }
+        int queries = 0;
+        long spreadMillis = TimeUnit.SECONDS.toMillis(Math.max(this.resumeSpreadSeconds, 1));
+        for (OpsTaskInvocation invocation : invocations) {
+            if (invocation.getInvokeId() != null && !invocation.getStatus().isFinished()) {
+                Date creationTime = invocation.getCreationTime() != null ? invocation.getCreationTime() : task.getCreationTime();
+                this.cloudAssistant.scheduleTaskQuery(task.getRegionId(), invocation.getInvokeId(),
+                        creationTime != null ? creationTime.getTime() : System.currentTimeMillis(),
+                        callback.forChunk(invocation.getInvokeId()),
+                        ThreadLocalRandom.current().nextLong(spreadMillis), TimeUnit.MILLISECONDS);
+                queries++;
+            }
+        }
+        return queries;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (this.leaseEnabled && StringUtils.isBlank(this.leaseOwner)) {
+            try {
+                this.leaseOwner = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                this.leaseOwner = UUID.randomUUID().toString();
+            }
+        }
+    }
+
+    private void startLeases() {
+        this.leaseExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.leaseExecutor.scheduleWithFixedDelay(this::maintainLeases, 0, this.leaseRenewSeconds, TimeUnit.SECONDS);
+        logger.info("task lease started, owner: {}.", this.leaseOwner);
+    }
+
+    /**
+     * <pre>
+     * 租约的维护，在 task-lease 线程上定期执行：
+     * 1. 第一次执行时，分页取回 owner 为本实例的全部任务(本实例重启前持有的任务)；
+     * 2. 之后每次只为正在轮询的任务续期，续期后已不属于本实例的任务(租约过期后被其他实例接管)停止轮询，
+     *    并丢弃其尚未写入的状态更新；本实例持有、但已不再轮询的任务(恢复失败)释放租约；
+     * 3. 接管至多 claimSize 个租约已过期的任务，与启动时恢复的任务一样重新注册轮询。
+     * </pre>
+     */
+    private void maintainLeases() {
+        try {
+            Date since = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(this.resumeDays));
+            Date expiry = new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(this.leaseSeconds));
+            if (!this.ownTasksClaimed) {
+                long after = 0;
+                List<OpsTask> page;
+                do {
+                    page = this.taskService.claimTasks(this.leaseOwner, since, expiry, true, after, RESUME_PAGE_SIZE);
+                    for (OpsTask task : page) {
+                        after = task.getId();
+                        this.resumeClaimedTask(task);
+                    }
+                } while (page.size() == RESUME_PAGE_SIZE);
+                this.ownTasksClaimed = true;
+            } else {
+                // 先取得正在轮询的任务，再续期：续期之后新建的任务不会被误判为已被接管
+                Date before = new Date(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(this.leaseRenewSeconds));
+                Set<String> polling = new HashSet<>(this.ownedTasks.keySet());
+                Set<String> owned = this.taskService.renewTaskLeases(this.leaseOwner, polling, expiry);
+                for (String invokeId : polling) {
+                    if (!owned.contains(invokeId) && this.ownedTasks.remove(invokeId) != null) {
+                        this.taskService.discardTaskUpdates(invokeId);
+                        logger.warn("lease of task {} lost, polling stopped.", invokeId);
+                    }
+                }
+                Set<String> released = this.taskService.releaseTaskLeases(this.leaseOwner, polling, before);
+                if (!released.isEmpty()) {
+                    logger.warn("release lease of {} tasks not polling: {}.", released.size(), released);
+                }
+            }
+            List<OpsTask> claimed = this.taskService.claimTasks(this.leaseOwner, since, expiry, false, 0,
+                    this.leaseClaimSize);
+            claimed.forEach(this::resumeClaimedTask);
+            if (!claimed.isEmpty()) {
+                logger.info("claim {} tasks with expired lease, owned: {}.", claimed.size(), this.ownedTasks.size());
+            }
+        } catch (Exception e) {
+            logger.error("maintain task leases failed, error: {}.", e.getMessage(), e);
+        }
+    }
+
+    private void resumeClaimedTask(OpsTask task) {
+        if (this.ownedTasks.containsKey(task.getInvokeId())) {
+            return; // 正在轮询
+        }
+        try {
+            this.resumeTask(task);
+        } catch (Exception e) {
+            this.ownedTasks.remove(task.getInvokeId());
+            logger.error("resume task {} failed, error: {}.", task.getInvokeId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 关闭时先停止轮询，并等待正在执行的轮询及其回调完成，再关闭其依赖的任务服务(写缓冲)与数据源。
+     * 尚未到期的轮询不再执行，由下次启动时恢复，或在租约过期后由其他实例接管。
+     */
+    @PreDestroy
+    public void destroy() {
+        if (this.leaseExecutor != null) {
+            this.leaseExecutor.shutdownNow();
+        }
+        this.cloudAssistant.destroy();
+    }
+
+    /**
+     * <pre>
+     * {@link TaskQuery} 云助手任务轮询结果的回调处理。一个运维任务的各批次调用共用一个回调，
+     * 各实例的结果按运维任务的 InvokeId 保存；全部批次结束后，汇总得出运维任务的状态。
+     * 每次轮询只查询一次该批次中新结束实例的未结束明细，在内存中对比后批量更新有变化的明细；已保存过结果的实例按批次
+     * 记录在内存中，重复的轮询结果不再访问数据库。
+     * 任务各状态的实例数随新结束的实例增量更新，运行中的实例数取各批次最近一次轮询的结果。
+     * </pre>
+     */
+    private class TaskCallback implements Predicate<Invocation> {
+        private final OpsTask task;
+        private final String taskInvokeId;
+        private final List<OpsTaskInvocation> invocations;
+        private final Map<String, Set<String>> finishedInstances = new HashMap<>();
+        private final Map<String, Integer> runningInstances = new HashMap<>();
+        /**
+         * 查询任务明细时以批次的创建时间限定任务明细的创建时间，只访问近期的分区
+         */
+        private final Date since;
+
+        private TaskCallback(OpsTask task, List<OpsTaskInvocation> invocations) {
+            this.task = task;
+            this.taskInvokeId = task.getInvokeId();
+            this.invocations = invocations;
+            this.since = invocations.stream().map(OpsTaskInvocation::getCreationTime)
+                    .filter(Objects::nonNull).min(Date::compareTo)
+                    .map(time -> new Date(time.getTime() - SINCE_MARGIN_MILLIS)).orElse(null);
+        }
+
+        /**
+         * @param invokeId - 批次的 InvokeId
+         * @return - 该批次轮询的回调。未查询到该批次时，以 null 调用
+         */
+        private Predicate<Invocation> forChunk(String invokeId) {
+            return invocation -> invocation != null ? this.test(invocation) : this.notFound(invokeId);
+        }
+
+        /**
+         * @param invocation - 某一批次的云助手任务，不为空
+         * @return
+         */
+        @Override
+        public synchronized boolean test(Invocation invocation) {
+            if (!this.isOwned(invocation.getInvokeId())) {
+                return true;
+            }
+            this.reconcile(invocation);
+            if (!isFinished(invocation.getInvocationStatus())) {
+                return false;
+            }
+            this.finishedInstances.remove(invocation.getInvokeId()); // 该批次不会再被轮询
+            this.runningInstances.remove(invocation.getInvokeId());
+            for (OpsTaskInvocation chunk : this.invocations) {
+                if (invocation.getInvokeId().equals(chunk.getInvokeId()) && !chunk.getStatus().isFinished()) {
+                    chunk.setStatus(InvocationStatus.valueOf(invocation.getInvocationStatus()));
+                    chunk.setFinishTime(new Date());
+                    taskService.saveTaskInvocation(chunk);
+                }
+            }
+            this.finishIfDone();
+            return true;
+        }
+
+        /**
+         * 未查询到该批次(InvokeId 有误，或云助手的执行记录已过期)：只将该批次记为失败并停止其轮询，
+         * 其他批次继续轮询，全部批次结束后汇总任务的状态。该批次中尚未结束的实例，其任务明细保持原状态。
+         */
+        private synchronized boolean notFound(String invokeId) {
+            if (!this.isOwned(invokeId)) {
+                return true;
+            }
+            logger.warn("invocation {} of task {} not found, marked as failed.", invokeId, this.taskInvokeId);
+            this.finishedInstances.remove(invokeId);
+            this.runningInstances.remove(invokeId);
+            for (OpsTaskInvocation chunk : this.invocations) {
+                if (invokeId.equals(chunk.getInvokeId()) && !chunk.getStatus().isFinished()) {
+                    chunk.setStatus(InvocationStatus.Failed);
+                    chunk.setErrorCode(INVOCATION_NOT_FOUND);
+                    chunk.setFinishTime(new Date());
+                    taskService.saveTaskInvocation(chunk);
+                }
+            }
+            if (!this.finishIfDone()) {
+                this.updateProgress();
+            }
+            return true;
         }
-        if (isFinished(invocation.getInvocationStatus())) {
-            OpsTask task = this.taskService.findTask(invocation.getInvokeId());
+
+        /**
+         * @return - 本实例是否仍持有该任务的租约；未开启租约时总是持有
+         */
+        private boolean isOwned(String invokeId) {
+            if (leaseEnabled && ownedTasks.get(this.taskInvokeId) != this) {
+                logger.info("task {} is not owned by {}, stop polling {}.", this.taskInvokeId, leaseOwner, invokeId);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * 全部批次均已结束时，汇总并保存运维任务的状态
+         *
+         * @return - 全部批次是否均已结束
+         */
+        private synchronized boolean finishIfDone() {
+            if (!this.invocations.stream().allMatch(chunk -> chunk.getStatus().isFinished())) {
+                return false;
+            }
+            OpsTask task = this.task;
             task.setFinishTime(new Date()); //TODO: use invocation.getFinishTime();
-            task.setStatus(InvocationStatus.valueOf(invocation.getInvocationStatus()));
-            this.taskService.saveTask(task, Collections.emptyList());
+            task.setStatus(aggregateStatus(this.invocations));
+            task.setRunningCount(0);
+            task.setPendingCount(unfinishedCount(task));
+            taskService.updateTask(task);
+            ownedTasks.remove(this.taskInvokeId, this);
             return true;
         }
-        return false;
+
+        /**
+         * 将本次轮询中新结束的实例，与数据库中这些实例未结束的任务明细对比，批量更新有变化的明细
+         */
+        private void reconcile(Invocation invocation) {
+            Set<String> finished = this.finishedInstances.computeIfAbsent(invocation.getInvokeId(),
+                    key -> new HashSet<>());
+            Map<String, InvokeInstance> changed = new HashMap<>();
+            int running = 0;
+            for (InvokeInstance instance : invocation.getInvokeInstances()) {
+                if (isFinished(instance.getInvocationStatus())) {
+                    if (!finished.contains(instance.getInstanceId())) {
+                        changed.put(instance.getInstanceId(), instance);
+                    }
+                } else if (isRunning(instance.getInvocationStatus())) {
+                    running++;
+                }
+            }
+            Integer previous = this.runningInstances.put(invocation.getInvokeId(), running);
+            if (changed.isEmpty()) {
+                if (previous == null || previous != running) {
+                    this.updateProgress();
+                }
+                return;
+            }
+
+            Date now = new Date();
+            List<OpsTaskItem> items = new ArrayList<>();
+            for (OpsTaskItem item : taskService.findUnfinishedTaskItems(this.taskInvokeId, changed.keySet(), this.since)) {
+                InvokeInstance instance = changed.get(item.getInstanceId());
+                if (instance == null) {
+                    continue;
+                }
+                item.setStatus(InvocationStatus.valueOf(instance.getInvocationStatus()));
+                item.setOutput(instance.getOutput());
+                item.setDropped(instance.getDropped());
+                item.setExitCode(instance.getExitCode());
+                item.setErrorCode(StringUtils.left(instance.getErrorCode(), 24));
+                item.setErrorInfo(StringUtils.left(instance.getErrorInfo(), 96));
+                item.setUpdateTime(now);
+                item.setFinishTime(now);
+                items.add(item);
+                countFinished(this.task, item.getStatus());
+            }
+            taskService.updateTaskItems(items);
+            finished.addAll(changed.keySet());
+            this.updateProgress();
+        }
+
+        private void updateProgress() {
+            int running = this.runningInstances.values().stream().mapToInt(Integer::intValue).sum();
+            int unfinished = unfinishedCount(this.task);
+            this.task.setRunningCount(Math.min(running, unfinished));
+            this.task.setPendingCount(unfinished - this.task.getRunningCount());
+            taskService.updateTask(this.task);
+        }
+    }
+
+    /**
+     * 按实例结束时的状态，增加任务对应状态的实例数
+     */
+    private static void countFinished(OpsTask task, InvocationStatus status) {
+        switch (status) {
+            case Success:
+                task.setSuccessCount(task.getSuccessCount() + 1);
+                break;
+            case Failed:
+            case PartialFailed:
+                task.setFailedCount(task.getFailedCount() + 1);
+                break;
+            case Stopped:
+                task.setStoppedCount(task.getStoppedCount() + 1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static int unfinishedCount(OpsTask task) {
+        return Math.max(0, task.getInstances() - task.getSuccessCount() - task.getFailedCount() - task.getStoppedCount());
+    }
+
+    private static boolean isRunning(String status) {
+        return InvocationStatus.Running.name().equals(status) || InvocationStatus.Stopping.name().equals(status);
+    }
+
+    /**
+     * 汇总各批次的状态：全部批次状态相同时即为该状态，否则为部分失败
+     */
+    private static InvocationStatus aggregateStatus(List<OpsTaskInvocation> invocations) {
+        Set<InvocationStatus> statuses = invocations.stream()
+                .map(OpsTaskInvocation::getStatus)
+                .collect(Collectors.toSet());
+        return statuses.size() == 1 ? statuses.iterator().next() : InvocationStatus.PartialFailed;
     }
 
     public static class PageResult<T> {
@@ -186,4 +846,47 @@ public class OpsTaskController extends AcsController implements Predicate<Invoca
             return elements;
         }
     }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, 500));
+    }
+
+    public static class CursorResult<T> {
+
+        private final long totalCount;
+
+        private final List<T> elements;
+
+        private final Long nextCursor;
+
+        /**
+         * @param elements - 多查询一条记录，用于判断是否存在下一页
+         * @param limit    - 每页的记录数
+         * @param cursor   - 记录的游标(主键)
+         */
+        public CursorResult(List<T> elements, int limit, ToLongFunction<T> cursor, long totalCount) {
+            boolean hasNext = elements.size() > limit;
+            this.elements = hasNext ? elements.subList(0, limit) : elements;
+            this.nextCursor = hasNext ? cursor.applyAsLong(this.elements.get(limit - 1)) : null;
+            this.totalCount = totalCount;
+        }
+
+        /**
+         * @return - 近似的总数
+         */
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public List<T> getElements() {
+            return elements;
+        }
+
+        /**
+         * @return - 下一页的 after 参数，没有下一页时为 null
+         */
+        public Long getNextCursor() {
+            return nextCursor;
+        }
+    }
 }
@@ -0,0 +1,106 @@
+package com.aliyun.cloudops.acs.ecs.controller;
+
+import com.aliyun.cloudops.acs.AcsController;
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant;
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistantIndex;
+import com.aliyun.cloudops.acs.ecs.toolkit.TaskScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController()
+@RequestMapping("/api/ecs/toolkit")
+public class ToolkitController extends AcsController {
+
+    @Autowired
+    private CloudAssistant cloudAssistant;
+
+    @Autowired
+    private CloudAssistantIndex cloudAssistantIndex;
+
+    /**
+     * 查看云助手任务轮询调度器的队列深度与调度延迟
+     *
+     * @return
+     */
+    @GetMapping("/scheduler")
+    public ResponseEntity<SchedulerStats> getSchedulerStats() {
+        TaskScheduler scheduler = this.cloudAssistant.getScheduler();
+        SchedulerStats stats = new SchedulerStats(scheduler);
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
+    /**
+     * 查看云助手状态索引的记录数与命中情况
+     *
+     * @return
+     */
+    @GetMapping("/index")
+    public ResponseEntity<IndexStats> getIndexStats() {
+        return new ResponseEntity<>(new IndexStats(this.cloudAssistantIndex), HttpStatus.OK);
+    }
+
+    /**
+     * 使实例的云助手状态记录失效，如：刚刚安装或重启了云助手
+     *
+     * @return
+     */
+    @DeleteMapping("/index/{instanceId}")
+    public ResponseEntity<Void> invalidateIndex(@PathVariable("instanceId") String instanceId) {
+        this.cloudAssistantIndex.invalidate(instanceId);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    public static class SchedulerStats {
+        private final String type;
+        private final int queueSize;
+        private final long lagMillis;
+
+        public SchedulerStats(TaskScheduler scheduler) {
+            this.type = scheduler.getClass().getSimpleName();
+            this.queueSize = scheduler.getQueueSize();
+            this.lagMillis = scheduler.getLagMillis();
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public long getLagMillis() {
+            return lagMillis;
+        }
+    }
+
+    public static class IndexStats {
+        private final int entries;
+        private final long hits;
+        private final long misses;
+
+        public IndexStats(CloudAssistantIndex index) {
+            this.entries = index.size();
+            this.hits = index.getHits();
+            this.misses = index.getMisses();
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+    }
+}
@@ -1,36 +1,53 @@
 package com.aliyun.cloudops.acs.ecs.toolkit;
 
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.TimeZone;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import com.aliyun.cloudops.acs.AcsClient;
-import com.aliyuncs.ecs.model.v20140526.DescribeCloudAssistantStatusRequest;
-import com.aliyuncs.ecs.model.v20140526.DescribeCloudAssistantStatusResponse;
 import com.aliyuncs.ecs.model.v20140526.DescribeCloudAssistantStatusResponse.InstanceCloudAssistantStatus;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationResultsRequest;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationResultsResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationResultsResponse.Invocation.InvocationResult;
 import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsRequest;
 import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse;
 import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation.InvokeInstance;
 import com.aliyuncs.ecs.model.v20140526.InvokeCommandRequest;
 import com.aliyuncs.ecs.model.v20140526.InvokeCommandResponse;
 import com.aliyuncs.ecs.model.v20140526.RunCommandRequest;
 import com.aliyuncs.ecs.model.v20140526.RunCommandResponse;
 import com.aliyuncs.exceptions.ClientException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
@@ -76,6 +93,24 @@ public class CloudAssistant {
         Stopped,    // 已停止： 用户通过 StopInvocation 中止了该任务。
         Scheduled;  // 等待调度（立即运行的任务，不会有这个状态）
 
+        private static final Map<String, InvocationStatus> BY_NAME = new HashMap<>();
+
+        static {
+            for (InvocationStatus status : values()) {
+                BY_NAME.put(status.name(), status);
+            }
+        }
+
+        /**
+         * 与 {@link #valueOf(String)} 相同，但未知的状态返回 null 而不抛出异常，用于轮询时解析API返回的状态
+         *
+         * @param name - 状态名称
+         * @return - 对应的状态，未知或为 null 时返回 null
+         */
+        public static InvocationStatus of(String name) {
+            return name == null ? null : BY_NAME.get(name);
+        }
+
         public boolean isFinished() {
             switch (this) {
                 case Success:
@@ -94,6 +129,11 @@ public class CloudAssistant {
      */
     private final AcsClient acsClient;
 
+    /**
+     * ECS实例云助手状态的内存索引
+     */
+    private final CloudAssistantIndex cloudAssistantIndex;
+
     /**
      * 云助手任务状态轮询使用的线程池核心线程池大小。请根据业务量
      * 的并发数量与密集程度，设置合适的线程池数量值。
@@ -101,6 +141,27 @@ public class CloudAssistant {
     @Value("${com.aliyun.cloudops.axt.corePoolSize:3}")
     private int corePoolSize = 10;
 
+    /**
+     * 云助手任务轮询使用的调度器：
+     * executor - 使用 ScheduledThreadPoolExecutor，轮询请求在调度线程上执行；
+     * wheel    - 使用哈希时间轮 {@link TimingWheelScheduler}，轮询请求在独立的有界 I/O 线程池上执行，
+     * 适用于有大量待查询任务的场景。
+     */
+    @Value("${com.aliyun.cloudops.axt.scheduler:executor}")
+    private String schedulerType = SCHEDULER_EXECUTOR;
+
+    @Value("${com.aliyun.cloudops.axt.wheel.tickMillis:100}")
+    private long wheelTickMillis = 100;
+
+    @Value("${com.aliyun.cloudops.axt.wheel.size:512}")
+    private int wheelSize = 512;
+
+    @Value("${com.aliyun.cloudops.axt.wheel.ioPoolSize:16}")
+    private int ioPoolSize = 16;
+
+    @Value("${com.aliyun.cloudops.axt.wheel.ioQueueSize:1024}")
+    private int ioQueueSize = 1024;
+
     /**
      * 云助手任务状态轮询的最小间隔，以秒为单元。请根据业务对时效
      * 的敏感程序设置适当的大小。注意过小的间隔，可能会在待查询的
@@ -110,7 +171,90 @@ public class CloudAssistant {
     @Value("${com.aliyun.cloudops.axt.taskQueryDelay:3}")
     private int taskQueryDelay = 3;
 
-    private ScheduledThreadPoolExecutor threadPoolExecutor;
+    /**
+     * 云助手任务状态的轮询模式：
+     * task   - 每个任务使用独立的 {@link TaskQuery} 轮询，每次查询一个 InvokeId；
+     * region - 按地域合并轮询 {@link RegionQuery}，每轮以分页方式查询该地域最近创建、尚未结束的任务，
+     * 请求数主要与分页数相关，而与待查询的任务数无关。适用于同一地域有大量并发任务的场景。
+     */
+    @Value("${com.aliyun.cloudops.axt.queryMode:task}")
+    private String queryMode = QUERY_MODE_TASK;
+
+    /**
+     * 地域合并轮询时，每种状态每一轮最多查询的分页数，每页 {@link #REGION_QUERY_PAGE_SIZE} 个任务。
+     * 超出该范围仍未查到的任务(已结束，或创建时间过早)，将单独按 InvokeId 查询。
+     */
+    @Value("${com.aliyun.cloudops.axt.regionQueryPages:10}")
+    private int regionQueryPages = 10;
+
+    /**
+     * 地域合并轮询时，每一轮单独按 InvokeId 查询的任务数上限，优先查询距上次查询最久的任务，
+     * 其余任务留到之后的轮次，避免单独查询的请求数随任务数增长。
+     */
+    @Value("${com.aliyun.cloudops.axt.regionQueryFallbackMax:20}")
+    private int regionQueryFallbackMax = 20;
+
+    /**
+     * 云助手任务执行结果(Output)的获取方式：
+     * always   - 每次轮询 DescribeInvocations 时，都返回全部实例的执行结果(默认)；
+     * finished - 轮询时只查询状态，实例执行结束后，再通过 DescribeInvocationResults 获取一次该实例的执行结果。
+     * 命令输出较多时，finished 可大幅减少轮询的响应大小与解析开销，但回调得到的未结束实例不再包含执行中的输出，因此需显式开启。
+     */
+    @Value("${com.aliyun.cloudops.axt.outputMode:always}")
+    private String outputMode = OUTPUT_MODE_ALWAYS;
+
+    /**
+     * 轮询时是否以流式解码 DescribeInvocations 与 DescribeInvocationResults 的响应，只读取轮询需要的字段，
+     * 跳过命令内容、参数等其余字段，减少大批量实例轮询时的内存分配，见 {@link InvocationDecoder}。
+     * 开启后轮询回调得到的 Invocation 只包含上述字段，因此默认关闭，使用 SDK 的解析；回调不读取其余字段时可开启。
+     */
+    @Value("${com.aliyun.cloudops.axt.streamingDecode:false}")
+    private boolean streamingDecode = false;
+
+    /**
+     * 大批量实例执行命令时，按API的实例数上限拆分后，同时提交的 RunCommand 请求数
+     */
+    @Value("${com.aliyun.cloudops.axt.fanoutConcurrency:8}")
+    private int fanoutConcurrency = 8;
+
+    /**
+     * 关闭时等待正在执行的轮询完成的最长时间，以秒为单位。尚未到期的轮询不再执行，
+     * 未结束的运维任务在下次启动时从数据库恢复轮询。
+     */
+    @Value("${com.aliyun.cloudops.axt.shutdownTimeoutSeconds:30}")
+    private long shutdownTimeoutSeconds = 30;
+
+    private TaskScheduler scheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private DistributionSummary taskQueryPolls;
+
+    private DistributionSummary regionQueryPolls;
+
+    private Timer detectTimer;
+
+    private final Map<String, RegionQuery> regionQueries = new ConcurrentHashMap<>();
+
+    private static final String QUERY_MODE_TASK = "task";
+    private static final String QUERY_MODE_REGION = "region";
+
+    private static final String OUTPUT_MODE_ALWAYS = "always";
+
+    private static final String SCHEDULER_EXECUTOR = "executor";
+    private static final String SCHEDULER_WHEEL = "wheel";
+
+    private static final long REGION_QUERY_PAGE_SIZE = 50; // DescribeInvocations 的分页上限
+    private static final String[] REGION_QUERY_STATUSES = {"Running", "Pending"}; // 分页查询的任务状态(InvokeStatus)
+    private static final long CLOCK_SKEW_MILLIS = 60 * 1000L;
+
+    public static final int RUN_COMMAND_MAX_INSTANCES = 100;  // RunCommand 单次请求的实例数上限
+    public static final int STATUS_MAX_INSTANCES = 50;        // DescribeCloudAssistantStatus 单次请求的实例数上限
+
+    private static final long RESULTS_PAGE_SIZE = 50;         // DescribeInvocationResults 的分页上限
+    private static final int RESULTS_SINGLE_QUERY_MAX = 3;    // 待获取结果的实例数较少时，按实例逐个查询
+    private static final String RECORD_STATUS_FINISHED = "Finished";
 
     private static final String OS_LINUX = "Linux";
     private static final String OS_WINDOWS = "Windows";
@@ -119,17 +263,91 @@ public class CloudAssistant {
 
     private static final Logger logger = LoggerFactory.getLogger(CloudAssistant.class);
 
-    public CloudAssistant(AcsClient acsClient) {
+    public CloudAssistant(AcsClient acsClient, CloudAssistantIndex cloudAssistantIndex) {
         this.acsClient = acsClient;
+        this.cloudAssistantIndex = cloudAssistantIndex;
     }
 
     @PostConstruct
     public void init() {
-        // 初始化任务轮询的线程池调度器
-        this.threadPoolExecutor = new ScheduledThreadPoolExecutor(
-                this.corePoolSize,
-                new ThreadPoolExecutor.CallerRunsPolicy()
-        );
+        // 初始化任务轮询的调度器
+        if (SCHEDULER_WHEEL.equalsIgnoreCase(this.schedulerType)) {
+            this.scheduler = new TimingWheelScheduler(wheelTickMillis, wheelSize, ioPoolSize, ioQueueSize);
+        } else {
+            this.scheduler = new ExecutorTaskScheduler(this.corePoolSize);
+        }
+        this.bindMetrics();
+    }
+
+    /**
+     * <pre>
+     * 任务轮询的指标：
+     * axt.scheduler.queue     - 调度器中等待执行的轮询数
+     * axt.scheduler.lag       - 最近执行的轮询相对于期望时间的延后
+     * axt.invocation.polls    - 每个任务从开始轮询到停止轮询的查询次数，mode 标签区分轮询模式
+     * axt.invocation.detect   - 从任务创建到轮询发现任务结束的时长
+     * </pre>
+     */
+    private void bindMetrics() {
+        Gauge.builder("axt.scheduler.queue", this.scheduler, TaskScheduler::getQueueSize)
+                .description("task queries waiting in the scheduler")
+                .register(this.meterRegistry);
+        Gauge.builder("axt.scheduler.lag", this.scheduler, TaskScheduler::getLagMillis)
+                .description("delay of the latest task query behind its schedule")
+                .baseUnit("milliseconds")
+                .register(this.meterRegistry);
+        if (this.scheduler instanceof TimingWheelScheduler) {
+            Gauge.builder("axt.scheduler.io.queue", (TimingWheelScheduler) this.scheduler,
+                            TimingWheelScheduler::getIoQueueSize)
+                    .description("task queries waiting for an I/O thread")
+                    .register(this.meterRegistry);
+        }
+        this.taskQueryPolls = DistributionSummary.builder("axt.invocation.polls")
+                .tag("mode", QUERY_MODE_TASK)
+                .description("queries per invocation until polling stopped")
+                .register(this.meterRegistry);
+        this.regionQueryPolls = DistributionSummary.builder("axt.invocation.polls")
+                .tag("mode", QUERY_MODE_REGION)
+                .description("queries per invocation until polling stopped")
+                .register(this.meterRegistry);
+        this.detectTimer = Timer.builder("axt.invocation.detect")
+                .description("time from invocation creation to finish detected by polling")
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * 记录停止轮询的任务的查询次数；任务已结束时，同时记录从创建到发现结束的时长
+     */
+    private void recordPolls(DistributionSummary polls, Invocation invocation, int queryTimes) {
+        polls.record(queryTimes);
+        if (invocation != null && isFinished(invocation.getInvocationStatus())) {
+            long creationTime = parseTime(invocation.getCreationTime());
+            if (creationTime > 0) {
+                this.detectTimer.record(Math.max(0, System.currentTimeMillis() - creationTime), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 停止轮询，并等待正在执行的轮询(及其回调)完成。可重复调用。
+     */
+    @PreDestroy
+    public void destroy() {
+        this.scheduler.shutdown();
+        try {
+            if (!this.scheduler.awaitTermination(this.shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                logger.warn("task queries not finished in {}s, shutdown anyway.", this.shutdownTimeoutSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return - 任务轮询使用的调度器，可用于查看队列深度与调度延迟
+     */
+    public TaskScheduler getScheduler() {
+        return this.scheduler;
     }
 
     /**
@@ -158,8 +376,97 @@ public class CloudAssistant {
         return this.acsClient.sendRequest(request);
     }
 
+    /**
+     * {@link #runCommand(RunCommandRequest, boolean)} 的异步版本，不会阻塞调用方的线程。
+     *
+     * @return - 若云助手检查未通过，则结果为 null
+     */
+    public CompletableFuture<RunCommandResponse> runCommandAsync(RunCommandRequest request, boolean checkCloudAssistant) {
+        CompletableFuture<Boolean> checked = checkCloudAssistant
+                ? this.checkCloudAssistantAsync(request) : CompletableFuture.completedFuture(true);
+        return checked.thenCompose(passed -> {
+            if (!passed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (StringUtils.isEmpty(request.getClientToken())) { // 添加幂等Token
+                request.setClientToken(UUID.randomUUID().toString());
+            }
+            return this.acsClient.sendRequestAsync(request);
+        });
+    }
+
+    /**
+     * {@link #invokeCommand(InvokeCommandRequest)} 的异步版本，不会阻塞调用方的线程。
+     */
+    public CompletableFuture<InvokeCommandResponse> invokeCommandAsync(InvokeCommandRequest request) {
+        if (StringUtils.isEmpty(request.getClientToken())) { // 添加幂等Token
+            request.setClientToken(UUID.randomUUID().toString());
+        }
+        return this.acsClient.sendRequestAsync(request);
+    }
+
+    /**
+     * <pre>
+     * 向大批量ECS实例执行命令：按 RunCommand 的实例数上限({@link #RUN_COMMAND_MAX_INSTANCES})将实例拆分为多个批次，
+     * 以不超过 com.aliyun.cloudops.axt.fanoutConcurrency 的并发数提交，每个批次产生一个独立的 InvokeId。
+     * 某个批次提交失败不影响其它批次，失败的原因记录在该批次的结果中。
+     * </pre>
+     *
+     * @param request             - RunCommand 请求，其中的实例数可以超出单次请求的上限
+     * @param checkCloudAssistant - 详见方法 {@link CloudAssistant#checkCloudAssistant(RunCommandRequest)}
+     * @return - 各批次的提交结果，顺序与实例的顺序一致；若云助手检查未通过，则结果为 null
+     */
+    public CompletableFuture<List<CommandChunk>> runCommandChunks(RunCommandRequest request, boolean checkCloudAssistant) {
+        request.setInstanceIds(distinctInstanceIds(request.getInstanceIds()));
+        if (StringUtils.isEmpty(request.getClientToken())) { // 各批次的幂等Token由此派生
+            request.setClientToken(UUID.randomUUID().toString());
+        }
+        CompletableFuture<Boolean> checked = checkCloudAssistant
+                ? this.checkCloudAssistantAsync(request) : CompletableFuture.completedFuture(true);
+        return checked.thenCompose(passed -> {
+            if (!passed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            List<CommandChunk> chunks = new ArrayList<>();
+            for (RunCommandRequest chunkRequest : chunkRequests(request)) {
+                chunks.add(new CommandChunk(chunkRequest));
+            }
+            // 以固定数量的“通道”依次提交各批次，每个通道完成一个批次后再提交下一个
+            Iterator<CommandChunk> iterator = chunks.iterator();
+            int lanes = Math.max(1, Math.min(this.fanoutConcurrency, chunks.size()));
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[lanes];
+            for (int i = 0; i < lanes; i++) {
+                futures[i] = this.submitChunks(iterator);
+            }
+            return CompletableFuture.allOf(futures).thenApply(ignored -> chunks);
+        });
+    }
+
+    private CompletableFuture<Void> submitChunks(Iterator<CommandChunk> iterator) {
+        CommandChunk chunk;
+        synchronized (iterator) {
+            if (!iterator.hasNext()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            chunk = iterator.next();
+        }
+        return this.acsClient.sendRequestAsync(chunk.request).handle((response, e) -> {
+            if (e == null) {
+                chunk.response = response;
+            } else {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                chunk.error = cause instanceof ClientException
+                        ? (ClientException) cause : new ClientException("SDK.UnknownError", cause.getMessage(), cause);
+                logger.warn("run command chunk of {} instances failed, error: {}.",
+                        chunk.getInstanceIds().size(), chunk.error.getErrCode());
+            }
+            return chunk;
+        }).thenCompose(ignored -> this.submitChunks(iterator));
+    }
+
     /**
      * 检查ECS实例上的云助手运行状态，及操作系统是否匹配命令类型。若存在操作系统不匹配命令类型，则返回 false;
+     * 实例的云助手状态优先从 {@link CloudAssistantIndex} 中读取，只对未知或已过期的实例请求OpenAPI。
      * 若ECS实例的系统类型是Linux，则仅应当发送Type为RunShellScript的请求；
      * 若ECS实例的系统类型是Windows，则支持Type为RunBatShell和RunPowerShell类型的请求。
      *
@@ -167,32 +474,41 @@ public class CloudAssistant {
      * @return - 检查通过则为 true, 否则为 false.
      */
     public boolean checkCloudAssistant(RunCommandRequest request) throws ClientException {
-        List<String> instanceIds = request.getInstanceIds().stream()
-                .filter(StringUtils::isNotEmpty).distinct() // 去除空白或重复的ECS实例ID
-                .collect(Collectors.toList());
-        request.setInstanceIds(instanceIds);
-
-        // 相关API：https://next.api.aliyun.com/document/Ecs/2014-05-26/DescribeCloudAssistantStatus
-        DescribeCloudAssistantStatusRequest describe = new DescribeCloudAssistantStatusRequest();
-        describe.setSysRegionId(request.getSysRegionId());
-        describe.setInstanceIds(instanceIds);
-        DescribeCloudAssistantStatusResponse response = this.acsClient.sendRequest(describe);
-        List<InstanceCloudAssistantStatus> statusSet = response.getInstanceCloudAssistantStatusSet();
+        request.setInstanceIds(distinctInstanceIds(request.getInstanceIds()));
+        List<InstanceCloudAssistantStatus> statusSet = this.cloudAssistantIndex.getStatus(
+                request.getSysRegionId(), request.getInstanceIds());
+        return this.checkCloudAssistant(request, statusSet);
+    }
+
+    /**
+     * {@link #checkCloudAssistant(RunCommandRequest)} 的异步版本，不会阻塞调用方的线程。
+     * 实例数超出单次请求的上限时，各批次的查询并行发送。
+     */
+    public CompletableFuture<Boolean> checkCloudAssistantAsync(RunCommandRequest request) {
+        request.setInstanceIds(distinctInstanceIds(request.getInstanceIds()));
+        return this.cloudAssistantIndex.getStatusAsync(request.getSysRegionId(), request.getInstanceIds())
+                .thenApply(statusSet -> this.checkCloudAssistant(request, statusSet));
+    }
 
+    boolean checkCloudAssistant(RunCommandRequest request, List<InstanceCloudAssistantStatus> statusSet) {
         if (CommandType.RunShellScript.name().equals(request.getType())) {
             // RunShellScript 类型的命令，不支持在 Windows 实例上执行
-            if (statusSet.stream().anyMatch(vm -> OS_WINDOWS.equalsIgnoreCase(vm.getOSType()))) {
-                logger.error("{} request is not allowed for Windows system.", request.getType());
-                return false;
+            for (InstanceCloudAssistantStatus vm : statusSet) {
+                if (OS_WINDOWS.equalsIgnoreCase(vm.getOSType())) {
+                    logger.error("{} request is not allowed for Windows system.", request.getType());
+                    return false;
+                }
             }
         } else {
-            if (statusSet.stream().anyMatch(vm -> OS_LINUX.equalsIgnoreCase(vm.getOSType()))) {
-                logger.error("{} request is not allowed for Linux system.", request.getType());
-                return false;
+            for (InstanceCloudAssistantStatus vm : statusSet) {
+                if (OS_LINUX.equalsIgnoreCase(vm.getOSType())) {
+                    logger.error("{} request is not allowed for Linux system.", request.getType());
+                    return false;
+                }
             }
         }
 
-        statusSet.forEach(vm -> {
+        for (InstanceCloudAssistantStatus vm : statusSet) {
             // ECS实例上没有云助手，或云不在运行中，极有可能无法将该命令发送到ECS实例上并执行。
             // 安装云助手，见：https://help.aliyun.com/zh/ecs/user-guide/install-the-cloud-assistant-agent
             // 排查云助手异常： https://help.aliyun.com/zh/ecs/user-guide/configure-network-permissions-for-the-cloud-assistant-agent
@@ -201,7 +517,7 @@ public class CloudAssistant {
             } else if (!STATUS_OK.equals(vm.getCloudAssistantStatus())) {
                 logger.info("instance {} cloud assistant not running.", vm.getInstanceId());
             }
-        });
+        }
         return true;
     }
 
@@ -221,6 +537,25 @@ public class CloudAssistant {
         return this.waitForTaskStatus(regionId, invokeId, timeout, invocation -> isFinished(invocation.getInvocationStatus()));
     }
 
+    /**
+     * 异步等待云助手任务执行完成，不占用调用方的线程。
+     *
+     * @param regionId - 任务所在地域
+     * @param invokeId - 任务的唯一ID
+     * @return - 任务的执行结果；若任务不存在则结果为 null
+     */
+    public CompletableFuture<Invocation> waitForTaskFinishAsync(String regionId, String invokeId) {
+        CompletableFuture<Invocation> future = new CompletableFuture<>();
+        this.scheduleTaskQuery(regionId, invokeId, invocation -> {
+            if (invocation == null || isFinished(invocation.getInvocationStatus())) {
+                future.complete(invocation);
+                return true;
+            }
+            return false;
+        });
+        return future;
+    }
+
     private Invocation waitForTaskStatus(String regionId, String invokeId, int timeout, Predicate<Invocation> predicate) throws InterruptedException {
         AtomicReference<Invocation> result = new AtomicReference<>();
         final CountDownLatch countDownLatch = new CountDownLatch(1);
@@ -249,29 +584,66 @@ public class CloudAssistant {
      * @param callback - 回调处理函数，若该方法返回 false 则轮询线程池还将继续轮询；否则停止轮询。
      */
     public void scheduleTaskQuery(String regionId, String invokeId, Predicate<Invocation> callback) {
-        this.threadPoolExecutor.schedule(new TaskQuery(regionId, invokeId, callback), 1, TimeUnit.SECONDS);
+        this.scheduleTaskQuery(regionId, invokeId, callback, 1, TimeUnit.SECONDS);
     }
 
     /**
-     * 判断任务的执行状态是否为已结束。
+     * 异步等待云助手任务执行完成，并在指定的延迟之后开始第一次查询。用于启动时恢复大量任务的轮询，
+     * 将首次查询分散在一段时间内。地域合并轮询时，每轮的请求数与任务数无关，延迟被忽略。
      *
-     * @param invocationStatus - 任务的执行状态
-     * @return - 任务执行已到达终态，状态不会再产生变化。
+     * @param regionId - 任务所在地域
+     * @param invokeId - 任务的唯一ID
+     * @param callback - 回调处理函数，若该方法返回 false 则轮询线程池还将继续轮询；否则停止轮询。
+     * @param delay    - 第一次查询的延迟
+     * @param unit     - 延迟的单位
      */
-    public static boolean isFinished(String invocationStatus) {
-        if (invocationStatus == null) {
-            return false; // 非法的入参
+    public void scheduleTaskQuery(String regionId, String invokeId, Predicate<Invocation> callback,
+                                  long delay, TimeUnit unit) {
+        this.scheduleTaskQuery(regionId, invokeId, System.currentTimeMillis(), callback, delay, unit);
+    }
+
+    /**
+     * 异步等待已创建一段时间的云助手任务执行完成，如启动时恢复的任务。地域合并轮询时，
+     * 以任务的创建时间确定分页查询的范围。
+     *
+     * @param regionId     - 任务所在地域
+     * @param invokeId     - 任务的唯一ID
+     * @param creationTime - 任务的创建时间，以毫秒为单位
+     * @param callback     - 回调处理函数，若该方法返回 false 则轮询线程池还将继续轮询；否则停止轮询。
+     * @param delay        - 第一次查询的延迟
+     * @param unit         - 延迟的单位
+     */
+    public void scheduleTaskQuery(String regionId, String invokeId, long creationTime, Predicate<Invocation> callback,
+                                  long delay, TimeUnit unit) {
+        if (QUERY_MODE_REGION.equalsIgnoreCase(this.queryMode)) {
+            this.regionQueries.computeIfAbsent(regionId, RegionQuery::new).register(invokeId, creationTime, callback);
+            return;
         }
+        this.scheduler.schedule(new TaskQuery(regionId, invokeId, callback), delay, unit);
+    }
 
-        InvocationStatus status;
+    /**
+     * 提交下一次轮询。调度器已关闭时放弃本次轮询，未结束的任务在下次启动时恢复。
+     */
+    private void reschedule(Runnable query, long delay, TimeUnit unit) {
         try {
-            status = InvocationStatus.valueOf(invocationStatus);
-            return status.isFinished();
-        } catch (Exception e) {
-            return false;
+            this.scheduler.schedule(query, delay, unit);
+        } catch (RejectedExecutionException e) {
+            logger.info("scheduler has been shutdown, query dropped.");
         }
     }
 
+    /**
+     * 判断任务的执行状态是否为已结束。
+     *
+     * @param invocationStatus - 任务的执行状态
+     * @return - 任务执行已到达终态，状态不会再产生变化。
+     */
+    public static boolean isFinished(String invocationStatus) {
+        InvocationStatus status = InvocationStatus.of(invocationStatus);
+        return status != null && status.isFinished(); // 非法的入参或未知的状态，视为未结束
+    }
+
     /**
      * 一个命令调用的状态查询任务。该查询将自动根据命令Timeout时长，选择较适当的查询间隔。
      * 该查询间隔的选择，即能减少不必要的查询请求数，也能在任务完成后较早获取结果。
@@ -279,6 +651,7 @@ public class CloudAssistant {
     public class TaskQuery implements Runnable {
         private final DescribeInvocationsRequest request;
         private final Predicate<Invocation> predicate;
+        private final Set<String> fetched = new HashSet<>();
         private int queryTimes = 0;
 
         /**
@@ -291,7 +664,7 @@ public class CloudAssistant {
             request.setSysRegionId(regionId);
             request.setInvokeId(invokeId);
             request.setContentEncoding("PlainText"); // 默认"Base64"
-            request.setIncludeOutput(true);
+            request.setIncludeOutput(!isStatusOnly());
             this.predicate = predicate;
         }
 
@@ -299,19 +672,19 @@ public class CloudAssistant {
         public void run() {
             try {
                 this.queryTimes++;
-                DescribeInvocationsResponse response = acsClient.sendRequest(request);
+                DescribeInvocationsResponse response = describeInvocations(request);
                 if (CollectionUtils.isEmpty(response.getInvocations())) {
                     logger.error("query task {}-[{}], not found.", request.getInvokeId(), queryTimes);
                     predicate.test(null); // 提供的入参有误，请检查 regionId与InvokeId
                     return;
                 }
                 Invocation invocation = response.getInvocations().get(0);
+                fetchOutputs(request.getSysRegionId(), invocation, this.fetched);
                 if (this.predicate.test(invocation) || isFinished(invocation.getInvocationStatus())) {
+                    recordPolls(taskQueryPolls, invocation, this.queryTimes);
                     return;
                 }
-                DateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-                Date creationTime = format.parse(invocation.getCreationTime()); // GMT 时间
-                long startTime = creationTime.getTime() + TimeZone.getDefault().getRawOffset();
+                long startTime = parseTime(invocation.getCreationTime()); // UTC 时间，解析失败时为 0
 
                 long finalTime = startTime + 1000 * invocation.getTimeout();
                 // 计算当前时间与最晚结束时间的差值，每对过一半再查，避免产生过量无效查询
@@ -325,12 +698,418 @@ public class CloudAssistant {
                     nextStep = offsetTime; // 下一次查询时间，不要跳过CheckPoint
                 }
                 long during = (System.currentTimeMillis() - startTime) / 1000;
-                logger.info("query task {}-[{}]+{}s, next: {}ms.", request.getInvokeId(), queryTimes, during, nextStep);
-                threadPoolExecutor.schedule(this, nextStep, TimeUnit.MILLISECONDS);
+                logger.debug("query task {}-[{}]+{}s, next: {}ms.", request.getInvokeId(), queryTimes, during, nextStep);
+                reschedule(this, nextStep, TimeUnit.MILLISECONDS);
             } catch (Exception e) {
                 logger.warn("query task {}-[{}], error: {}.", request.getInvokeId(), queryTimes, e, e);
-                threadPoolExecutor.schedule(this, 1, TimeUnit.SECONDS);
+                reschedule(this, 1, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * <pre>
+     * 按地域合并的任务状态轮询。同一地域内所有待查询的任务共用一个轮询，每一轮以分页方式查询该地域
+     * 最近创建的任务（DescribeInvocations 按创建时间倒序返回），直到找到全部待查询的任务，或者翻页
+     * 到早于最早一个待查询任务的创建时间为止。每一轮的请求数只与分页数相关，不再随任务数增长。
+     * </pre>
+     */
+    public class RegionQuery implements Runnable {
+        private final String regionId;
+        private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private int queryTimes = 0;
+
+        /**
+         * @param regionId - 轮询的地域
+         */
+        public RegionQuery(String regionId) {
+            this.regionId = regionId;
+        }
+
+        /**
+         * @param invokeId     - 任务的唯一ID
+         * @param creationTime - 任务的创建时间，以毫秒为单位，用于确定分页查询的范围
+         * @param predicate    - 回调函数，返回 true 或任务到达终态时，停止轮询该任务
+         */
+        public void register(String invokeId, long creationTime, Predicate<Invocation> predicate) {
+            this.registrations.put(invokeId, new Registration(predicate, creationTime));
+            if (this.scheduled.compareAndSet(false, true)) {
+                scheduler.schedule(this, 1, TimeUnit.SECONDS);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (this.registrations.isEmpty()) {
+                this.scheduled.set(false);
+                // 防止与 register 并发时，遗漏新注册的任务
+                if (this.registrations.isEmpty() || !this.scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+            this.queryTimes++;
+            Set<String> pending = new HashSet<>(this.registrations.keySet());
+            int pages = 0;
+            int fallbacks = 0;
+            try {
+                // 先分页查询未结束的任务，长时间运行或恢复的任务也只在少数分页内；
+                // 再分页查询全部状态的任务，获取最近结束的任务的最终状态。均查询至早于所有待查询任务的创建时间为止
+                for (String status : REGION_QUERY_STATUSES) {
+                    pages += this.queryPages(status, pending);
+                }
+                pages += this.queryPages(null, pending);
+                // 仍未查到的任务(结束前已超出分页范围)，单独按 InvokeId 查询，每轮数量有上限
+                List<String> fallback = pending.stream()
+                        .sorted(Comparator.comparingLong(this::lastQueried))
+                        .limit(Math.max(regionQueryFallbackMax, 1))
+                        .collect(Collectors.toList());
+                for (String invokeId : fallback) {
+                    fallbacks++;
+                    DescribeInvocationsRequest request = this.newRequest();
+                    request.setInvokeId(invokeId);
+                    List<Invocation> invocations = describeInvocations(request).getInvocations();
+                    if (CollectionUtils.isEmpty(invocations)) {
+                        logger.error("query task {}-[{}], not found.", invokeId, queryTimes);
+                        this.dispatch(invokeId, null); // 提供的入参有误，请检查 regionId与InvokeId
+                    } else {
+                        this.dispatch(invokeId, invocations.get(0));
+                    }
+                }
+                logger.info("query region {}-[{}], tasks: {}, pages: {}, single queries: {}, deferred: {}.",
+                        regionId, queryTimes, this.registrations.size(), pages, fallbacks, pending.size() - fallback.size());
+            } catch (Exception e) {
+                logger.warn("query region {}-[{}], error: {}.", regionId, queryTimes, e, e);
+            }
+            reschedule(this, taskQueryDelay, TimeUnit.SECONDS);
+        }
+
+        /**
+         * 分页查询指定状态的任务，查询到的任务从 pending 中移除并分发
+         *
+         * @param status  - 任务的执行状态 InvokeStatus，为空时查询全部状态
+         * @param pending - 尚未查询到的任务
+         * @return - 查询的分页数
+         */
+        private int queryPages(String status, Set<String> pending) throws ClientException {
+            int pages = 0;
+            for (long pageNumber = 1; pageNumber <= regionQueryPages && !pending.isEmpty(); pageNumber++) {
+                pages++;
+                long since = pending.stream()
+                        .map(this.registrations::get)
+                        .filter(Objects::nonNull)
+                        .mapToLong(registration -> registration.since)
+                        .min().orElse(System.currentTimeMillis()) - CLOCK_SKEW_MILLIS;
+                DescribeInvocationsRequest request = this.newRequest();
+                if (status != null) {
+                    request.setInvokeStatus(status);
+                }
+                request.setPageNumber(pageNumber);
+                request.setPageSize(REGION_QUERY_PAGE_SIZE);
+                List<Invocation> invocations = describeInvocations(request).getInvocations();
+                if (CollectionUtils.isEmpty(invocations)) {
+                    break;
+                }
+                for (Invocation invocation : invocations) {
+                    if (pending.remove(invocation.getInvokeId())) {
+                        this.dispatch(invocation.getInvokeId(), invocation);
+                    }
+                }
+                Invocation last = invocations.get(invocations.size() - 1);
+                if (invocations.size() < REGION_QUERY_PAGE_SIZE || parseTime(last.getCreationTime()) < since) {
+                    break; // 已到最后一页，或已早于所有待查询任务的创建时间
+                }
+            }
+            return pages;
+        }
+
+        private long lastQueried(String invokeId) {
+            Registration registration = this.registrations.get(invokeId);
+            return registration != null ? registration.lastQueried : Long.MAX_VALUE;
+        }
+
+        private DescribeInvocationsRequest newRequest() {
+            DescribeInvocationsRequest request = new DescribeInvocationsRequest();
+            request.setSysRegionId(this.regionId);
+            request.setContentEncoding("PlainText"); // 默认"Base64"
+            request.setIncludeOutput(!isStatusOnly());
+            return request;
+        }
+
+        private void dispatch(String invokeId, Invocation invocation) {
+            Registration registration = this.registrations.get(invokeId);
+            if (registration == null) {
+                return;
+            }
+            registration.polls++;
+            registration.lastQueried = System.currentTimeMillis();
+            try {
+                fetchOutputs(this.regionId, invocation, registration.fetched);
+            } catch (Exception e) {
+                logger.warn("query task {}-[{}], fetch output error: {}.", invokeId, queryTimes, e, e);
+                return; // 下一轮重新获取
+            }
+            try {
+                if (registration.predicate.test(invocation) || invocation == null
+                        || isFinished(invocation.getInvocationStatus())) {
+                    this.registrations.remove(invokeId);
+                    recordPolls(regionQueryPolls, invocation, registration.polls);
+                }
+            } catch (Exception e) {
+                logger.warn("query task {}-[{}], callback error: {}.", invokeId, queryTimes, e, e);
+            }
+        }
+    }
+
+    private static class Registration {
+        private final Predicate<Invocation> predicate;
+        private final long since;
+        private final Set<String> fetched = new HashSet<>();
+        private int polls;
+        private volatile long lastQueried;
+
+        private Registration(Predicate<Invocation> predicate, long since) {
+            this.predicate = predicate;
+            this.since = since;
+        }
+    }
+
+    private DescribeInvocationsResponse describeInvocations(DescribeInvocationsRequest request) throws ClientException {
+        return this.acsClient.pollRequest(request, this.streamingDecode ? InvocationDecoder::decodeInvocations : null);
+    }
+
+    private DescribeInvocationResultsResponse describeInvocationResults(DescribeInvocationResultsRequest request)
+            throws ClientException {
+        return this.acsClient.pollRequest(request,
+                this.streamingDecode ? InvocationDecoder::decodeInvocationResults : null);
+    }
+
+    private boolean isStatusOnly() {
+        return !OUTPUT_MODE_ALWAYS.equalsIgnoreCase(this.outputMode);
+    }
+
+    /**
+     * <pre>
+     * 只查询状态的轮询模式下，为本次轮询中新结束的实例补充执行结果(Output)，每个实例只获取一次。
+     * 正常结束(Success、Failed)的实例，按 InvokeRecordStatus=Finished 分页查询，只返回已结束实例的执行结果，查到全部待获取的实例即停止；
+     * 逐个查询的请求数少于分页数时(如每轮只有少量实例结束)，按实例逐个查询，每轮的请求数不超过两者中的较小值。
+     * 其他原因结束(如 Stopped)或分页中未查到的实例，再按实例逐个查询，或不带状态条件分页查询。
+     * 相关API：https://next.api.aliyun.com/document/Ecs/2014-05-26/DescribeInvocationResults
+     * </pre>
+     *
+     * @param regionId   - 任务所在地域
+     * @param invocation - 轮询到的任务，执行结果将填充到其中的实例上
+     * @param fetched    - 已获取过执行结果的实例
+     * @throws ClientException - 获取失败时，这些实例将在下一次轮询时重新获取
+     */
+    private void fetchOutputs(String regionId, Invocation invocation, Set<String> fetched) throws ClientException {
+        if (!this.isStatusOnly() || invocation == null || invocation.getInvokeInstances() == null) {
+            return;
+        }
+        Map<String, InvokeInstance> pending = new HashMap<>();
+        Map<String, InvokeInstance> others = new HashMap<>();
+        long finishedCount = 0;
+        long othersCount = 0;
+        for (InvokeInstance instance : invocation.getInvokeInstances()) {
+            if (!isFinished(instance.getInvocationStatus())) {
+                continue;
+            }
+            boolean recordFinished = isRecordFinished(instance.getInvocationStatus());
+            if (recordFinished) {
+                finishedCount++;
+            } else {
+                othersCount++;
+            }
+            if (!fetched.contains(instance.getInstanceId())) {
+                (recordFinished ? pending : others).put(instance.getInstanceId(), instance);
+            }
+        }
+        if (pending.isEmpty() && others.isEmpty()) {
+            return;
+        }
+        Set<String> instanceIds = new HashSet<>(pending.keySet());
+        instanceIds.addAll(others.keySet());
+        fetchResults(regionId, invocation.getInvokeId(), pending, RECORD_STATUS_FINISHED, finishedCount);
+        others.putAll(pending); // 分页中未查到的实例
+        fetchResults(regionId, invocation.getInvokeId(), others, null, finishedCount + othersCount);
+        fetched.addAll(instanceIds);
+    }
+
+    /**
+     * @param recordStatus - 分页查询的 InvokeRecordStatus，为 null 时不限状态
+     * @param total        - 符合该状态的实例总数，用于估算分页数
+     */
+    private void fetchResults(String regionId, String invokeId, Map<String, InvokeInstance> pending,
+                              String recordStatus, long total) throws ClientException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long pages = (total + RESULTS_PAGE_SIZE - 1) / RESULTS_PAGE_SIZE;
+        if (pending.size() <= Math.max(RESULTS_SINGLE_QUERY_MAX, pages)) {
+            for (String instanceId : new ArrayList<>(pending.keySet())) {
+                DescribeInvocationResultsRequest request = newResultsRequest(regionId, invokeId);
+                request.setInstanceId(instanceId);
+                fillOutputs(pending, this.describeInvocationResults(request).getInvocation().getInvocationResults());
+            }
+            return;
+        }
+        for (long pageNumber = 1; !pending.isEmpty(); pageNumber++) {
+            DescribeInvocationResultsRequest request = newResultsRequest(regionId, invokeId);
+            request.setPageNumber(pageNumber);
+            request.setPageSize(RESULTS_PAGE_SIZE);
+            if (recordStatus != null) {
+                request.setInvokeRecordStatus(recordStatus);
             }
+            List<InvocationResult> results = this.describeInvocationResults(request).getInvocation().getInvocationResults();
+            fillOutputs(pending, results);
+            if (results == null || results.size() < RESULTS_PAGE_SIZE) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 实例的 InvocationStatus 为 Success、Failed 时，执行记录的状态(InvokeRecordStatus)为 Finished
+     */
+    private static boolean isRecordFinished(String invocationStatus) {
+        InvocationStatus status = InvocationStatus.of(invocationStatus);
+        return status == InvocationStatus.Success || status == InvocationStatus.Failed;
+    }
+
+    private static DescribeInvocationResultsRequest newResultsRequest(String regionId, String invokeId) {
+        DescribeInvocationResultsRequest request = new DescribeInvocationResultsRequest();
+        request.setSysRegionId(regionId);
+        request.setInvokeId(invokeId);
+        request.setContentEncoding("PlainText"); // 默认"Base64"
+        return request;
+    }
+
+    private static void fillOutputs(Map<String, InvokeInstance> pending, List<InvocationResult> results) {
+        if (results == null) {
+            return;
+        }
+        for (InvocationResult result : results) {
+            InvokeInstance instance = pending.remove(result.getInstanceId());
+            if (instance != null) {
+                instance.setOutput(result.getOutput());
+                instance.setDropped(result.getDropped());
+            }
+        }
+    }
+
+    /**
+     * 一个批次的 RunCommand 请求及其提交结果
+     */
+    public static class CommandChunk {
+        private final RunCommandRequest request;
+        private volatile RunCommandResponse response;
+        private volatile ClientException error;
+
+        private CommandChunk(RunCommandRequest request) {
+            this.request = request;
+        }
+
+        public List<String> getInstanceIds() {
+            return request.getInstanceIds();
+        }
+
+        /**
+         * @return - 提交成功时为该批次的响应，否则为 null
+         */
+        public RunCommandResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * @return - 提交失败时为失败的原因，否则为 null
+         */
+        public ClientException getError() {
+            return error;
+        }
+    }
+
+    /**
+     * 去除空白或重复的ECS实例ID
+     */
+    private static List<String> distinctInstanceIds(List<String> instanceIds) {
+        if (instanceIds == null) {
+            return Collections.emptyList();
+        }
+        return instanceIds.stream().filter(StringUtils::isNotEmpty).distinct().collect(Collectors.toList());
+    }
+
+    /**
+     * 将列表按指定大小拆分为多个批次
+     */
+    public static <T> List<List<T>> partition(List<T> list, int size) {
+        List<List<T>> partitions = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += size) {
+            partitions.add(new ArrayList<>(list.subList(from, Math.min(list.size(), from + size))));
+        }
+        return partitions;
+    }
+
+    /**
+     * 按 RunCommand 的实例数上限拆分请求，拆分为多个批次时，各批次的幂等Token为 原Token-序号
+     */
+    static List<RunCommandRequest> chunkRequests(RunCommandRequest request) {
+        List<RunCommandRequest> chunkRequests = new ArrayList<>();
+        List<List<String>> partitions = partition(request.getInstanceIds(), RUN_COMMAND_MAX_INSTANCES);
+        for (int i = 0; i < partitions.size(); i++) {
+            RunCommandRequest chunkRequest = copyRunCommandRequest(request);
+            chunkRequest.setInstanceIds(partitions.get(i));
+            chunkRequest.setClientToken(partitions.size() > 1
+                    ? request.getClientToken() + "-" + i : request.getClientToken());
+            chunkRequests.add(chunkRequest);
+        }
+        return chunkRequests;
+    }
+
+    /**
+     * <pre>
+     * 复制 RunCommand 请求的参数，实例列表与幂等Token除外：
+     * 先复制请求的全部查询参数(包括标签、容器等未逐个列出的参数)，再逐个复制常用的字段，使批次请求的 getter 与原请求一致。
+     * </pre>
+     */
+    private static RunCommandRequest copyRunCommandRequest(RunCommandRequest source) {
+        RunCommandRequest target = new RunCommandRequest();
+        target.setSysRegionId(source.getSysRegionId());
+        for (Map.Entry<String, String> entry : source.getSysQueryParameters().entrySet()) {
+            String name = entry.getKey();
+            if (!name.startsWith("InstanceId.") && !"ClientToken".equals(name)) {
+                target.putQueryParameter(name, entry.getValue());
+            }
+        }
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setType(source.getType());
+        target.setCommandContent(source.getCommandContent());
+        target.setContentEncoding(source.getContentEncoding());
+        target.setWorkingDir(source.getWorkingDir());
+        target.setTimeout(source.getTimeout());
+        target.setRepeatMode(source.getRepeatMode());
+        target.setFrequency(source.getFrequency());
+        target.setTimed(source.getTimed());
+        target.setKeepCommand(source.getKeepCommand());
+        target.setEnableParameter(source.getEnableParameter());
+        target.setParameters(source.getParameters());
+        target.setUsername(source.getUsername());
+        target.setWindowsPasswordName(source.getWindowsPasswordName());
+        target.setResourceGroupId(source.getResourceGroupId());
+        return target;
+    }
+
+    /**
+     * 解析云助手返回的 UTC 时间，如：2023-10-01T08:00:00Z
+     *
+     * @param time - 时间字符串
+     * @return - 毫秒时间戳，若无法解析则为 0
+     */
+    static long parseTime(String time) {
+        try {
+            return Instant.parse(time).toEpochMilli();
+        } catch (Exception e) {
+            return 0;
         }
     }
 
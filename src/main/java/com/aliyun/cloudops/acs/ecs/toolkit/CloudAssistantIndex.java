@@ -0,0 +1,254 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.aliyun.cloudops.acs.AcsClient;
+import com.aliyuncs.ecs.model.v20140526.DescribeCloudAssistantStatusRequest;
+import com.aliyuncs.ecs.model.v20140526.DescribeCloudAssistantStatusResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeCloudAssistantStatusResponse.InstanceCloudAssistantStatus;
+import com.aliyuncs.exceptions.ClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import static com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.STATUS_MAX_INSTANCES;
+import static com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.partition;
+
+/**
+ * <pre>
+ * ECS实例云助手状态的内存索引，记录每个实例的操作系统类型、云助手版本与运行状态。
+ * 1. 查询时优先使用索引中未过期的记录，只对未知或已过期的实例调用 DescribeCloudAssistantStatus；
+ * 2. 后台线程定期按地域批量刷新即将过期、且近期被使用过的记录，使常用实例的查询几乎不需要请求OpenAPI；
+ * 3. 长时间未被使用的记录将被移除。
+ * </pre>
+ */
+@Component
+public class CloudAssistantIndex {
+
+    @Value("${com.aliyun.cloudops.axt.index.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 记录的有效期，以秒为单位。超出有效期的记录，查询时将重新请求OpenAPI
+     */
+    @Value("${com.aliyun.cloudops.axt.index.ttlSeconds:300}")
+    private long ttlSeconds = 300;
+
+    /**
+     * 后台刷新的间隔，以秒为单位
+     */
+    @Value("${com.aliyun.cloudops.axt.index.refreshSeconds:60}")
+    private long refreshSeconds = 60;
+
+    /**
+     * 记录在该时长内未被使用，将不再刷新并从索引中移除，以秒为单位
+     */
+    @Value("${com.aliyun.cloudops.axt.index.idleSeconds:3600}")
+    private long idleSeconds = 3600;
+
+    private final AcsClient acsClient;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private ScheduledExecutorService refresher;
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudAssistantIndex.class);
+
+    public CloudAssistantIndex(AcsClient acsClient) {
+        this.acsClient = acsClient;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!this.enabled) {
+            return;
+        }
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "axt-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher.scheduleWithFixedDelay(this::refresh, this.refreshSeconds, this.refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (this.refresher != null) {
+            this.refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * 查询ECS实例的云助手状态，只对索引中未知或已过期的实例请求OpenAPI
+     *
+     * @param regionId    - 实例所在地域
+     * @param instanceIds - 实例ID列表，不含重复的ID
+     * @return - 各实例的云助手状态，不存在的实例没有对应的记录
+     */
+    public List<InstanceCloudAssistantStatus> getStatus(String regionId, List<String> instanceIds) throws ClientException {
+        List<InstanceCloudAssistantStatus> statusSet = new ArrayList<>();
+        List<String> missing = this.lookup(regionId, instanceIds, statusSet);
+        for (DescribeCloudAssistantStatusRequest request : newRequests(regionId, missing)) {
+            DescribeCloudAssistantStatusResponse response = this.acsClient.sendRequest(request);
+            statusSet.addAll(this.update(regionId, response.getInstanceCloudAssistantStatusSet()));
+        }
+        return statusSet;
+    }
+
+    /**
+     * {@link #getStatus(String, List)} 的异步版本，各批次的查询并行发送
+     */
+    public CompletableFuture<List<InstanceCloudAssistantStatus>> getStatusAsync(String regionId, List<String> instanceIds) {
+        List<InstanceCloudAssistantStatus> statusSet = new ArrayList<>();
+        List<String> missing = this.lookup(regionId, instanceIds, statusSet);
+        List<CompletableFuture<DescribeCloudAssistantStatusResponse>> futures = newRequests(regionId, missing)
+                .stream().map(this.acsClient::sendRequestAsync).collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            futures.forEach(future ->
+                    statusSet.addAll(this.update(regionId, future.join().getInstanceCloudAssistantStatusSet())));
+            return statusSet;
+        });
+    }
+
+    /**
+     * 使实例的记录失效，下次查询时将重新请求OpenAPI
+     */
+    public void invalidate(String instanceId) {
+        this.entries.remove(instanceId);
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return - 命中索引的实例数
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return - 需要请求OpenAPI的实例数
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return - 未知或已过期、需要请求OpenAPI的实例
+     */
+    private List<String> lookup(String regionId, List<String> instanceIds, List<InstanceCloudAssistantStatus> statusSet) {
+        if (!this.enabled) {
+            this.misses.addAndGet(instanceIds.size());
+            return instanceIds;
+        }
+        long now = System.currentTimeMillis();
+        List<String> missing = new ArrayList<>();
+        for (String instanceId : instanceIds) {
+            Entry entry = this.entries.get(instanceId);
+            if (entry != null && entry.regionId.equals(regionId) && now - entry.updateTime < this.ttlMillis()) {
+                entry.accessTime = now;
+                statusSet.add(entry.status);
+            } else {
+                missing.add(instanceId);
+            }
+        }
+        this.hits.addAndGet(instanceIds.size() - missing.size());
+        this.misses.addAndGet(missing.size());
+        return missing;
+    }
+
+    private List<InstanceCloudAssistantStatus> update(String regionId, List<InstanceCloudAssistantStatus> statusSet) {
+        if (statusSet == null) {
+            return Collections.emptyList();
+        }
+        if (this.enabled) {
+            long now = System.currentTimeMillis();
+            for (InstanceCloudAssistantStatus status : statusSet) {
+                Entry previous = this.entries.get(status.getInstanceId());
+                long accessTime = previous == null ? now : previous.accessTime;
+                this.entries.put(status.getInstanceId(), new Entry(regionId, status, now, accessTime));
+            }
+        }
+        return statusSet;
+    }
+
+    /**
+     * 后台刷新：移除长时间未使用的记录，并按地域批量刷新在下次刷新前将会过期的记录
+     */
+    private void refresh() {
+        long now = System.currentTimeMillis();
+        long idleMillis = TimeUnit.SECONDS.toMillis(this.idleSeconds);
+        long refreshMillis = TimeUnit.SECONDS.toMillis(this.refreshSeconds);
+        Map<String, List<String>> expiring = new ConcurrentHashMap<>();
+        this.entries.forEach((instanceId, entry) -> {
+            if (now - entry.accessTime > idleMillis) {
+                this.entries.remove(instanceId, entry);
+            } else if (now - entry.updateTime + refreshMillis >= this.ttlMillis()) {
+                expiring.computeIfAbsent(entry.regionId, key -> new ArrayList<>()).add(instanceId);
+            }
+        });
+        expiring.forEach((regionId, instanceIds) -> {
+            for (DescribeCloudAssistantStatusRequest request : newRequests(regionId, instanceIds)) {
+                try {
+                    this.update(regionId, this.acsClient.sendRequest(request).getInstanceCloudAssistantStatusSet());
+                } catch (Exception e) {
+                    logger.warn("refresh cloud assistant status in {} failed, error: {}.", regionId, e.getMessage());
+                }
+            }
+        });
+        if (!expiring.isEmpty()) {
+            logger.info("refresh cloud assistant index, regions: {}, entries: {}.", expiring.size(), this.entries.size());
+        }
+    }
+
+    private long ttlMillis() {
+        return TimeUnit.SECONDS.toMillis(this.ttlSeconds);
+    }
+
+    /**
+     * 相关API：https://next.api.aliyun.com/document/Ecs/2014-05-26/DescribeCloudAssistantStatus
+     */
+    private static List<DescribeCloudAssistantStatusRequest> newRequests(String regionId, List<String> instanceIds) {
+        List<DescribeCloudAssistantStatusRequest> requests = new ArrayList<>();
+        for (List<String> chunk : partition(instanceIds, STATUS_MAX_INSTANCES)) {
+            DescribeCloudAssistantStatusRequest request = new DescribeCloudAssistantStatusRequest();
+            request.setSysRegionId(regionId);
+            request.setInstanceIds(chunk);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static class Entry {
+        private final String regionId;
+        private final InstanceCloudAssistantStatus status;
+        private final long updateTime;
+        private volatile long accessTime;
+
+        private Entry(String regionId, InstanceCloudAssistantStatus status, long updateTime, long accessTime) {
+            this.regionId = regionId;
+            this.status = status;
+            this.updateTime = updateTime;
+            this.accessTime = accessTime;
+        }
+    }
+}
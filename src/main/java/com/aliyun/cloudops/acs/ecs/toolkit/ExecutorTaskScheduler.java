@@ -0,0 +1,54 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 {@link ScheduledThreadPoolExecutor} 的调度器，轮询请求直接在调度线程上执行。
+ * 适用于待查询任务数较少的场景。
+ */
+public class ExecutorTaskScheduler implements TaskScheduler {
+
+    private final ScheduledThreadPoolExecutor threadPoolExecutor;
+
+    private volatile long lagMillis;
+
+    public ExecutorTaskScheduler(int corePoolSize) {
+        this.threadPoolExecutor = new ScheduledThreadPoolExecutor(
+                corePoolSize,
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        // 关闭时丢弃尚未到期的轮询，未结束的任务在下次启动时从数据库恢复
+        this.threadPoolExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    @Override
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.currentTimeMillis() + unit.toMillis(delay);
+        this.threadPoolExecutor.schedule(() -> {
+            this.lagMillis = Math.max(0, System.currentTimeMillis() - deadline);
+            task.run();
+        }, delay, unit);
+    }
+
+    @Override
+    public int getQueueSize() {
+        return this.threadPoolExecutor.getQueue().size();
+    }
+
+    @Override
+    public long getLagMillis() {
+        return this.lagMillis;
+    }
+
+    @Override
+    public void shutdown() {
+        this.threadPoolExecutor.shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.threadPoolExecutor.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,320 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationResultsResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationResultsResponse.Invocation.InvocationResult;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation.InvokeInstance;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * <pre>
+ * 轮询使用的 DescribeInvocations 与 DescribeInvocationResults 响应的流式解码器。
+ * SDK 默认将整个响应展开为以字段路径(如 Invocations[0].InvokeInstances[99].Output)为键的 Map，再逐个字段构造响应模型，
+ * 响应中的实例越多，产生的临时字符串越多。该解码器按 JSON 词法逐个读取轮询需要的字段，直接填充到 SDK 的响应模型中：
+ *   - 任务：InvokeId、CommandId、CommandName、CommandType、RepeatMode、InvocationStatus、InvokeStatus、CreationTime、Timeout 与各实例；
+ *   - 实例：InstanceId、InvocationStatus、InstanceInvokeStatus、ExitCode、Output、Dropped、ErrorCode、ErrorInfo、FinishTime；
+ *   - 执行结果：InvokeId、InstanceId、InvocationStatus、InvokeRecordStatus、ExitCode、Output、Dropped、ErrorCode、ErrorInfo、FinishedTime。
+ * 其余字段(命令内容 CommandContent、参数 Parameters、标签，以及实例的开始、更新时间等)整体跳过，不创建字符串。
+ * 需要完整响应的调用方仍使用 SDK 的解析，见 com.aliyun.cloudops.axt.streamingDecode。
+ * </pre>
+ */
+final class InvocationDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private InvocationDecoder() {
+    }
+
+    /**
+     * 解码 DescribeInvocations 的响应
+     */
+    static DescribeInvocationsResponse decodeInvocations(byte[] content) throws IOException {
+        DescribeInvocationsResponse response = new DescribeInvocationsResponse();
+        List<Invocation> invocations = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            startObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                switch (name) {
+                    case "RequestId":
+                        response.setRequestId(text(parser));
+                        break;
+                    case "TotalCount":
+                        response.setTotalCount(longValue(parser));
+                        break;
+                    case "PageNumber":
+                        response.setPageNumber(longValue(parser));
+                        break;
+                    case "PageSize":
+                        response.setPageSize(longValue(parser));
+                        break;
+                    case "Invocations":
+                        for (boolean item = startList(parser); item; item = nextItem(parser)) {
+                            invocations.add(readInvocation(parser));
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        response.setInvocations(invocations);
+        return response;
+    }
+
+    /**
+     * 解码 DescribeInvocationResults 的响应
+     */
+    static DescribeInvocationResultsResponse decodeInvocationResults(byte[] content) throws IOException {
+        DescribeInvocationResultsResponse response = new DescribeInvocationResultsResponse();
+        DescribeInvocationResultsResponse.Invocation invocation = new DescribeInvocationResultsResponse.Invocation();
+        List<InvocationResult> results = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            startObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("RequestId".equals(name)) {
+                    response.setRequestId(text(parser));
+                } else if ("Invocation".equals(name) && parser.currentToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.getCurrentName();
+                        parser.nextToken();
+                        switch (field) {
+                            case "TotalCount":
+                                invocation.setTotalCount(longValue(parser));
+                                break;
+                            case "PageNumber":
+                                invocation.setPageNumber(longValue(parser));
+                                break;
+                            case "PageSize":
+                                invocation.setPageSize(longValue(parser));
+                                break;
+                            case "InvocationResults":
+                                for (boolean item = startList(parser); item; item = nextItem(parser)) {
+                                    results.add(readInvocationResult(parser));
+                                }
+                                break;
+                            default:
+                                parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        invocation.setInvocationResults(results);
+        response.setInvocation(invocation);
+        return response;
+    }
+
+    private static Invocation readInvocation(JsonParser parser) throws IOException {
+        Invocation invocation = new Invocation();
+        List<InvokeInstance> instances = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "InvokeId":
+                    invocation.setInvokeId(text(parser));
+                    break;
+                case "CommandId":
+                    invocation.setCommandId(text(parser));
+                    break;
+                case "CommandName":
+                    invocation.setCommandName(text(parser));
+                    break;
+                case "CommandType":
+                    invocation.setCommandType(text(parser));
+                    break;
+                case "RepeatMode":
+                    invocation.setRepeatMode(text(parser));
+                    break;
+                case "InvocationStatus":
+                    invocation.setInvocationStatus(text(parser));
+                    break;
+                case "InvokeStatus":
+                    invocation.setInvokeStatus(text(parser));
+                    break;
+                case "CreationTime":
+                    invocation.setCreationTime(text(parser));
+                    break;
+                case "Timeout":
+                    invocation.setTimeout(longValue(parser));
+                    break;
+                case "InvokeInstances":
+                    for (boolean item = startList(parser); item; item = nextItem(parser)) {
+                        instances.add(readInvokeInstance(parser));
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        invocation.setInvokeInstances(instances);
+        return invocation;
+    }
+
+    private static InvokeInstance readInvokeInstance(JsonParser parser) throws IOException {
+        InvokeInstance instance = new InvokeInstance();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "InstanceId":
+                    instance.setInstanceId(text(parser));
+                    break;
+                case "InvocationStatus":
+                    instance.setInvocationStatus(text(parser));
+                    break;
+                case "InstanceInvokeStatus":
+                    instance.setInstanceInvokeStatus(text(parser));
+                    break;
+                case "ExitCode":
+                    instance.setExitCode(longValue(parser));
+                    break;
+                case "Output":
+                    instance.setOutput(text(parser));
+                    break;
+                case "Dropped":
+                    instance.setDropped(intValue(parser));
+                    break;
+                case "ErrorCode":
+                    instance.setErrorCode(text(parser));
+                    break;
+                case "ErrorInfo":
+                    instance.setErrorInfo(text(parser));
+                    break;
+                case "FinishTime":
+                    instance.setFinishTime(text(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return instance;
+    }
+
+    private static InvocationResult readInvocationResult(JsonParser parser) throws IOException {
+        InvocationResult result = new InvocationResult();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "InvokeId":
+                    result.setInvokeId(text(parser));
+                    break;
+                case "InstanceId":
+                    result.setInstanceId(text(parser));
+                    break;
+                case "InvocationStatus":
+                    result.setInvocationStatus(text(parser));
+                    break;
+                case "InvokeRecordStatus":
+                    result.setInvokeRecordStatus(text(parser));
+                    break;
+                case "ExitCode":
+                    result.setExitCode(longValue(parser));
+                    break;
+                case "Output":
+                    result.setOutput(text(parser));
+                    break;
+                case "Dropped":
+                    result.setDropped(intValue(parser));
+                    break;
+                case "ErrorCode":
+                    result.setErrorCode(text(parser));
+                    break;
+                case "ErrorInfo":
+                    result.setErrorInfo(text(parser));
+                    break;
+                case "FinishedTime":
+                    result.setFinishedTime(text(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static void startObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "response is not a JSON object");
+        }
+    }
+
+    /**
+     * <pre>
+     * 定位到列表的第一个对象。OpenAPI 的列表以 {"Invocation": [...]} 的形式包装，其他形式的值整体跳过。
+     * 返回 true 时解析器位于对象的 START_OBJECT，由调用方读取至 END_OBJECT，再调用 {@link #nextItem}
+     * </pre>
+     */
+    private static boolean startList(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (parser.nextToken() == JsonToken.START_ARRAY) {
+                return nextItem(parser);
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * 定位到数组的下一个对象，跳过非对象的元素。数组结束时，读取至包装对象的 END_OBJECT
+     */
+    private static boolean nextItem(JsonParser parser) throws IOException {
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (token == null) {
+                throw new JsonParseException(parser, "unexpected end of response");
+            }
+            if (token == JsonToken.START_OBJECT) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) { // 包装对象中数组之后的其他字段
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        if (parser.currentToken().isScalarValue()) {
+            return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Long longValue(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        String text = text(parser);
+        return text == null || text.isEmpty() ? null : Long.valueOf(text);
+    }
+
+    private static Integer intValue(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        String text = text(parser);
+        return text == null || text.isEmpty() ? null : Integer.valueOf(text);
+    }
+}
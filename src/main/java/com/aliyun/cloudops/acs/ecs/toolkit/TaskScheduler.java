@@ -0,0 +1,45 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>
+ * 云助手任务轮询使用的调度器。调度器负责在指定的延迟之后执行轮询任务，
+ * 可选的实现见 {@link ExecutorTaskScheduler} 与 {@link TimingWheelScheduler}。
+ * </pre>
+ */
+public interface TaskScheduler {
+
+    /**
+     * 提交一个延迟执行的任务
+     *
+     * @param task  - 待执行的任务
+     * @param delay - 延迟时长
+     * @param unit  - 延迟时长的单位
+     */
+    void schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * @return - 已提交、尚未执行的任务数（队列深度）
+     */
+    int getQueueSize();
+
+    /**
+     * @return - 最近执行的任务，实际开始执行的时间相对于期望执行时间的延后（毫秒）
+     */
+    long getLagMillis();
+
+    /**
+     * 停止调度器，不再接受新的任务；已提交、尚未到期的任务不再执行
+     */
+    void shutdown();
+
+    /**
+     * 在 {@link #shutdown()} 之后，等待正在执行的任务完成
+     *
+     * @param timeout - 等待时长
+     * @param unit    - 等待时长的单位
+     * @return - 正在执行的任务均已完成时返回 true，超时返回 false
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -0,0 +1,190 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <pre>
+ * 基于哈希时间轮的调度器，适用于有大量（十万级）待查询任务的场景：
+ * 1. 提交任务与任务到期均为 O(1) 操作，不再受限于延迟队列的堆排序开销；
+ * 2. 时间轮线程只负责计时，到期的任务交由独立的、有界的 I/O 线程池执行 OpenAPI 请求，
+ *    I/O 线程池繁忙时，任务将顺延一个刻度后重新提交，而不会阻塞时间轮线程。
+ * </pre>
+ */
+public class TimingWheelScheduler implements TaskScheduler {
+
+    private final long tickMillis;
+
+    private final Queue<Timeout>[] wheel;
+
+    private final int mask;
+
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+
+    private final ThreadPoolExecutor ioExecutor;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final long startTime;
+
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    private volatile long lagMillis;
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheelScheduler.class);
+
+    /**
+     * @param tickMillis  - 时间轮的刻度，以毫秒为单位
+     * @param wheelSize   - 时间轮的格数，将向上取整为2的幂
+     * @param ioPoolSize  - 执行 OpenAPI 请求的线程数
+     * @param ioQueueSize - 执行 OpenAPI 请求的线程池队列长度
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheelScheduler(long tickMillis, int wheelSize, int ioPoolSize, int ioQueueSize) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickMillis = Math.max(tickMillis, 1);
+        this.wheel = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.ioExecutor = new ThreadPoolExecutor(
+                ioPoolSize, ioPoolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(ioQueueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "axt-io-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.startTime = System.currentTimeMillis();
+        this.worker = new Thread(this::work, "axt-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!this.running) {
+            throw new RejectedExecutionException("scheduler has been shutdown.");
+        }
+        this.pending.incrementAndGet();
+        this.incoming.add(new Timeout(task, System.currentTimeMillis() + unit.toMillis(delay)));
+    }
+
+    @Override
+    public int getQueueSize() {
+        return this.pending.get();
+    }
+
+    @Override
+    public long getLagMillis() {
+        return this.lagMillis;
+    }
+
+    /**
+     * @return - I/O 线程池中排队等待执行的任务数
+     */
+    public int getIoQueueSize() {
+        return this.ioExecutor.getQueue().size();
+    }
+
+    @Override
+    public void shutdown() {
+        this.running = false;
+        this.worker.interrupt();
+        this.ioExecutor.shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.ioExecutor.awaitTermination(timeout, unit);
+    }
+
+    private void work() {
+        long tick = 0;
+        while (this.running) {
+            long sleepMillis = this.startTime + (tick + 1) * this.tickMillis - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            this.transfer(tick);
+            this.expire(this.wheel[(int) (tick & this.mask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * 将新提交的任务放入时间轮对应的格子中，仅由时间轮线程调用
+     */
+    private void transfer(long tick) {
+        for (Timeout timeout = this.incoming.poll(); timeout != null; timeout = this.incoming.poll()) {
+            long ticks = Math.max((timeout.deadline - this.startTime) / this.tickMillis, tick);
+            timeout.rounds = (ticks - tick) / this.wheel.length;
+            this.wheel[(int) (ticks & this.mask)].add(timeout);
+        }
+    }
+
+    /**
+     * 处理当前格子中已到期的任务，仅由时间轮线程调用
+     */
+    private void expire(Queue<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                continue;
+            }
+            iterator.remove();
+            try {
+                this.ioExecutor.execute(() -> this.execute(timeout));
+            } catch (RejectedExecutionException e) {
+                // I/O 线程池已满，顺延一个刻度后再提交
+                timeout.deadline = System.currentTimeMillis() + this.tickMillis;
+                this.incoming.add(timeout);
+            }
+        }
+    }
+
+    private void execute(Timeout timeout) {
+        this.pending.decrementAndGet();
+        this.lagMillis = Math.max(0, System.currentTimeMillis() - timeout.dueTime);
+        try {
+            timeout.task.run();
+        } catch (Exception e) {
+            logger.error("scheduled task error: {}.", e, e);
+        }
+    }
+
+    private static class Timeout {
+        private final Runnable task;
+        private final long dueTime;
+        private long deadline;
+        private long rounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.dueTime = deadline;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,899 @@
+package com.aliyun.cloudops.acs.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StreamUtils;
+
+/**
+ * <pre>
+ * 本地的云助手 OpenAPI 模拟服务，用于端到端的压力测试，不消耗真实的 API 配额，也不访问真实的 ECS 实例。
+ * 以 JDK 内置的 HttpServer 实现 RPC 风格的接口，将 acs.profile.endpoint 指向 {@link #getEndpoint()}、
+ * acs.profile.protocol 设置为 HTTP 后，{@code AcsClient} 的请求即发送到该服务，请求的签名不做校验。
+ * 支持的接口：RunCommand、InvokeCommand、DescribeInvocations、DescribeInvocationResults、
+ * DescribeCloudAssistantStatus、DescribeInstances、DescribeRegions，以及 STS 的 AssumeRole。
+ * 1. 每个请求的耗时按 {@link Distribution} 采样，可按接口分别设置；
+ * 2. 每个接口每秒的请求数超出上限时返回 Throttling.User 错误，也可按比例随机注入限流错误；
+ * 3. 按比例随机注入 ServiceUnavailable 服务端错误；
+ * 4. 命令在每个实例上的下发延迟与执行时长按分布采样，按比例执行失败，超出命令的 Timeout 时以超时结束。
+ * 任务的状态只保存在内存中，创建超过 retentionMinutes 的任务将被清除。
+ * 可直接在测试中创建并启动，也可通过 simulator 配置(Spring Profile)随应用启动，见 {@link AcsSimulatorConfiguration}。
+ * </pre>
+ */
+public class AcsSimulator {
+
+    private String host = "127.0.0.1";
+
+    private int threads = 200;
+
+    private Distribution latency = Distribution.parse("uniform:5,20");
+
+    private final Map<String, Distribution> actionLatencies = new ConcurrentHashMap<>();
+
+    private int qps = 0;
+
+    private final Map<String, Integer> actionQps = new ConcurrentHashMap<>();
+
+    private double throttleRate = 0;
+
+    private double errorRate = 0;
+
+    private Distribution dispatch = Distribution.parse("uniform:200,1000");
+
+    private Distribution duration = Distribution.parse("lognormal:5000,0.5");
+
+    private double failureRate = 0;
+
+    private int instances = 1000;
+
+    private long retentionMinutes = 60;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService purger;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, SimInvocation> invocations = new ConcurrentHashMap<>();
+
+    /**
+     * 各地域的任务，按创建的顺序倒序排列，用于不指定 InvokeId 的分页查询
+     */
+    private final Map<String, ConcurrentNavigableMap<Long, SimInvocation>> regionInvocations = new ConcurrentHashMap<>();
+
+    private final Map<String, String> clientTokens = new ConcurrentHashMap<>();
+
+    private final Map<String, RateWindow> rateWindows = new ConcurrentHashMap<>();
+
+    private final Map<String, ActionStats> stats = new ConcurrentHashMap<>();
+
+    private static final String VERSION_STS = "2015-04-01";
+
+    private static final String THROTTLING = "Throttling.User";
+
+    private static final String SERVICE_UNAVAILABLE = "ServiceUnavailable";
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private static final Logger logger = LoggerFactory.getLogger(AcsSimulator.class);
+
+    /**
+     * 启动模拟服务
+     *
+     * @param port - 监听的端口，为 0 时使用随机端口
+     * @return - 实际监听的端口
+     */
+    public synchronized int start(int port) throws IOException {
+        if (this.server != null) {
+            return this.server.getAddress().getPort();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "acs-simulator-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "acs-simulator-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.purger.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.MINUTES);
+        this.server = HttpServer.create(new InetSocketAddress(this.host, port), 1024);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+        logger.info("acs simulator started, endpoint: {}, latency: {}, qps: {}, dispatch: {}, duration: {}.",
+                this.getEndpoint(), this.latency, this.qps, this.dispatch, this.duration);
+        return this.server.getAddress().getPort();
+    }
+
+    public synchronized void stop() {
+        if (this.server == null) {
+            return;
+        }
+        this.server.stop(0);
+        this.executor.shutdownNow();
+        this.purger.shutdownNow();
+        this.server = null;
+        logger.info("acs simulator stopped, requests: {}.", this.getRequestCounts());
+    }
+
+    /**
+     * @return - 服务地址，如：127.0.0.1:18080，用作 acs.profile.endpoint
+     */
+    public String getEndpoint() {
+        return this.host + ":" + this.server.getAddress().getPort();
+    }
+
+    /**
+     * @param invokeId - 任务的 InvokeId
+     * @return - 任务在全部实例上执行结束的时间，任务不存在时为 0
+     */
+    public long getFinishTime(String invokeId) {
+        SimInvocation invocation = this.invocations.get(invokeId);
+        return invocation == null ? 0 : invocation.finishTime;
+    }
+
+    /**
+     * @param invokeId - 任务的 InvokeId
+     * @return - DescribeInvocations 首次返回该任务已结束的时间，尚未返回时为 0
+     */
+    public long getDetectTime(String invokeId) {
+        SimInvocation invocation = this.invocations.get(invokeId);
+        return invocation == null ? 0 : invocation.detectTime.get();
+    }
+
+    /**
+     * @return - 各接口的请求数，以及其中被限流与注入错误的请求数
+     */
+    public Map<String, String> getRequestCounts() {
+        Map<String, String> counts = new TreeMap<>();
+        this.stats.forEach((action, stats) -> counts.put(action, String.format("%d (throttled: %d, errors: %d)",
+                stats.requests.get(), stats.throttled.get(), stats.errors.get())));
+        return counts;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> params = parseParams(exchange);
+            String action = params.getOrDefault("Action", "");
+            ActionStats stats = this.stats.computeIfAbsent(action, key -> new ActionStats());
+            stats.requests.incrementAndGet();
+            if (!this.acquire(action) || ThreadLocalRandom.current().nextDouble() < this.throttleRate) {
+                stats.throttled.incrementAndGet();
+                this.respondError(exchange, 400, THROTTLING, "Request was denied due to user flow control.");
+                return;
+            }
+            long delay = this.actionLatencies.getOrDefault(action, this.latency).sample();
+            if (delay > 0) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+            if (ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+                stats.errors.incrementAndGet();
+                this.respondError(exchange, 503, SERVICE_UNAVAILABLE,
+                        "The request has failed due to a temporary failure of the server.");
+                return;
+            }
+            JSONObject response;
+            switch (action) {
+                case "RunCommand":
+                case "InvokeCommand":
+                    response = this.runCommand(action, params);
+                    break;
+                case "DescribeInvocations":
+                    response = this.describeInvocations(params);
+                    break;
+                case "DescribeInvocationResults":
+                    response = this.describeInvocationResults(params);
+                    break;
+                case "DescribeCloudAssistantStatus":
+                    response = this.describeCloudAssistantStatus(params);
+                    break;
+                case "DescribeInstances":
+                    response = this.describeInstances(params);
+                    break;
+                case "DescribeRegions":
+                    response = this.describeRegions(params);
+                    break;
+                case "AssumeRole":
+                    response = this.assumeRole(params);
+                    break;
+                default:
+                    this.respondError(exchange, 404, "InvalidAction.NotFound",
+                            "Specified api is not found, please check your url and method.");
+                    return;
+            }
+            if (response.containsKey("Code")) {
+                this.respondError(exchange, 400, response.getString("Code"), response.getString("Message"));
+                return;
+            }
+            response.put("RequestId", UUID.randomUUID().toString().toUpperCase());
+            this.respond(exchange, 200, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.respondError(exchange, 503, SERVICE_UNAVAILABLE, "simulator is stopping.");
+        } catch (RuntimeException e) {
+            logger.warn("acs simulator error: {}.", e.getMessage(), e);
+            this.respondError(exchange, 500, "InternalError", String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private JSONObject runCommand(String action, Map<String, String> params) {
+        List<String> instanceIds = repeatList(params, "InstanceId");
+        if (instanceIds.isEmpty()) {
+            return error("MissingParameter.InstanceIds", "The parameter InstanceId is required.");
+        }
+        boolean run = "RunCommand".equals(action);
+        if (run && (!params.containsKey("Type") || !params.containsKey("CommandContent"))) {
+            return error("MissingParameter", "The parameters Type and CommandContent are required.");
+        }
+        if (!run && !params.containsKey("CommandId")) {
+            return error("MissingParameter.CommandId", "The parameter CommandId is required.");
+        }
+        String regionId = params.getOrDefault("RegionId", "");
+        String clientToken = params.get("ClientToken");
+        if (clientToken != null) {
+            String invokeId = this.clientTokens.get(clientToken);
+            if (invokeId != null && this.invocations.containsKey(invokeId)) {
+                return invokeResponse(this.invocations.get(invokeId));
+            }
+        }
+        long timeout = parseLong(params.get("Timeout"), 60);
+        long now = System.currentTimeMillis();
+        SimInvocation invocation = new SimInvocation(this.sequence.incrementAndGet(), "t-sim" + randomId(),
+                run ? "c-sim" + randomId() : params.get("CommandId"), regionId, now, timeout);
+        invocation.commandName = params.getOrDefault("Name", "");
+        invocation.commandType = params.getOrDefault("Type", "RunShellScript");
+        invocation.commandContent = params.getOrDefault("CommandContent", "");
+        invocation.repeatMode = params.getOrDefault("RepeatMode", "Once");
+        invocation.clientToken = clientToken;
+        for (String instanceId : instanceIds) {
+            SimInstance instance = new SimInstance(instanceId);
+            instance.startTime = now + this.dispatch.sample();
+            long elapsed = this.duration.sample();
+            if (elapsed > TimeUnit.SECONDS.toMillis(timeout)) {
+                instance.finishTime = instance.startTime + TimeUnit.SECONDS.toMillis(timeout);
+                instance.status = "Failed";
+                instance.exitCode = -1;
+                instance.errorCode = "InvocationTimeout";
+                instance.errorInfo = "the command execution timed out.";
+            } else if (ThreadLocalRandom.current().nextDouble() < this.failureRate) {
+                instance.finishTime = instance.startTime + elapsed;
+                instance.status = "Failed";
+                instance.exitCode = 1;
+                instance.errorCode = "NonZeroExitCode";
+                instance.errorInfo = "the command exited with a non-zero exit code.";
+            } else {
+                instance.finishTime = instance.startTime + elapsed;
+                instance.status = "Success";
+                instance.exitCode = 0;
+            }
+            invocation.finishTime = Math.max(invocation.finishTime, instance.finishTime);
+            invocation.instances.add(instance);
+        }
+        this.invocations.put(invocation.invokeId, invocation);
+        this.regionInvocations.computeIfAbsent(regionId, key -> new ConcurrentSkipListMap<>())
+                .put(-invocation.sequence, invocation);
+        if (clientToken != null) {
+            this.clientTokens.put(clientToken, invocation.invokeId);
+        }
+        return invokeResponse(invocation);
+    }
+
+    private static JSONObject invokeResponse(SimInvocation invocation) {
+        JSONObject response = new JSONObject(true);
+        response.put("CommandId", invocation.commandId);
+        response.put("InvokeId", invocation.invokeId);
+        return response;
+    }
+
+    private JSONObject describeInvocations(Map<String, String> params) {
+        long now = System.currentTimeMillis();
+        boolean includeOutput = Boolean.parseBoolean(params.get("IncludeOutput"));
+        boolean base64 = !"PlainText".equalsIgnoreCase(params.get("ContentEncoding"));
+        long pageNumber = Math.max(1, parseLong(params.get("PageNumber"), 1));
+        long pageSize = Math.min(MAX_PAGE_SIZE, Math.max(1, parseLong(params.get("PageSize"), 10)));
+        List<SimInvocation> page = new ArrayList<>();
+        long totalCount;
+        String invokeId = params.get("InvokeId");
+        if (invokeId != null) {
+            SimInvocation invocation = this.invocations.get(invokeId);
+            totalCount = invocation == null ? 0 : 1;
+            if (invocation != null && pageNumber == 1) {
+                page.add(invocation);
+            }
+        } else {
+            ConcurrentNavigableMap<Long, SimInvocation> region = this.regionInvocations.getOrDefault(
+                    params.getOrDefault("RegionId", ""), new ConcurrentSkipListMap<>());
+            String invokeStatus = params.get("InvokeStatus");
+            long skip = (pageNumber - 1) * pageSize;
+            long matched = 0;
+            for (SimInvocation invocation : region.values()) {
+                if (invokeStatus != null && !invokeStatus.equals(invocation.invokeStatus(now))) {
+                    continue;
+                }
+                if (matched++ >= skip && page.size() < pageSize) {
+                    page.add(invocation);
+                }
+            }
+            totalCount = matched;
+        }
+        JSONArray items = new JSONArray();
+        for (SimInvocation invocation : page) {
+            items.add(invocation.toJson(now, includeOutput, base64));
+        }
+        JSONObject response = new JSONObject(true);
+        response.put("TotalCount", totalCount);
+        response.put("PageNumber", pageNumber);
+        response.put("PageSize", pageSize);
+        response.put("Invocations", wrap("Invocation", items));
+        return response;
+    }
+
+    private JSONObject describeInvocationResults(Map<String, String> params) {
+        long now = System.currentTimeMillis();
+        boolean base64 = !"PlainText".equalsIgnoreCase(params.get("ContentEncoding"));
+        long pageNumber = Math.max(1, parseLong(params.get("PageNumber"), 1));
+        long pageSize = Math.min(MAX_PAGE_SIZE, Math.max(1, parseLong(params.get("PageSize"), 10)));
+        SimInvocation invocation = this.invocations.get(params.getOrDefault("InvokeId", ""));
+        List<SimInstance> instances = new ArrayList<>();
+        if (invocation != null) {
+            String instanceId = params.get("InstanceId");
+            String recordStatus = params.get("InvokeRecordStatus");
+            for (SimInstance instance : invocation.instances) {
+                if ((instanceId == null || instanceId.equals(instance.instanceId))
+                        && (recordStatus == null || recordStatus.equals(instance.recordStatus(now)))) {
+                    instances.add(instance);
+                }
+            }
+        }
+        JSONArray results = new JSONArray();
+        int from = (int) Math.min(instances.size(), (pageNumber - 1) * pageSize);
+        int to = (int) Math.min(instances.size(), from + pageSize);
+        for (SimInstance instance : instances.subList(from, to)) {
+            JSONObject result = new JSONObject(true);
+            result.put("InvokeId", invocation.invokeId);
+            result.put("CommandId", invocation.commandId);
+            result.put("InstanceId", instance.instanceId);
+            result.put("InvocationStatus", instance.status(now));
+            result.put("InvokeRecordStatus", instance.recordStatus(now));
+            result.put("StartTime", now >= instance.startTime ? formatTime(instance.startTime) : "");
+            result.put("FinishedTime", instance.finished(now) ? formatTime(instance.finishTime) : "");
+            result.put("Repeats", 1);
+            if (instance.finished(now)) {
+                result.put("ExitCode", instance.exitCode);
+                result.put("Output", instance.output(base64));
+                result.put("Dropped", 0);
+                result.put("ErrorCode", instance.errorCode);
+                result.put("ErrorInfo", instance.errorInfo);
+            }
+            results.add(result);
+        }
+        JSONObject body = new JSONObject(true);
+        body.put("TotalCount", instances.size());
+        body.put("PageNumber", pageNumber);
+        body.put("PageSize", pageSize);
+        body.put("InvocationResults", wrap("InvocationResult", results));
+        JSONObject response = new JSONObject(true);
+        response.put("Invocation", body);
+        return response;
+    }
+
+    private JSONObject describeCloudAssistantStatus(Map<String, String> params) {
+        List<String> instanceIds = repeatList(params, "InstanceId");
+        long pageNumber = Math.max(1, parseLong(params.get("PageNumber"), 1));
+        long pageSize = Math.min(MAX_PAGE_SIZE, Math.max(1, parseLong(params.get("PageSize"), 10)));
+        long totalCount = instanceIds.isEmpty() ? this.instances : instanceIds.size();
+        if (instanceIds.isEmpty()) {
+            for (long i = (pageNumber - 1) * pageSize; i < Math.min(this.instances, pageNumber * pageSize); i++) {
+                instanceIds.add(instanceId(i));
+            }
+        }
+        String now = formatTime(System.currentTimeMillis());
+        JSONArray items = new JSONArray();
+        for (String instanceId : instanceIds) {
+            JSONObject status = new JSONObject(true);
+            status.put("InstanceId", instanceId);
+            status.put("CloudAssistantStatus", "true");
+            status.put("CloudAssistantVersion", "2.2.3.857");
+            status.put("OSType", "Linux");
+            status.put("InvocationCount", 0);
+            status.put("ActiveTaskCount", 0);
+            status.put("LastHeartbeatTime", now);
+            status.put("SupportSessionManager", true);
+            items.add(status);
+        }
+        JSONObject response = new JSONObject(true);
+        response.put("TotalCount", totalCount);
+        response.put("PageNumber", pageNumber);
+        response.put("PageSize", pageSize);
+        response.put("InstanceCloudAssistantStatusSet", wrap("InstanceCloudAssistantStatus", items));
+        return response;
+    }
+
+    private JSONObject describeInstances(Map<String, String> params) {
+        String regionId = params.getOrDefault("RegionId", "");
+        long pageNumber = Math.max(1, parseLong(params.get("PageNumber"), 1));
+        long pageSize = Math.min(100, Math.max(1, parseLong(params.get("PageSize"), 10)));
+        List<String> instanceIds = new ArrayList<>();
+        long totalCount;
+        if (params.containsKey("InstanceIds")) {
+            for (Object instanceId : JSON.parseArray(params.get("InstanceIds"))) {
+                instanceIds.add(String.valueOf(instanceId));
+            }
+            totalCount = instanceIds.size();
+        } else {
+            for (long i = (pageNumber - 1) * pageSize; i < Math.min(this.instances, pageNumber * pageSize); i++) {
+                instanceIds.add(instanceId(i));
+            }
+            totalCount = this.instances;
+        }
+        JSONArray items = new JSONArray();
+        for (String instanceId : instanceIds) {
+            JSONObject instance = new JSONObject(true);
+            instance.put("InstanceId", instanceId);
+            instance.put("InstanceName", instanceId.replace("i-", "sim-"));
+            instance.put("HostName", instanceId);
+            instance.put("RegionId", regionId);
+            instance.put("ZoneId", regionId + "-a");
+            instance.put("InstanceType", "ecs.g7.large");
+            instance.put("Cpu", 2);
+            instance.put("Memory", 8192);
+            instance.put("Status", "Running");
+            instance.put("OSType", "linux");
+            instance.put("OSName", "Alibaba Cloud Linux 3");
+            instance.put("CreationTime", "2024-01-01T00:00Z");
+            items.add(instance);
+        }
+        JSONObject response = new JSONObject(true);
+        response.put("TotalCount", totalCount);
+        response.put("PageNumber", pageNumber);
+        response.put("PageSize", pageSize);
+        response.put("Instances", wrap("Instance", items));
+        return response;
+    }
+
+    private JSONObject describeRegions(Map<String, String> params) {
+        String regionId = params.getOrDefault("RegionId", "cn-hangzhou");
+        JSONObject region = new JSONObject(true);
+        region.put("RegionId", regionId);
+        region.put("LocalName", regionId);
+        region.put("RegionEndpoint", this.getEndpoint());
+        JSONArray items = new JSONArray();
+        items.add(region);
+        JSONObject response = new JSONObject(true);
+        response.put("Regions", wrap("Region", items));
+        return response;
+    }
+
+    private JSONObject assumeRole(Map<String, String> params) {
+        if (!VERSION_STS.equals(params.get("Version"))) {
+            logger.warn("AssumeRole with unexpected version {}.", params.get("Version"));
+        }
+        long durationSeconds = parseLong(params.get("DurationSeconds"), 3600);
+        String roleArn = params.getOrDefault("RoleArn", "");
+        JSONObject credentials = new JSONObject(true);
+        credentials.put("AccessKeyId", "STS.sim" + randomId());
+        credentials.put("AccessKeySecret", randomId() + randomId());
+        credentials.put("SecurityToken", "sim-" + UUID.randomUUID());
+        credentials.put("Expiration", formatTime(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(durationSeconds)));
+        JSONObject user = new JSONObject(true);
+        user.put("Arn", roleArn + "/" + params.getOrDefault("RoleSessionName", ""));
+        user.put("AssumedRoleId", "3" + randomId() + ":" + params.getOrDefault("RoleSessionName", ""));
+        JSONObject response = new JSONObject(true);
+        response.put("AssumedRoleUser", user);
+        response.put("Credentials", credentials);
+        return response;
+    }
+
+    /**
+     * 清除创建时间超出保留时长的任务
+     */
+    private void purge() {
+        long expired = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(this.retentionMinutes);
+        int purged = 0;
+        for (Iterator<SimInvocation> iterator = this.invocations.values().iterator(); iterator.hasNext(); ) {
+            SimInvocation invocation = iterator.next();
+            if (invocation.creationTime < expired) {
+                iterator.remove();
+                ConcurrentNavigableMap<Long, SimInvocation> region = this.regionInvocations.get(invocation.regionId);
+                if (region != null) {
+                    region.remove(-invocation.sequence);
+                }
+                if (invocation.clientToken != null) {
+                    this.clientTokens.remove(invocation.clientToken, invocation.invokeId);
+                }
+                purged++;
+            }
+        }
+        if (purged > 0) {
+            logger.info("acs simulator purged {} invocations.", purged);
+        }
+    }
+
+    private boolean acquire(String action) {
+        int limit = this.actionQps.getOrDefault(action, this.qps);
+        return limit <= 0 || this.rateWindows.computeIfAbsent(action, key -> new RateWindow()).tryAcquire(limit);
+    }
+
+    private void respond(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toJSONString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void respondError(HttpExchange exchange, int status, String code, String message) throws IOException {
+        JSONObject body = new JSONObject(true);
+        body.put("RequestId", UUID.randomUUID().toString().toUpperCase());
+        body.put("HostId", this.host);
+        body.put("Code", code);
+        body.put("Message", message);
+        this.respond(exchange, status, body);
+    }
+
+    private static JSONObject error(String code, String message) {
+        JSONObject error = new JSONObject(true);
+        error.put("Code", code);
+        error.put("Message", message);
+        return error;
+    }
+
+    /**
+     * 合并 URL 与表单中的参数
+     */
+    private static Map<String, String> parseParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseQuery(exchange.getRequestURI().getRawQuery(), params);
+        String body = StreamUtils.copyToString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+        parseQuery(body, params);
+        return params;
+    }
+
+    private static void parseQuery(String query, Map<String, String> params) throws UnsupportedEncodingException {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                        URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            }
+        }
+    }
+
+    /**
+     * 读取 RepeatList 形式的参数，如：InstanceId.1、InstanceId.2
+     */
+    private static List<String> repeatList(Map<String, String> params, String name) {
+        Map<Integer, String> values = new TreeMap<>();
+        String prefix = name + ".";
+        params.forEach((key, value) -> {
+            if (key.startsWith(prefix)) {
+                try {
+                    values.put(Integer.parseInt(key.substring(prefix.length())), value);
+                } catch (NumberFormatException e) {
+                    // 忽略非 RepeatList 的参数
+                }
+            }
+        });
+        return new ArrayList<>(values.values());
+    }
+
+    private static JSONObject wrap(String name, JSONArray items) {
+        JSONObject wrapper = new JSONObject(true);
+        wrapper.put(name, items);
+        return wrapper;
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        try {
+            return value == null ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String randomId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+    }
+
+    private static String instanceId(long index) {
+        return String.format("i-sim%015d", index);
+    }
+
+    /**
+     * 与 OpenAPI 相同，以秒为精度的 UTC 时间，如：2023-10-01T08:00:00Z
+     */
+    private static String formatTime(long millis) {
+        return Instant.ofEpochMilli(millis).truncatedTo(ChronoUnit.SECONDS).toString();
+    }
+
+    private static class SimInvocation {
+        private final long sequence;
+        private final String invokeId;
+        private final String commandId;
+        private final String regionId;
+        private final long creationTime;
+        private final long timeout;
+        private final List<SimInstance> instances = new ArrayList<>();
+        private final AtomicLong detectTime = new AtomicLong();
+        private long finishTime;
+        private String commandName;
+        private String commandType;
+        private String commandContent;
+        private String repeatMode;
+        private String clientToken;
+
+        private SimInvocation(long sequence, String invokeId, String commandId, String regionId,
+                              long creationTime, long timeout) {
+            this.sequence = sequence;
+            this.invokeId = invokeId;
+            this.commandId = commandId;
+            this.regionId = regionId;
+            this.creationTime = creationTime;
+            this.timeout = timeout;
+        }
+
+        /**
+         * @return - 任务整体的执行状态 InvokeStatus：全部实例等待执行时为 Pending，全部结束时为 Finished，否则为 Running
+         */
+        private String invokeStatus(long now) {
+            int pending = 0;
+            int finished = 0;
+            for (SimInstance instance : this.instances) {
+                if (instance.finished(now)) {
+                    finished++;
+                } else if (now < instance.startTime) {
+                    pending++;
+                }
+            }
+            return finished == this.instances.size() ? "Finished" : pending == this.instances.size() ? "Pending" : "Running";
+        }
+
+        private JSONObject toJson(long now, boolean includeOutput, boolean base64) {
+            int pending = 0;
+            int running = 0;
+            int success = 0;
+            JSONArray items = new JSONArray();
+            for (SimInstance instance : this.instances) {
+                String status = instance.status(now);
+                if ("Pending".equals(status)) {
+                    pending++;
+                } else if ("Running".equals(status)) {
+                    running++;
+                } else if ("Success".equals(status)) {
+                    success++;
+                }
+                JSONObject item = new JSONObject(true);
+                item.put("InstanceId", instance.instanceId);
+                item.put("InvocationStatus", status);
+                item.put("InstanceInvokeStatus", instance.finished(now) ? "Finished" : status);
+                item.put("CreationTime", formatTime(this.creationTime));
+                item.put("UpdateTime", formatTime(Math.min(now, instance.finishTime)));
+                item.put("StartTime", now >= instance.startTime ? formatTime(instance.startTime) : "");
+                item.put("FinishTime", instance.finished(now) ? formatTime(instance.finishTime) : "");
+                item.put("Repeats", 1);
+                item.put("Timed", false);
+                item.put("Dropped", 0);
+                if (instance.finished(now)) {
+                    item.put("ExitCode", instance.exitCode);
+                    item.put("ErrorCode", instance.errorCode);
+                    item.put("ErrorInfo", instance.errorInfo);
+                    item.put("Output", includeOutput ? instance.output(base64) : "");
+                }
+                items.add(item);
+            }
+            String status;
+            int total = this.instances.size();
+            if (pending == total) {
+                status = "Pending";
+            } else if (pending + running > 0) {
+                status = "Running";
+            } else if (success == total) {
+                status = "Success";
+            } else if (success == 0) {
+                status = "Failed";
+            } else {
+                status = "PartialFailed";
+            }
+            if (pending + running == 0) {
+                this.detectTime.compareAndSet(0, now);
+            }
+            JSONObject invocation = new JSONObject(true);
+            invocation.put("InvokeId", this.invokeId);
+            invocation.put("CommandId", this.commandId);
+            invocation.put("CommandName", this.commandName);
+            invocation.put("CommandType", this.commandType);
+            invocation.put("CommandContent", this.commandContent);
+            invocation.put("RepeatMode", this.repeatMode);
+            invocation.put("Timeout", this.timeout);
+            invocation.put("Timed", false);
+            invocation.put("CreationTime", formatTime(this.creationTime));
+            invocation.put("InvocationStatus", status);
+            invocation.put("InvokeStatus", pending + running == 0 ? "Finished" : status);
+            invocation.put("InvokeInstances", wrap("InvokeInstance", items));
+            return invocation;
+        }
+    }
+
+    private static class SimInstance {
+        private final String instanceId;
+        private long startTime;
+        private long finishTime;
+        private String status;
+        private long exitCode;
+        private String errorCode = "";
+        private String errorInfo = "";
+
+        private SimInstance(String instanceId) {
+            this.instanceId = instanceId;
+        }
+
+        private boolean finished(long now) {
+            return now >= this.finishTime;
+        }
+
+        private String status(long now) {
+            return now < this.startTime ? "Pending" : now < this.finishTime ? "Running" : this.status;
+        }
+
+        private String recordStatus(long now) {
+            return this.finished(now) ? "Finished" : "Running";
+        }
+
+        private String output(boolean base64) {
+            String output = "Success".equals(this.status) ? "ok\n" : "simulated failure\n";
+            return base64 ? Base64.getEncoder().encodeToString(output.getBytes(StandardCharsets.UTF_8)) : output;
+        }
+    }
+
+    /**
+     * 每秒一个窗口的请求计数
+     */
+    private static class RateWindow {
+        private long second;
+        private int count;
+
+        private synchronized boolean tryAcquire(int limit) {
+            long now = System.currentTimeMillis() / 1000;
+            if (now != this.second) {
+                this.second = now;
+                this.count = 0;
+            }
+            return ++this.count <= limit;
+        }
+    }
+
+    private static class ActionStats {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    /**
+     * @param threads - 处理请求的线程数，请求的模拟耗时占用线程
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param latency - 各接口默认的请求耗时分布
+     */
+    public void setLatency(String latency) {
+        this.latency = Distribution.parse(latency);
+    }
+
+    /**
+     * @param action  - 接口名称，如：DescribeInvocations
+     * @param latency - 该接口的请求耗时分布
+     */
+    public void setLatency(String action, String latency) {
+        this.actionLatencies.put(action, Distribution.parse(latency));
+    }
+
+    /**
+     * @param qps - 各接口默认的每秒请求数上限，为 0 时不限流
+     */
+    public void setQps(int qps) {
+        this.qps = qps;
+    }
+
+    /**
+     * @param action - 接口名称，如：RunCommand
+     * @param qps    - 该接口的每秒请求数上限
+     */
+    public void setQps(String action, int qps) {
+        this.actionQps.put(action, qps);
+    }
+
+    /**
+     * @param throttleRate - 随机返回限流错误的比例，0 ~ 1
+     */
+    public void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    /**
+     * @param errorRate - 随机返回 ServiceUnavailable 的比例，0 ~ 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * @param dispatch - 命令从创建到在实例上开始执行的时长分布
+     */
+    public void setDispatch(String dispatch) {
+        this.dispatch = Distribution.parse(dispatch);
+    }
+
+    /**
+     * @param duration - 命令在实例上的执行时长分布
+     */
+    public void setDuration(String duration) {
+        this.duration = Distribution.parse(duration);
+    }
+
+    /**
+     * @param failureRate - 命令执行失败(退出码非 0)的比例，0 ~ 1
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * @param instances - DescribeInstances 与 DescribeCloudAssistantStatus 不指定实例时，模拟的实例数
+     */
+    public void setInstances(int instances) {
+        this.instances = instances;
+    }
+
+    public void setRetentionMinutes(long retentionMinutes) {
+        this.retentionMinutes = retentionMinutes;
+    }
+}
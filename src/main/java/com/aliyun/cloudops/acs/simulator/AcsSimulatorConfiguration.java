@@ -0,0 +1,85 @@
+package com.aliyun.cloudops.acs.simulator;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * <pre>
+ * 以 simulator 配置启动应用时(--spring.profiles.active=simulator)，随应用启动本地的 OpenAPI 模拟服务，
+ * 并由 application-simulator.properties 将 AcsClient 指向该服务。各参数的含义见 {@link AcsSimulator}。
+ * </pre>
+ */
+@Configuration
+@Profile("simulator")
+public class AcsSimulatorConfiguration {
+
+    @Value("${acs.simulator.port:18080}")
+    private int port = 18080;
+
+    @Value("${acs.simulator.threads:200}")
+    private int threads = 200;
+
+    @Value("${acs.simulator.latency:uniform:5,20}")
+    private String latency = "uniform:5,20";
+
+    /**
+     * 指定接口的请求耗时分布，如：{DescribeInvocations:'lognormal:30,0.6'}
+     */
+    @Value("#{${acs.simulator.latency.actions:{:}}}")
+    private Map<String, String> actionLatencies = Collections.emptyMap();
+
+    @Value("${acs.simulator.qps:0}")
+    private int qps = 0;
+
+    /**
+     * 指定接口的每秒请求数上限，如：{RunCommand:20,DescribeInvocations:100}
+     */
+    @Value("#{${acs.simulator.qps.actions:{:}}}")
+    private Map<String, Integer> actionQps = Collections.emptyMap();
+
+    @Value("${acs.simulator.throttleRate:0}")
+    private double throttleRate = 0;
+
+    @Value("${acs.simulator.errorRate:0}")
+    private double errorRate = 0;
+
+    @Value("${acs.simulator.dispatch:uniform:200,1000}")
+    private String dispatch = "uniform:200,1000";
+
+    @Value("${acs.simulator.duration:lognormal:5000,0.5}")
+    private String duration = "lognormal:5000,0.5";
+
+    @Value("${acs.simulator.failureRate:0}")
+    private double failureRate = 0;
+
+    @Value("${acs.simulator.instances:1000}")
+    private int instances = 1000;
+
+    @Value("${acs.simulator.retentionMinutes:60}")
+    private long retentionMinutes = 60;
+
+    @Bean(destroyMethod = "stop")
+    public AcsSimulator acsSimulator() throws IOException {
+        AcsSimulator simulator = new AcsSimulator();
+        simulator.setThreads(this.threads);
+        simulator.setLatency(this.latency);
+        this.actionLatencies.forEach(simulator::setLatency);
+        simulator.setQps(this.qps);
+        this.actionQps.forEach(simulator::setQps);
+        simulator.setThrottleRate(this.throttleRate);
+        simulator.setErrorRate(this.errorRate);
+        simulator.setDispatch(this.dispatch);
+        simulator.setDuration(this.duration);
+        simulator.setFailureRate(this.failureRate);
+        simulator.setInstances(this.instances);
+        simulator.setRetentionMinutes(this.retentionMinutes);
+        simulator.start(this.port);
+        return simulator;
+    }
+}
@@ -0,0 +1,93 @@
+package com.aliyun.cloudops.acs.simulator;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <pre>
+ * 模拟服务使用的时长分布，以毫秒为单位，以字符串描述：
+ * constant:20          - 固定为 20，也可直接写作 20
+ * uniform:5,50         - 在 [5, 50) 内均匀分布
+ * exponential:30       - 均值为 30 的指数分布
+ * lognormal:20,0.5     - 中位数为 20、sigma 为 0.5 的对数正态分布，接近真实服务的长尾耗时
+ * </pre>
+ */
+public final class Distribution {
+
+    private enum Type {
+        CONSTANT, UNIFORM, EXPONENTIAL, LOGNORMAL
+    }
+
+    private final Type type;
+
+    private final double first;
+
+    private final double second;
+
+    private final String spec;
+
+    private Distribution(Type type, double first, double second, String spec) {
+        this.type = type;
+        this.first = first;
+        this.second = second;
+        this.spec = spec;
+    }
+
+    /**
+     * @param spec - 分布的描述，格式见类说明
+     * @throws IllegalArgumentException - 无法解析的描述
+     */
+    public static Distribution parse(String spec) {
+        String text = spec == null ? "" : spec.trim();
+        int colon = text.indexOf(':');
+        String name = colon < 0 ? "constant" : text.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+        String[] args = (colon < 0 ? text : text.substring(colon + 1)).split(",");
+        try {
+            switch (name) {
+                case "constant":
+                    return new Distribution(Type.CONSTANT, Double.parseDouble(args[0].trim()), 0, text);
+                case "uniform":
+                    return new Distribution(Type.UNIFORM, Double.parseDouble(args[0].trim()),
+                            Double.parseDouble(args[1].trim()), text);
+                case "exponential":
+                    return new Distribution(Type.EXPONENTIAL, Double.parseDouble(args[0].trim()), 0, text);
+                case "lognormal":
+                    return new Distribution(Type.LOGNORMAL, Double.parseDouble(args[0].trim()),
+                            Double.parseDouble(args[1].trim()), text);
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid distribution: " + spec, e);
+        }
+        throw new IllegalArgumentException("invalid distribution: " + spec);
+    }
+
+    /**
+     * @return - 一次采样的时长，不小于 0
+     */
+    public long sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double value;
+        switch (this.type) {
+            case UNIFORM:
+                value = this.first >= this.second ? this.first : random.nextDouble(this.first, this.second);
+                break;
+            case EXPONENTIAL:
+                value = -this.first * Math.log(1 - random.nextDouble());
+                break;
+            case LOGNORMAL:
+                value = this.first * Math.exp(this.second * random.nextGaussian());
+                break;
+            default:
+                value = this.first;
+                break;
+        }
+        return Math.max(0, Math.round(value));
+    }
+
+    @Override
+    public String toString() {
+        return this.spec;
+    }
+}
@@ -2,19 +2,18 @@ package com.aliyun.cloudops.acs.swas.controller;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.alibaba.fastjson.JSON;
 import com.aliyun.cloudops.acs.AcsController;
 import com.aliyuncs.ecs.model.v20140526.DescribeInstancesRequest;
 import com.aliyuncs.ecs.model.v20140526.DescribeInstancesResponse;
 import com.aliyuncs.ecs.model.v20140526.DescribeRegionsResponse;
-import com.aliyuncs.exceptions.ClientException;
 import com.aliyuncs.swas_open.model.v20200601.DescribeCloudAssistantStatusRequest;
 import com.aliyuncs.swas_open.model.v20200601.DescribeCloudAssistantStatusResponse;
 import com.aliyuncs.swas_open.model.v20200601.ListInstancesRequest;
 import com.aliyuncs.swas_open.model.v20200601.ListInstancesResponse;
 import com.aliyuncs.swas_open.model.v20200601.ListRegionsRequest;
-import com.aliyuncs.swas_open.model.v20200601.ListRegionsResponse;
 import com.aliyuncs.swas_open.model.v20200601.ListRegionsResponse.Region;
 import com.aliyuncs.swas_open.model.v20200601.StartTerminalSessionRequest;
 import com.aliyuncs.swas_open.model.v20200601.StartTerminalSessionResponse;
@@ -32,15 +31,16 @@ import org.springframework.web.bind.annotation.RestController;
 public class InstanceController extends AcsController {
 
     @GetMapping("/regions")
-    public ResponseEntity<RegionsResponse> getRegions() throws ClientException {
+    public CompletableFuture<ResponseEntity<RegionsResponse>> getRegions() {
         String current = this.acsClient.getRegionId();
         ListRegionsRequest request = new ListRegionsRequest();
         request.setSysRegionId(current);
-        request.setSysEndpoint(String.format("swas.%s.aliyuncs.com", current));
-        ListRegionsResponse response = this.acsClient.sendRequest(request);
-        List<Region> regions = response.getRegions();
-        RegionsResponse result = new RegionsResponse(current, regions);
-        return new ResponseEntity<>(result, HttpStatus.OK);
+        request.setSysEndpoint(getEndpoint(current));
+        return this.acsClient.sendRequestAsync(request).thenApply(response -> {
+            List<Region> regions = response.getRegions();
+            RegionsResponse result = new RegionsResponse(current, regions);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        });
     }
 
     public static class RegionsResponse {
@@ -62,53 +62,53 @@ public class InstanceController extends AcsController {
     }
 
     @GetMapping("/regions/{regionId}/instances")
-    public ResponseEntity<ListInstancesResponse> getInstances(
+    public CompletableFuture<ResponseEntity<ListInstancesResponse>> getInstances(
             @PathVariable(name = "regionId") String regionId,
             @RequestParam(name = "pageSize", defaultValue = "20") int pageSize,
             @RequestParam(name = "pageIndex", defaultValue = "1") int pageIndex
-    ) throws ClientException {
+    ) {
         if ("default".equals(regionId)) {
             regionId = this.acsClient.getRegionId();
         }
         ListInstancesRequest request = new ListInstancesRequest();
-        request.setSysEndpoint(String.format("swas.%s.aliyuncs.com", regionId));
+        request.setSysEndpoint(getEndpoint(regionId));
         request.setSysRegionId(regionId);
         request.setPageSize(pageSize);
         request.setPageNumber(pageIndex);
-        ListInstancesResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
     }
 
     @GetMapping("/regions/{regionId}/assistants")
-    public ResponseEntity<DescribeCloudAssistantStatusResponse> getCloudAssistants(
+    public CompletableFuture<ResponseEntity<DescribeCloudAssistantStatusResponse>> getCloudAssistants(
             @PathVariable(name = "regionId") String regionId,
             @RequestParam(name = "instanceId") String[] instanceIds
-    ) throws ClientException {
+    ) {
         if ("default".equals(regionId)) {
             regionId = this.acsClient.getRegionId();
         }
         DescribeCloudAssistantStatusRequest request = new DescribeCloudAssistantStatusRequest();
-        request.setSysEndpoint(String.format("swas.%s.aliyuncs.com", regionId));
+        request.setSysEndpoint(getEndpoint(regionId));
         request.setSysRegionId(regionId);
         request.setInstanceIds(Arrays.asList(instanceIds));
-        DescribeCloudAssistantStatusResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
     }
 
     @GetMapping("/regions/{regionId}/instances/{instanceId}")
-    public ResponseEntity<ListInstancesResponse> getInstance(
+    public CompletableFuture<ResponseEntity<ListInstancesResponse>> getInstance(
             @PathVariable(name = "regionId") String regionId,
             @PathVariable(name = "instanceId") String instanceId
-    ) throws ClientException {
+    ) {
         if ("default".equals(regionId)) {
             regionId = this.acsClient.getRegionId();
         }
         ListInstancesRequest request = new ListInstancesRequest();
-        request.setSysEndpoint(String.format("swas.%s.aliyuncs.com", regionId));
+        request.setSysEndpoint(getEndpoint(regionId));
         request.setSysRegionId(regionId);
         request.setInstanceIds(JSON.toJSONString(new String[]{instanceId}));
-        ListInstancesResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
     }
 
     /**
@@ -121,19 +121,25 @@ public class InstanceController extends AcsController {
      * @param instanceId -
      * @param portNumber -
      * @return
-     * @throws com.aliyuncs.exceptions.ClientException
      */
     @PutMapping("/sessions/{regionId}/instances/{instanceId}")
-    public ResponseEntity<StartTerminalSessionResponse> startSession(
+    public CompletableFuture<ResponseEntity<StartTerminalSessionResponse>> startSession(
             @PathVariable("regionId") String regionId,
             @PathVariable("instanceId") String instanceId,
             @RequestParam(name = "portNumber", required = false) Integer portNumber
-    ) throws ClientException {
+    ) {
         StartTerminalSessionRequest request = new StartTerminalSessionRequest();
-        request.setSysEndpoint(String.format("swas.%s.aliyuncs.com", regionId));
+        request.setSysEndpoint(getEndpoint(regionId));
         request.setSysRegionId(regionId);
         request.setInstanceId(instanceId);
-        StartTerminalSessionResponse response = this.acsClient.sendRequest(request);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return this.acsClient.sendRequestAsync(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.OK));
+    }
+
+    /**
+     * 轻量应用服务器各地域的服务地址
+     */
+    private static String getEndpoint(String regionId) {
+        return String.format("swas.%s.aliyuncs.com", regionId);
     }
 }
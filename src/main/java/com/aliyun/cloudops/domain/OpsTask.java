@@ -19,6 +19,8 @@ import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.RepeatMode;
         name = "ops_task",
         indexes = {
                 @Index(name = "idx_invoke_id", columnList = "invoke_id"),
+                @Index(name = "idx_task_creation_time", columnList = "creation_time"),
+                @Index(name = "idx_task_status_lease", columnList = "status,lease_expiry"),
         }
 )
 public class OpsTask {
@@ -58,9 +60,51 @@ public class OpsTask {
     @Column(name = "status")
     private InvocationStatus status;
 
+    /**
+     * 轮询该任务的实例，只在创建时写入，之后由租约的续期与接管更新
+     */
+    @Column(name = "owner", updatable = false)
+    private String owner;
+
+    /**
+     * 轮询租约的到期时间，只在创建时写入，之后由租约的续期与接管更新
+     */
+    @Column(name = "lease_expiry", updatable = false)
+    private Date leaseExpiry;
+
     @Column(name = "instances", updatable = false)
     private int instances;
 
+    /**
+     * 等待调度与调度中(Pending、Scheduled)的实例数
+     */
+    @Column(name = "pending_count")
+    private int pendingCount;
+
+    /**
+     * 运行中与停止中(Running、Stopping)的实例数
+     */
+    @Column(name = "running_count")
+    private int runningCount;
+
+    /**
+     * 执行成功的实例数
+     */
+    @Column(name = "success_count")
+    private int successCount;
+
+    /**
+     * 执行失败(Failed、PartialFailed)的实例数
+     */
+    @Column(name = "failed_count")
+    private int failedCount;
+
+    /**
+     * 已停止的实例数
+     */
+    @Column(name = "stopped_count")
+    private int stoppedCount;
+
     @Column(name = "creation_time", updatable = false)
     private Date creationTime;
 
@@ -147,6 +191,46 @@ public class OpsTask {
         this.instances = instances;
     }
 
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    public void setPendingCount(int pendingCount) {
+        this.pendingCount = pendingCount;
+    }
+
+    public int getRunningCount() {
+        return runningCount;
+    }
+
+    public void setRunningCount(int runningCount) {
+        this.runningCount = runningCount;
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public void setSuccessCount(int successCount) {
+        this.successCount = successCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public int getStoppedCount() {
+        return stoppedCount;
+    }
+
+    public void setStoppedCount(int stoppedCount) {
+        this.stoppedCount = stoppedCount;
+    }
+
     public InvocationStatus getStatus() {
         return status;
     }
@@ -155,6 +239,22 @@ public class OpsTask {
         this.status = status;
     }
 
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Date getLeaseExpiry() {
+        return leaseExpiry;
+    }
+
+    public void setLeaseExpiry(Date leaseExpiry) {
+        this.leaseExpiry = leaseExpiry;
+    }
+
     public Date getCreationTime() {
         return creationTime;
     }
@@ -170,4 +270,36 @@ public class OpsTask {
     public void setFinishTime(Date finishTime) {
         this.finishTime = finishTime;
     }
+
+    /**
+     * @return - 当前状态的副本，之后对该对象的修改不影响副本
+     */
+    public OpsTask copy() {
+        OpsTask task = new OpsTask();
+        task.id = this.id;
+        task.regionId = this.regionId;
+        task.taskName = this.taskName;
+        task.commandText = this.commandText;
+        task.parameters = this.parameters;
+        task.timeout = this.timeout;
+        task.commandType = this.commandType;
+        task.repeatMode = this.repeatMode;
+        task.invokeId = this.invokeId;
+        task.status = this.status;
+        task.owner = this.owner;
+        task.leaseExpiry = copyOf(this.leaseExpiry);
+        task.instances = this.instances;
+        task.pendingCount = this.pendingCount;
+        task.runningCount = this.runningCount;
+        task.successCount = this.successCount;
+        task.failedCount = this.failedCount;
+        task.stoppedCount = this.stoppedCount;
+        task.creationTime = copyOf(this.creationTime);
+        task.finishTime = copyOf(this.finishTime);
+        return task;
+    }
+
+    private static Date copyOf(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
 }
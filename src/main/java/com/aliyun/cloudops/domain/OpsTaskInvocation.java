@@ -0,0 +1,156 @@
+package com.aliyun.cloudops.domain;
+
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+
+/**
+ * 一个运维任务拆分后的各批次云助手调用。实例数超出 RunCommand 单次请求的上限时，
+ * 一个运维任务({@link OpsTask})对应多个云助手调用，每个调用有独立的 InvokeId。
+ */
+@Entity()
+@Table(
+        name = "ops_task_invocation",
+        indexes = {
+                @Index(name = "idx_task_invoke_id", columnList = "task_invoke_id"),
+        }
+)
+public class OpsTaskInvocation {
+
+    @Id
+    @Column(name = "id", updatable = false)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "region_id", updatable = false)
+    private String regionId;
+
+    /**
+     * 所属运维任务的 InvokeId
+     */
+    @Column(name = "task_invoke_id", updatable = false)
+    private String taskInvokeId;
+
+    /**
+     * 该批次的云助手 InvokeId，提交失败时为空
+     */
+    @Column(name = "invoke_id", updatable = false)
+    private String invokeId;
+
+    @Column(name = "instances", updatable = false)
+    private int instances;
+
+    @Enumerated()
+    @Column(name = "status")
+    private InvocationStatus status;
+
+    @Column(name = "err_code")
+    private String errorCode;
+
+    @Column(name = "creation_time", updatable = false)
+    private Date creationTime;
+
+    @Column(name = "finish_time")
+    private Date finishTime;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getRegionId() {
+        return regionId;
+    }
+
+    public void setRegionId(String regionId) {
+        this.regionId = regionId;
+    }
+
+    public String getTaskInvokeId() {
+        return taskInvokeId;
+    }
+
+    public void setTaskInvokeId(String taskInvokeId) {
+        this.taskInvokeId = taskInvokeId;
+    }
+
+    public String getInvokeId() {
+        return invokeId;
+    }
+
+    public void setInvokeId(String invokeId) {
+        this.invokeId = invokeId;
+    }
+
+    public int getInstances() {
+        return instances;
+    }
+
+    public void setInstances(int instances) {
+        this.instances = instances;
+    }
+
+    public InvocationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(InvocationStatus status) {
+        this.status = status;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public Date getCreationTime() {
+        return creationTime;
+    }
+
+    public void setCreationTime(Date creationTime) {
+        this.creationTime = creationTime;
+    }
+
+    public Date getFinishTime() {
+        return finishTime;
+    }
+
+    public void setFinishTime(Date finishTime) {
+        this.finishTime = finishTime;
+    }
+
+    /**
+     * @return - 当前状态的副本，之后对该对象的修改不影响副本
+     */
+    public OpsTaskInvocation copy() {
+        OpsTaskInvocation invocation = new OpsTaskInvocation();
+        invocation.id = this.id;
+        invocation.regionId = this.regionId;
+        invocation.taskInvokeId = this.taskInvokeId;
+        invocation.invokeId = this.invokeId;
+        invocation.instances = this.instances;
+        invocation.status = this.status;
+        invocation.errorCode = this.errorCode;
+        invocation.creationTime = copyOf(this.creationTime);
+        invocation.finishTime = copyOf(this.finishTime);
+        return invocation;
+    }
+
+    private static Date copyOf(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+}
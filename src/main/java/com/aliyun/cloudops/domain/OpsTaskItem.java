@@ -9,6 +9,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
 import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
 
@@ -16,8 +17,10 @@ import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
 @Table(
         name = "ops_task_item",
         indexes = {
-                @Index(name = "idx_invoke_id", columnList = "invoke_id"),
+                @Index(name = "idx_item_invoke_instance", columnList = "invoke_id, instance_id"),
                 @Index(name = "idx_instance_id", columnList = "instance_id"),
+                @Index(name = "idx_item_invoke_digest", columnList = "invoke_id, output_digest"),
+                @Index(name = "idx_item_creation_time", columnList = "creation_time"),
         }
 )
 public class OpsTaskItem {
@@ -42,9 +45,24 @@ public class OpsTaskItem {
     @Column(name = "exit_code")
     private Long exitCode;
 
-    @Column(name = "output")
+    /**
+     * 命令的执行结果，压缩后按内容单独保存在 ops_output_content 表中，需要时通过 TaskService.findTaskOutput 读取
+     */
+    @Transient
     private String output;
 
+    /**
+     * 执行结果的字节数
+     */
+    @Column(name = "output_size")
+    private int outputSize;
+
+    /**
+     * 执行结果的 SHA-256，执行结果为空时为 null
+     */
+    @Column(name = "output_digest")
+    private String outputDigest;
+
     @Column(name = "dropped")
     private int dropped;
 
@@ -119,6 +137,22 @@ public class OpsTaskItem {
         this.output = output;
     }
 
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    public void setOutputSize(int outputSize) {
+        this.outputSize = outputSize;
+    }
+
+    public String getOutputDigest() {
+        return outputDigest;
+    }
+
+    public void setOutputDigest(String outputDigest) {
+        this.outputDigest = outputDigest;
+    }
+
     public int getDropped() {
         return dropped;
     }
@@ -166,4 +200,31 @@ public class OpsTaskItem {
     public void setFinishTime(Date finishTime) {
         this.finishTime = finishTime;
     }
+
+    /**
+     * @return - 当前状态的副本，之后对该对象的修改不影响副本
+     */
+    public OpsTaskItem copy() {
+        OpsTaskItem item = new OpsTaskItem();
+        item.id = this.id;
+        item.regionId = this.regionId;
+        item.invokeId = this.invokeId;
+        item.instanceId = this.instanceId;
+        item.status = this.status;
+        item.exitCode = this.exitCode;
+        item.output = this.output;
+        item.outputSize = this.outputSize;
+        item.outputDigest = this.outputDigest;
+        item.dropped = this.dropped;
+        item.errorCode = this.errorCode;
+        item.errorInfo = this.errorInfo;
+        item.creationTime = copyOf(this.creationTime);
+        item.updateTime = copyOf(this.updateTime);
+        item.finishTime = copyOf(this.finishTime);
+        return item;
+    }
+
+    private static Date copyOf(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
 }
@@ -0,0 +1,60 @@
+package com.aliyun.cloudops.domain;
+
+import java.util.Date;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+
+/**
+ * 任务历史的导出条件，为 null 的条件不参与过滤
+ */
+public class TaskExportQuery {
+
+    public enum Format {
+        NDJSON,     // 每行一个 JSON 对象
+        CSV         // 首行为列名
+    }
+
+    private final Format format;
+
+    /**
+     * 创建时间的下限(含)
+     */
+    private final Date from;
+
+    /**
+     * 创建时间的上限(不含)
+     */
+    private final Date to;
+
+    private final String regionId;
+
+    private final InvocationStatus status;
+
+    public TaskExportQuery(Format format, Date from, Date to, String regionId, InvocationStatus status) {
+        this.format = format;
+        this.from = from;
+        this.to = to;
+        this.regionId = regionId;
+        this.status = status;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public String getRegionId() {
+        return regionId;
+    }
+
+    public InvocationStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,98 @@
+package com.aliyun.cloudops.domain;
+
+import java.util.Date;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+
+/**
+ * 任务明细的摘要，不含命令的执行结果，用于任务明细的列表
+ */
+public class TaskItemSummary {
+
+    private final long id;
+
+    private final String instanceId;
+
+    private final InvocationStatus status;
+
+    private final Long exitCode;
+
+    private final int outputSize;
+
+    private final String outputDigest;
+
+    private final int dropped;
+
+    private final String errorCode;
+
+    private final String errorInfo;
+
+    private final Date creationTime;
+
+    private final Date finishTime;
+
+    public TaskItemSummary(long id, String instanceId, InvocationStatus status, Long exitCode, int outputSize,
+                           String outputDigest, int dropped, String errorCode, String errorInfo,
+                           Date creationTime, Date finishTime) {
+        this.id = id;
+        this.instanceId = instanceId;
+        this.status = status;
+        this.exitCode = exitCode;
+        this.outputSize = outputSize;
+        this.outputDigest = outputDigest;
+        this.dropped = dropped;
+        this.errorCode = errorCode;
+        this.errorInfo = errorInfo;
+        this.creationTime = creationTime;
+        this.finishTime = finishTime;
+    }
+
+    public TaskItemSummary(OpsTaskItem item) {
+        this(item.getId(), item.getInstanceId(), item.getStatus(), item.getExitCode(), item.getOutputSize(), item.getOutputDigest(),
+                item.getDropped(), item.getErrorCode(), item.getErrorInfo(), item.getCreationTime(), item.getFinishTime());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public InvocationStatus getStatus() {
+        return status;
+    }
+
+    public Long getExitCode() {
+        return exitCode;
+    }
+
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    public String getOutputDigest() {
+        return outputDigest;
+    }
+
+    public int getDropped() {
+        return dropped;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public String getErrorInfo() {
+        return errorInfo;
+    }
+
+    public Date getCreationTime() {
+        return creationTime;
+    }
+
+    public Date getFinishTime() {
+        return finishTime;
+    }
+}
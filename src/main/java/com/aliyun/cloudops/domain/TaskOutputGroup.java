@@ -0,0 +1,41 @@
+package com.aliyun.cloudops.domain;
+
+/**
+ * 一个运维任务中执行结果相同的实例分组
+ */
+public class TaskOutputGroup {
+
+    /**
+     * 执行结果的 SHA-256，没有执行结果的实例为 null
+     */
+    private final String digest;
+
+    private final long instances;
+
+    private final int size;
+
+    private final String output;
+
+    public TaskOutputGroup(String digest, long instances, int size, String output) {
+        this.digest = digest;
+        this.instances = instances;
+        this.size = size;
+        this.output = output;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public long getInstances() {
+        return instances;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+}
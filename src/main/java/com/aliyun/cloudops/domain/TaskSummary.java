@@ -0,0 +1,84 @@
+package com.aliyun.cloudops.domain;
+
+import java.util.Date;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+
+/**
+ * 任务的执行进度，只含状态与各状态的实例数，用于轮询任务进度
+ */
+public class TaskSummary {
+
+    private final String invokeId;
+
+    private final InvocationStatus status;
+
+    private final int instances;
+
+    private final int pendingCount;
+
+    private final int runningCount;
+
+    private final int successCount;
+
+    private final int failedCount;
+
+    private final int stoppedCount;
+
+    private final Date creationTime;
+
+    private final Date finishTime;
+
+    public TaskSummary(OpsTask task) {
+        this.invokeId = task.getInvokeId();
+        this.status = task.getStatus();
+        this.instances = task.getInstances();
+        this.pendingCount = task.getPendingCount();
+        this.runningCount = task.getRunningCount();
+        this.successCount = task.getSuccessCount();
+        this.failedCount = task.getFailedCount();
+        this.stoppedCount = task.getStoppedCount();
+        this.creationTime = task.getCreationTime();
+        this.finishTime = task.getFinishTime();
+    }
+
+    public String getInvokeId() {
+        return invokeId;
+    }
+
+    public InvocationStatus getStatus() {
+        return status;
+    }
+
+    public int getInstances() {
+        return instances;
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    public int getRunningCount() {
+        return runningCount;
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public int getStoppedCount() {
+        return stoppedCount;
+    }
+
+    public Date getCreationTime() {
+        return creationTime;
+    }
+
+    public Date getFinishTime() {
+        return finishTime;
+    }
+}
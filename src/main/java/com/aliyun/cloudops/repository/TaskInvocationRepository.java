@@ -0,0 +1,12 @@
+package com.aliyun.cloudops.repository;
+
+import java.util.List;
+
+import com.aliyun.cloudops.domain.OpsTaskInvocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TaskInvocationRepository extends JpaRepository<OpsTaskInvocation, Long> {
+
+    List<OpsTaskInvocation> findByTaskInvokeId(String taskInvokeId);
+
+}
@@ -1,13 +1,39 @@
 package com.aliyun.cloudops.repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
 import com.aliyun.cloudops.domain.OpsTaskItem;
+import com.aliyun.cloudops.domain.TaskItemSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TaskItemRepository extends JpaRepository<OpsTaskItem, Long> {
 
-    List<OpsTaskItem> findByInvokeId(String invokeId);
+    List<OpsTaskItem> findByInvokeIdAndCreationTimeGreaterThanEqual(String invokeId, Date since);
 
-    OpsTaskItem findByInvokeIdAndInstanceId(String invokeId, String instanceId);
+    OpsTaskItem findByInvokeIdAndInstanceIdAndCreationTimeGreaterThanEqual(String invokeId, String instanceId,
+                                                                           Date since);
+
+    List<OpsTaskItem> findByInvokeIdAndInstanceIdInAndStatusIn(String invokeId, Collection<String> instanceIds,
+                                                               Collection<InvocationStatus> statuses);
+
+    List<OpsTaskItem> findByInvokeIdAndInstanceIdInAndStatusInAndCreationTimeGreaterThanEqual(
+            String invokeId, Collection<String> instanceIds, Collection<InvocationStatus> statuses, Date since);
+
+    @Query("select new com.aliyun.cloudops.domain.TaskItemSummary(i.id, i.instanceId, i.status, i.exitCode, i.outputSize,"
+            + " i.outputDigest, i.dropped, i.errorCode, i.errorInfo, i.creationTime, i.finishTime)"
+            + " from OpsTaskItem i where i.invokeId = :invokeId and i.creationTime >= :since order by i.id")
+    List<TaskItemSummary> findSummaryByInvokeId(@Param("invokeId") String invokeId, @Param("since") Date since);
+
+    @Query("select new com.aliyun.cloudops.domain.TaskItemSummary(i.id, i.instanceId, i.status, i.exitCode, i.outputSize,"
+            + " i.outputDigest, i.dropped, i.errorCode, i.errorInfo, i.creationTime, i.finishTime)"
+            + " from OpsTaskItem i where i.invokeId = :invokeId and i.creationTime >= :since and i.id > :after"
+            + " order by i.id")
+    List<TaskItemSummary> findSummaryByInvokeIdAfter(@Param("invokeId") String invokeId, @Param("since") Date since,
+                                                     @Param("after") long after, Pageable pageable);
 }
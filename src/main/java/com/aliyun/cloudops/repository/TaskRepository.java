@@ -1,10 +1,23 @@
 package com.aliyun.cloudops.repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
 import com.aliyun.cloudops.domain.OpsTask;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface TaskRepository extends JpaRepository<OpsTask, Long> {
 
     OpsTask findByInvokeId(String invokeId);
 
+    List<OpsTask> findByOrderByIdDesc(Pageable pageable);
+
+    List<OpsTask> findByIdLessThanOrderByIdDesc(long id, Pageable pageable);
+
+    List<OpsTask> findByStatusInAndCreationTimeGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+            Collection<InvocationStatus> statuses, Date since, long id, Pageable pageable);
+
 }
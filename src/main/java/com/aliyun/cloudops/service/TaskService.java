@@ -1,23 +1,141 @@
 package com.aliyun.cloudops.service;
 
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import com.aliyun.cloudops.domain.OpsTask;
+import com.aliyun.cloudops.domain.OpsTaskInvocation;
 import com.aliyun.cloudops.domain.OpsTaskItem;
+import com.aliyun.cloudops.domain.TaskExportQuery;
+import com.aliyun.cloudops.domain.TaskItemSummary;
+import com.aliyun.cloudops.domain.TaskOutputGroup;
 import org.springframework.data.domain.Page;
 
 public interface TaskService {
 
     void saveTask(OpsTask opsTask, List<OpsTaskItem> items);
 
+    void saveTask(OpsTask opsTask, List<OpsTaskItem> items, List<OpsTaskInvocation> invocations);
+
+    void updateTask(OpsTask opsTask);
+
+    void saveTaskInvocation(OpsTaskInvocation invocation);
+
     void saveTaskItem(OpsTaskItem taskItem);
 
+    void updateTaskItems(List<OpsTaskItem> taskItems);
+
     Page<OpsTask> findTasks(int pageSize, int pageNumber);
 
+    /**
+     * 按主键从大到小的游标分页，不统计总数
+     *
+     * @param after - 上一页最后一个任务的主键，为 null 时从第一页开始
+     * @param limit - 最多返回的任务数
+     */
+    List<OpsTask> findTasksAfter(Long after, int limit);
+
+    /**
+     * @return - 任务总数的近似值，在一段时间内使用缓存的统计结果
+     */
+    long countTasks();
+
+    /**
+     * 未结束的任务，按主键从小到大的游标分页，用于启动时恢复任务的轮询
+     *
+     * @param since - 只查询该时间之后创建的任务
+     * @param after - 上一页最后一个任务的主键，从第一页开始时为 0
+     * @param limit - 最多返回的任务数
+     */
+    List<OpsTask> findUnfinishedTasks(Date since, long after, int limit);
+
+    /**
+     * 接管租约已过期(或从未分配)的未结束任务，同时接管同一任务的多个实例中只有一个能成功
+     *
+     * @param owner  - 接管的实例
+     * @param since  - 只接管该时间之后创建的任务
+     * @param expiry - 新租约的到期时间
+     * @param own    - 为 true 时取回 owner 相同的任务(实例重启后)，否则接管租约已过期的任务
+     * @param after  - 只接管主键大于该值的任务，用于分页
+     * @param limit  - 最多接管的任务数
+     * @return - 接管成功的任务，按主键从小到大
+     */
+    List<OpsTask> claimTasks(String owner, Date since, Date expiry, boolean own, long after, int limit);
+
+    /**
+     * 为实例正在轮询的未结束任务续期
+     *
+     * @param owner     - 持有租约的实例
+     * @param invokeIds - 正在轮询的任务的 InvokeId
+     * @param expiry    - 新租约的到期时间
+     * @return - 续期后仍由该实例持有的任务的 InvokeId
+     */
+    Set<String> renewTaskLeases(String owner, Set<String> invokeIds, Date expiry);
+
+    /**
+     * 释放实例持有、但已不再轮询的未结束任务(如恢复轮询失败、轮询时未查询到任务)的租约，由其他实例或之后的接管重新轮询
+     *
+     * @param owner   - 持有租约的实例
+     * @param polling - 正在轮询的任务的 InvokeId，不释放
+     * @param before  - 只释放该时间之前创建的任务，避免释放刚创建、尚未开始轮询的任务
+     * @return - 释放的任务的 InvokeId
+     */
+    Set<String> releaseTaskLeases(String owner, Set<String> polling, Date before);
+
+    /**
+     * 丢弃尚未写入数据库的任务状态更新，用于任务的租约已被其他实例接管时，避免旧的状态覆盖接管后的状态
+     */
+    void discardTaskUpdates(String invokeId);
+
     OpsTask findTask(String invokeId);
 
     List<OpsTaskItem> findTaskItems(String invokeId);
 
     OpsTaskItem findTaskItem(String invokeId, String instanceId);
 
+    List<TaskItemSummary> findTaskItemSummaries(String invokeId);
+
+    /**
+     * 按主键从小到大的游标分页
+     *
+     * @param after - 上一页最后一个任务明细的主键，为 null 时从第一页开始
+     * @param limit - 最多返回的任务明细数
+     */
+    List<TaskItemSummary> findTaskItemSummariesAfter(String invokeId, Long after, int limit);
+
+    /**
+     * @return - 任务明细的执行结果，任务明细不存在时返回 null
+     */
+    String findTaskOutput(String invokeId, String instanceId);
+
+    /**
+     * @return - 执行结果相同的实例分组，按实例数从多到少，最多 limit 组
+     */
+    List<TaskOutputGroup> findTaskOutputGroups(String invokeId, int limit);
+
+    /**
+     * @param instanceIds - 只查询这些实例的任务明细，如某一批次中新结束的实例
+     * @param since       - 任务明细创建时间的下限，分区存储时只查询该时间之后的分区；为 null 时不限制
+     */
+    List<OpsTaskItem> findUnfinishedTaskItems(String invokeId, Collection<String> instanceIds, Date since);
+
+    List<OpsTaskInvocation> findTaskInvocations(String taskInvokeId);
+
+    /**
+     * 以流的方式导出任务，逐行写入 writer，内存占用与行数无关
+     *
+     * @return - 导出的行数
+     */
+    long exportTasks(TaskExportQuery query, Writer writer);
+
+    /**
+     * 以流的方式导出任务明细，逐行写入 writer，内存占用与行数无关
+     *
+     * @return - 导出的行数
+     */
+    long exportTaskItems(TaskExportQuery query, Writer writer);
+
 }
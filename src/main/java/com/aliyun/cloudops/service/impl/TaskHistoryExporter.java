@@ -0,0 +1,203 @@
+package com.aliyun.cloudops.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.CommandType;
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.RepeatMode;
+import com.aliyun.cloudops.domain.TaskExportQuery;
+import com.aliyun.cloudops.domain.TaskExportQuery.Format;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * <pre>
+ * 任务历史的流式导出：使用只进的 JDBC 游标，按 fetchSize 分批从数据库读取，逐行写入输出，
+ * 内存占用与导出的行数无关。只导出已写入数据库的数据，不含写缓冲中尚未写入的状态，也不含执行结果的内容。
+ * </pre>
+ */
+@Component
+class TaskHistoryExporter {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 游标每次从数据库读取的行数
+     */
+    @Value("${com.aliyun.cloudops.task.export.fetchSize:1000}")
+    private int fetchSize = 1000;
+
+    private static final String[] TASK_COLUMNS = {"id", "region_id", "task_name", "invoke_id", "command_type",
+            "repeat_mode", "command_text", "parameters", "timeout", "instances", "pending_count", "running_count",
+            "success_count", "failed_count", "stopped_count", "status", "creation_time", "finish_time"};
+
+    private static final String[] ITEM_COLUMNS = {"id", "region_id", "invoke_id", "instance_id", "status", "exit_code",
+            "output_size", "output_digest", "dropped", "err_code", "err_info", "creation_time", "update_time", "finish_time"};
+
+    /**
+     * 以序号保存的枚举列，导出时转换为名称
+     */
+    private static final Map<String, Enum<?>[]> ENUM_COLUMNS = new HashMap<>();
+
+    static {
+        ENUM_COLUMNS.put("status", InvocationStatus.values());
+        ENUM_COLUMNS.put("command_type", CommandType.values());
+        ENUM_COLUMNS.put("repeat_mode", RepeatMode.values());
+    }
+
+    /**
+     * @return - 导出的行数
+     */
+    long exportTasks(TaskExportQuery query, Writer writer) {
+        return this.export("ops_task", TASK_COLUMNS, query, writer);
+    }
+
+    /**
+     * @return - 导出的行数
+     */
+    long exportTaskItems(TaskExportQuery query, Writer writer) {
+        return this.export("ops_task_item", ITEM_COLUMNS, query, writer);
+    }
+
+    /**
+     * 以 NDJSON 导出 ops_task_item 的一个分区，用于归档
+     *
+     * @return - 导出的行数
+     */
+    long exportTaskItemPartition(String partition, Writer writer) {
+        TaskExportQuery query = new TaskExportQuery(Format.NDJSON, null, null, null, null);
+        return this.export("ops_task_item PARTITION (`" + partition + "`)", ITEM_COLUMNS, query, writer);
+    }
+
+    private long export(String table, String[] columns, TaskExportQuery query, Writer writer) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", columns))
+                .append(" FROM ").append(table).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (query.getFrom() != null) {
+            sql.append(" AND creation_time >= ?");
+            args.add(new Timestamp(query.getFrom().getTime()));
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND creation_time < ?");
+            args.add(new Timestamp(query.getTo().getTime()));
+        }
+        if (query.getRegionId() != null) {
+            sql.append(" AND region_id = ?");
+            args.add(query.getRegionId());
+        }
+        if (query.getStatus() != null) {
+            sql.append(" AND status = ?");
+            args.add(query.getStatus().ordinal());
+        }
+        sql.append(" ORDER BY id");
+
+        RowWriter rowWriter = new RowWriter(writer, columns, query.getFormat());
+        rowWriter.writeHeader();
+        this.jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(this.fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rowWriter::writeRow);
+        rowWriter.flush();
+        return rowWriter.rows;
+    }
+
+    private static class RowWriter {
+        private final Writer writer;
+        private final String[] columns;
+        private final Format format;
+        private long rows;
+
+        private RowWriter(Writer writer, String[] columns, Format format) {
+            this.writer = writer;
+            this.columns = columns;
+            this.format = format;
+        }
+
+        private void writeHeader() {
+            if (this.format == Format.CSV) {
+                this.write(String.join(",", this.columns));
+            }
+        }
+
+        private void writeRow(ResultSet rs) throws SQLException {
+            if (this.format == Format.CSV) {
+                StringBuilder line = new StringBuilder();
+                for (int i = 0; i < this.columns.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    Object value = valueOf(this.columns[i], rs.getObject(i + 1));
+                    if (value != null) {
+                        line.append(escapeCsv(value.toString()));
+                    }
+                }
+                this.write(line.toString());
+            } else {
+                JSONObject json = new JSONObject(true);
+                for (int i = 0; i < this.columns.length; i++) {
+                    json.put(this.columns[i], valueOf(this.columns[i], rs.getObject(i + 1)));
+                }
+                this.write(JSON.toJSONString(json, SerializerFeature.WriteMapNullValue));
+            }
+            this.rows++;
+        }
+
+        private void write(String line) {
+            try {
+                this.writer.write(line);
+                this.writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flush() {
+            try {
+                this.writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static Object valueOf(String column, Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toInstant().toString();
+        }
+        Enum<?>[] constants = ENUM_COLUMNS.get(column);
+        if (constants != null && value instanceof Number) {
+            int ordinal = ((Number) value).intValue();
+            return ordinal >= 0 && ordinal < constants.length ? constants[ordinal].name() : value;
+        }
+        return value;
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,195 @@
+package com.aliyun.cloudops.service.impl;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * <pre>
+ * 轮询任务的租约：多个实例共用数据库时，每个未结束的任务由 ops_task.owner 指定的实例轮询，
+ * 租约到期前由该实例续期，到期未续期(实例已停止或失去响应)的任务可被其他实例接管。
+ * 1. 接管时以条件更新(租约已过期)写入新的 owner，同时接管同一任务的多个实例中只有一个能更新成功；
+ * 2. MariaDB 10.6+ 与 MySQL 8+ 上以 SELECT ... FOR UPDATE SKIP LOCKED 选取待接管的任务，
+ *    同时接管的实例各自取得不同的任务，不互相等待；其他数据库只使用条件更新。
+ * 租约的时间使用各实例的本地时钟，各实例的时钟偏差应远小于租约时长。
+ * </pre>
+ */
+@Component
+class TaskLeaseStore {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private boolean skipLocked;
+
+    private static final String SELECT_EXPIRED = "SELECT id FROM ops_task WHERE status IN (%s) AND creation_time >= ?"
+            + " AND id > ? AND (lease_expiry IS NULL OR lease_expiry < ?) ORDER BY id LIMIT ?";
+
+    private static final String CLAIM_EXPIRED = "UPDATE ops_task SET owner = ?, lease_expiry = ?"
+            + " WHERE id = ? AND (lease_expiry IS NULL OR lease_expiry < ?)";
+
+    private static final String SELECT_OWNED_IDS = "SELECT id FROM ops_task WHERE status IN (%s) AND creation_time >= ?"
+            + " AND id > ? AND owner = ? ORDER BY id LIMIT ?";
+
+    private static final String CLAIM_OWNED = "UPDATE ops_task SET owner = ?, lease_expiry = ? WHERE id = ? AND owner = ?";
+
+    private static final String RENEW = "UPDATE ops_task SET lease_expiry = ?"
+            + " WHERE invoke_id = ? AND owner = ? AND status IN (%s)";
+
+    private static final String SELECT_OWNED = "SELECT invoke_id FROM ops_task WHERE owner = ? AND status IN (%s)"
+            + " AND creation_time < ?";
+
+    private static final String RELEASE = "UPDATE ops_task SET lease_expiry = NULL WHERE invoke_id = ? AND owner = ?";
+
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * 未结束的状态的序号，以序号保存的 status 列可直接写入 SQL
+     */
+    private static final String UNFINISHED = Arrays.stream(InvocationStatus.values())
+            .filter(status -> !status.isFinished())
+            .map(status -> String.valueOf(status.ordinal()))
+            .collect(Collectors.joining(", "));
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskLeaseStore.class);
+
+    @PostConstruct
+    public void init() {
+        this.skipLocked = Boolean.TRUE.equals(this.jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData metaData = con.getMetaData();
+            String product = metaData.getDatabaseProductName();
+            String version = metaData.getDatabaseProductVersion();
+            if (product == null || version == null) {
+                return false;
+            }
+            if (product.contains("MariaDB") || version.contains("MariaDB")) {
+                return compareVersion(version, 10, 6) >= 0;
+            }
+            return product.contains("MySQL") && compareVersion(version, 8, 0) >= 0;
+        }));
+        logger.info("task lease skip locked: {}.", this.skipLocked);
+    }
+
+    /**
+     * 接管租约已过期(或从未分配)的未结束任务；或者取回 owner 相同的任务，用于实例重启后立即恢复自己的任务
+     *
+     * @param owner  - 接管的实例
+     * @param since  - 只接管该时间之后创建的任务
+     * @param expiry - 新租约的到期时间
+     * @param own    - 为 true 时取回 owner 相同的任务，否则接管租约已过期的任务
+     * @param after  - 只接管主键大于该值的任务
+     * @param limit  - 最多接管的任务数
+     * @return - 接管成功的任务主键
+     */
+    List<Long> claim(String owner, Date since, Date expiry, boolean own, long after, int limit) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        String sql = String.format(own ? SELECT_OWNED_IDS : SELECT_EXPIRED, UNFINISHED)
+                + (this.skipLocked ? " FOR UPDATE SKIP LOCKED" : "");
+        List<Long> claimed = this.transactionTemplate.execute(status -> {
+            List<Long> ids = own
+                    ? this.jdbcTemplate.queryForList(sql, Long.class, new Timestamp(since.getTime()), after, owner, limit)
+                    : this.jdbcTemplate.queryForList(sql, Long.class, new Timestamp(since.getTime()), after, now, limit);
+            if (ids.isEmpty()) {
+                return new ArrayList<Long>();
+            }
+            int[][] counts = this.jdbcTemplate.batchUpdate(own ? CLAIM_OWNED : CLAIM_EXPIRED, ids, ids.size(),
+                    (ps, id) -> {
+                        ps.setString(1, owner);
+                        ps.setTimestamp(2, new Timestamp(expiry.getTime()));
+                        ps.setLong(3, id);
+                        if (own) {
+                            ps.setString(4, owner);
+                        } else {
+                            ps.setTimestamp(4, now);
+                        }
+                    });
+            List<Long> result = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                // 驱动未返回行数时(SUCCESS_NO_INFO)视为成功，SKIP LOCKED 已保证这些行未被其他实例选取
+                if (counts[0][i] != 0) {
+                    result.add(ids.get(i));
+                }
+            }
+            return result;
+        });
+        return claimed == null ? new ArrayList<>() : claimed;
+    }
+
+    /**
+     * 为实例正在轮询的未结束任务续期，只更新指定的任务，不为已不再轮询的任务续期
+     *
+     * @return - 续期后仍由该实例持有的任务的 InvokeId
+     */
+    Set<String> renew(String owner, Set<String> invokeIds, Date expiry) {
+        List<String> ids = new ArrayList<>(invokeIds);
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        int[][] counts = this.jdbcTemplate.batchUpdate(String.format(RENEW, UNFINISHED), ids, BATCH_SIZE,
+                (ps, invokeId) -> {
+                    ps.setTimestamp(1, new Timestamp(expiry.getTime()));
+                    ps.setString(2, invokeId);
+                    ps.setString(3, owner);
+                });
+        Set<String> renewed = new HashSet<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // 驱动未返回行数时(SUCCESS_NO_INFO)视为续期成功，由下一次续期确认
+                if (count != 0) {
+                    renewed.add(ids.get(index));
+                }
+                index++;
+            }
+        }
+        return renewed;
+    }
+
+    /**
+     * 释放实例持有、但不在 polling 中的未结束任务的租约，释放后可被任意实例接管
+     *
+     * @param before - 只释放该时间之前创建的任务
+     * @return - 释放的任务的 InvokeId
+     */
+    Set<String> release(String owner, Set<String> polling, Date before) {
+        List<String> ids = this.jdbcTemplate.queryForList(String.format(SELECT_OWNED, UNFINISHED), String.class,
+                owner, new Timestamp(before.getTime()));
+        ids.removeAll(polling);
+        if (!ids.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(RELEASE, ids, BATCH_SIZE, (ps, invokeId) -> {
+                ps.setString(1, invokeId);
+                ps.setString(2, owner);
+            });
+        }
+        return new HashSet<>(ids);
+    }
+
+    /**
+     * 比较 "10.6.12-MariaDB"、"5.5.5-10.6.12-MariaDB"、"8.0.34" 形式的版本号的主、次版本
+     */
+    private static int compareVersion(String version, int major, int minor) {
+        String[] parts = version.replaceFirst("^5\\.5\\.5-", "").replaceAll("^[^0-9]*", "").split("[^0-9]+");
+        int actualMajor = parts.length > 0 && !parts[0].isEmpty() ? Integer.parseInt(parts[0]) : 0;
+        int actualMinor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+        return actualMajor != major ? Integer.compare(actualMajor, major) : Integer.compare(actualMinor, minor);
+    }
+}
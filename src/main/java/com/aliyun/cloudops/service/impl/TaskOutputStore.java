@@ -0,0 +1,187 @@
+package com.aliyun.cloudops.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant;
+import com.aliyun.cloudops.domain.OpsTaskItem;
+import com.aliyun.cloudops.domain.TaskOutputGroup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+/**
+ * <pre>
+ * 任务明细的执行结果存储。执行结果按内容寻址：以 SHA-256 为键、使用 gzip 压缩后保存在 ops_output_content 表中，
+ * 相同的执行结果只保存一份，任务明细通过 output_digest 引用。查询任务明细时不读取执行结果，只在需要时读取。
+ * 早期的执行结果保存在 ops_task_output 与 ops_task_item.output 中，读取时依次作为后备。
+ * 不再被引用的执行结果由 {@link TaskRetentionJob} 按 creation_time 回收；再次引用较早保存的执行结果时将刷新其 creation_time，
+ * 使正在写入的任务明细所引用的执行结果不会被回收。
+ * </pre>
+ */
+@Component
+class TaskOutputStore {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String INSERT_CONTENT = "INSERT INTO ops_output_content (digest, size, content) VALUES (?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE size = VALUES(size), creation_time = CURRENT_TIMESTAMP";
+
+    /**
+     * 只将刷新时间以内保存的执行结果视为已存在，更早的执行结果重新写入以刷新 creation_time
+     */
+    private static final String SELECT_DIGESTS = "SELECT digest FROM ops_output_content WHERE digest IN (%s)"
+            + " AND creation_time >= ?";
+
+    /**
+     * 执行结果的刷新时间，应小于 {@link TaskRetentionJob} 回收执行结果的保留时间
+     */
+    static final long TOUCH_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String SELECT_CONTENT = "SELECT content FROM ops_output_content WHERE digest = ?";
+
+    private static final String SELECT_ITEM_OUTPUT = "SELECT content FROM ops_task_output WHERE item_id = ?";
+
+    private static final String SELECT_LEGACY_OUTPUT = "SELECT output FROM ops_task_item WHERE id = ?";
+
+    /**
+     * 按执行结果分组统计实例数，在一次聚合查询中同时取得各组的执行结果
+     */
+    private static final String SELECT_GROUPS = "SELECT g.digest, g.instances, c.size, c.content FROM"
+            + " (SELECT output_digest AS digest, COUNT(*) AS instances FROM ops_task_item"
+            + " WHERE invoke_id = ? AND creation_time >= ? GROUP BY output_digest) g"
+            + " LEFT JOIN ops_output_content c ON c.digest = g.digest"
+            + " ORDER BY g.instances DESC LIMIT ?";
+
+    /**
+     * 计算任务明细的执行结果的大小与摘要，并保存数据库中尚不存在的执行结果。
+     * 执行结果为 null 的明细保持原有的大小与摘要不变。
+     *
+     * @param items     - 已存在的任务明细
+     * @param batchSize - 每批的行数
+     */
+    void save(List<OpsTaskItem> items, int batchSize) {
+        Map<String, String> contents = new LinkedHashMap<>();
+        for (OpsTaskItem item : items) {
+            String output = item.getOutput();
+            if (output == null) {
+                continue;
+            }
+            item.setOutputSize(sizeOf(output));
+            item.setOutputDigest(output.isEmpty() ? null : digest(output));
+            if (item.getOutputDigest() != null) {
+                contents.putIfAbsent(item.getOutputDigest(), output);
+            }
+        }
+        if (contents.isEmpty()) {
+            return;
+        }
+        List<String> digests = new ArrayList<>(contents.keySet());
+        Set<String> existing = new HashSet<>();
+        Timestamp touched = new Timestamp(System.currentTimeMillis() - TOUCH_MILLIS);
+        for (List<String> chunk : CloudAssistant.partition(digests, batchSize)) {
+            String sql = String.format(SELECT_DIGESTS, String.join(",", Collections.nCopies(chunk.size(), "?")));
+            List<Object> args = new ArrayList<>(chunk);
+            args.add(touched);
+            existing.addAll(this.jdbcTemplate.queryForList(sql, String.class, args.toArray()));
+        }
+        List<Map.Entry<String, String>> missing = new ArrayList<>();
+        contents.entrySet().stream().filter(entry -> !existing.contains(entry.getKey())).forEach(missing::add);
+        if (missing.isEmpty()) {
+            return;
+        }
+        this.jdbcTemplate.batchUpdate(INSERT_CONTENT, missing, batchSize, (ps, entry) -> {
+            ps.setString(1, entry.getKey());
+            ps.setInt(2, sizeOf(entry.getValue()));
+            ps.setBytes(3, compress(entry.getValue()));
+        });
+    }
+
+    /**
+     * @return - 任务明细的执行结果，不存在时返回空字符串
+     */
+    String find(OpsTaskItem item) {
+        if (item.getOutputDigest() != null) {
+            List<byte[]> contents = this.jdbcTemplate.queryForList(SELECT_CONTENT, byte[].class, item.getOutputDigest());
+            return contents.isEmpty() ? "" : decompress(contents.get(0));
+        }
+        List<byte[]> contents = this.jdbcTemplate.queryForList(SELECT_ITEM_OUTPUT, byte[].class, item.getId());
+        if (!contents.isEmpty()) {
+            return decompress(contents.get(0));
+        }
+        try {
+            return this.jdbcTemplate.queryForObject(SELECT_LEGACY_OUTPUT, String.class, item.getId());
+        } catch (EmptyResultDataAccessException e) {
+            return "";
+        }
+    }
+
+    /**
+     * @param invokeId - 运维任务的 InvokeId
+     * @param limit    - 最多返回的分组数，按实例数从多到少
+     * @return - 执行结果相同的实例分组，尚无执行结果(及早期保存)的实例归为摘要为 null 的一组
+     */
+    List<TaskOutputGroup> findGroups(String invokeId, Date since, int limit) {
+        return this.jdbcTemplate.query(SELECT_GROUPS, (rs, rowNum) -> {
+            byte[] content = rs.getBytes("content");
+            return new TaskOutputGroup(rs.getString("digest"), rs.getLong("instances"), rs.getInt("size"),
+                    content == null ? null : decompress(content));
+        }, invokeId, since, limit);
+    }
+
+    static int sizeOf(String output) {
+        return output == null ? 0 : output.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    static String digest(String output) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(output.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static byte[] compress(String output) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(output.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static String decompress(byte[] content) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return new String(StreamUtils.copyToByteArray(gzip), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.aliyun.cloudops.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * <pre>
+ * ops_task_item 的数据保留(云助手的执行记录只保存4周，本地数据库是长期的存储)：
+ * 1. ops_task_item 在 MariaDB/MySQL 上按 creation_time 每月一个分区，迁移时已创建之后 12 个月的分区(见 db/vendor/mariadb)，
+ *    后台任务从空的 p_max 中拆分出之后月份的分区，p_max 中已有数据时不拆分，避免在运行时移动数据；
+ * 2. 全部数据超出保留时间的分区，先以 gzip 压缩的 NDJSON 归档到本地目录(可关闭)，再整个删除，不逐行 DELETE；
+ * 3. 回收已删除的任务明细的早期执行结果(ops_task_output)，以及超出保留时间、且不再被引用的执行结果(ops_output_content)。
+ * 默认关闭；数据库不支持分区或 ops_task_item 未分区时不执行。
+ * </pre>
+ */
+@Component
+class TaskRetentionJob {
+
+    @Value("${com.aliyun.cloudops.task.retention.enabled:false}")
+    private boolean enabled = false;
+
+    /**
+     * 任务明细的保留时间，以天为单位
+     */
+    @Value("${com.aliyun.cloudops.task.retention.days:180}")
+    private int retentionDays = 180;
+
+    /**
+     * 删除分区前是否归档
+     */
+    @Value("${com.aliyun.cloudops.task.retention.archive:true}")
+    private boolean archive = true;
+
+    /**
+     * 归档文件的目录
+     */
+    @Value("${com.aliyun.cloudops.task.retention.archiveDir:archive}")
+    private String archiveDir = "archive";
+
+    /**
+     * 预先创建之后几个月的分区
+     */
+    @Value("${com.aliyun.cloudops.task.retention.monthsAhead:2}")
+    private int monthsAhead = 2;
+
+    /**
+     * 执行的间隔，以小时为单位
+     */
+    @Value("${com.aliyun.cloudops.task.retention.intervalHours:6}")
+    private long intervalHours = 6;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TaskHistoryExporter taskHistoryExporter;
+
+    private ScheduledExecutorService executor;
+
+    private static final String TABLE = "ops_task_item";
+
+    private static final String MAX_PARTITION = "p_max";
+
+    /**
+     * 保留时间的下限，须大于 {@link TaskOutputStore#TOUCH_MILLIS}
+     */
+    private static final int MIN_RETENTION_DAYS = 7;
+
+    private static final int CONTENT_DELETE_BATCH = 1000;
+
+    private static final Pattern MONTH_PARTITION = Pattern.compile("p\\d{6}");
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String SELECT_MAX_PARTITION_ROW = "SELECT 1 FROM " + TABLE + " PARTITION (" + MAX_PARTITION
+            + ") LIMIT 1";
+
+    private static final String SELECT_PARTITIONS = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION"
+            + " FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?"
+            + " AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private static final String DELETE_ITEM_OUTPUTS = "DELETE FROM ops_task_output"
+            + " WHERE item_id < (SELECT COALESCE(MIN(id), 0) FROM ops_task_item)";
+
+    private static final String DELETE_CONTENTS = "DELETE FROM ops_output_content WHERE creation_time < ?"
+            + " AND NOT EXISTS (SELECT 1 FROM ops_task_item i WHERE i.output_digest = ops_output_content.digest)"
+            + " LIMIT " + CONTENT_DELETE_BATCH;
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskRetentionJob.class);
+
+    @PostConstruct
+    public void init() {
+        if (!this.enabled) {
+            return;
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::run, 1, TimeUnit.HOURS.toMinutes(this.intervalHours),
+                TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    void run() {
+        try {
+            List<Partition> partitions = this.findPartitions();
+            if (partitions.isEmpty()) {
+                logger.warn("{} is not partitioned, task retention skipped.", TABLE);
+                return;
+            }
+            this.createPartitions(partitions);
+            LocalDate cutoff = LocalDate.now().minusDays(Math.max(this.retentionDays, MIN_RETENTION_DAYS));
+            for (Partition partition : partitions) {
+                // 分区按顺序排列，遇到未过期的分区即可结束
+                if (partition.upperBound == null || partition.upperBound.isAfter(cutoff)) {
+                    break;
+                }
+                this.expirePartition(partition);
+            }
+            int outputs = this.jdbcTemplate.update(DELETE_ITEM_OUTPUTS);
+            long contents = this.deleteContents(cutoff);
+            logger.info("task retention finished, cutoff: {}, outputs deleted: {}, contents deleted: {}.",
+                    cutoff, outputs, contents);
+        } catch (Exception e) {
+            logger.error("task retention failed, error: {}.", e.getMessage(), e);
+        }
+    }
+
+    private List<Partition> findPartitions() {
+        String product = this.jdbcTemplate.execute((ConnectionCallback<String>) con ->
+                con.getMetaData().getDatabaseProductName());
+        List<Partition> partitions = new ArrayList<>();
+        if (product == null || !(product.contains("MariaDB") || product.contains("MySQL"))) {
+            return partitions;
+        }
+        this.jdbcTemplate.query(SELECT_PARTITIONS, rs -> {
+            partitions.add(new Partition(rs.getString(1), rs.getString(2)));
+        }, TABLE);
+        return partitions;
+    }
+
+    /**
+     * 从 p_max 中拆分出之后几个月的分区。p_max 不为空时，拆分需要移动其中的全部数据，因此不拆分，由运维人员处理
+     */
+    private void createPartitions(List<Partition> partitions) {
+        Partition last = partitions.get(partitions.size() - 1);
+        if (!MAX_PARTITION.equals(last.name)) {
+            logger.warn("the last partition of {} is {}, expected {}.", TABLE, last.name, MAX_PARTITION);
+            return;
+        }
+        LocalDate created = partitions.size() > 1 ? partitions.get(partitions.size() - 2).upperBound : null;
+        YearMonth month = created != null ? YearMonth.from(created) : YearMonth.now();
+        YearMonth until = YearMonth.now().plusMonths(this.monthsAhead);
+        List<String> definitions = new ArrayList<>();
+        for (; !month.isAfter(until); month = month.plusMonths(1)) {
+            definitions.add(String.format("PARTITION `%s` VALUES LESS THAN ('%s')",
+                    month.format(PARTITION_NAME), month.plusMonths(1).atDay(1)));
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+        if (!this.jdbcTemplate.queryForList(SELECT_MAX_PARTITION_ROW).isEmpty()) {
+            logger.warn("partition {} of {} is not empty, skip creating {} partitions.", MAX_PARTITION, TABLE,
+                    definitions.size());
+            return;
+        }
+        definitions.add(String.format("PARTITION `%s` VALUES LESS THAN (MAXVALUE)", MAX_PARTITION));
+        this.jdbcTemplate.execute(String.format("ALTER TABLE `%s` REORGANIZE PARTITION `%s` INTO (%s)",
+                TABLE, MAX_PARTITION, String.join(", ", definitions)));
+        logger.info("create {} partitions of {}.", definitions.size() - 1, TABLE);
+    }
+
+    private void expirePartition(Partition partition) throws IOException {
+        if (!MONTH_PARTITION.matcher(partition.name).matches()) {
+            logger.warn("skip unexpected partition {} of {}.", partition.name, TABLE);
+            return;
+        }
+        if (this.archive) {
+            File dir = new File(this.archiveDir);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("can not create archive dir: " + dir.getAbsolutePath());
+            }
+            File file = new File(dir, TABLE + "-" + partition.name + ".ndjson.gz");
+            File temp = new File(dir, file.getName() + ".tmp");
+            long rows;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(new FileOutputStream(temp), 65536), StandardCharsets.UTF_8))) {
+                rows = this.taskHistoryExporter.exportTaskItemPartition(partition.name, writer);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp.toPath());
+                throw e;
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            logger.info("archive partition {} of {}, rows: {}, file: {}.", partition.name, TABLE, rows,
+                    file.getAbsolutePath());
+        }
+        this.jdbcTemplate.execute(String.format("ALTER TABLE `%s` DROP PARTITION `%s`", TABLE, partition.name));
+        logger.info("drop partition {} of {}.", partition.name, TABLE);
+    }
+
+    /**
+     * 分批删除超出保留时间、且不再被任务明细引用的执行结果
+     */
+    private long deleteContents(LocalDate cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff.atStartOfDay());
+        long deleted = 0;
+        int count;
+        do {
+            count = this.jdbcTemplate.update(DELETE_CONTENTS, before);
+            deleted += count;
+        } while (count == CONTENT_DELETE_BATCH);
+        return deleted;
+    }
+
+    private static class Partition {
+        private final String name;
+        /**
+         * 分区中 creation_time 的上限(不含)，p_max 为 null
+         */
+        private final LocalDate upperBound;
+
+        private Partition(String name, String description) {
+            this.name = name;
+            String bound = description == null ? "" : description.replace("'", "").trim();
+            this.upperBound = bound.length() >= 10 && !"MAXVALUE".equalsIgnoreCase(bound)
+                    ? LocalDate.parse(bound.substring(0, 10)) : null;
+        }
+    }
+}
@@ -1,18 +1,49 @@
 package com.aliyun.cloudops.service.impl;
 
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
 import com.aliyun.cloudops.domain.OpsTask;
+import com.aliyun.cloudops.domain.OpsTaskInvocation;
 import com.aliyun.cloudops.domain.OpsTaskItem;
+import com.aliyun.cloudops.domain.TaskExportQuery;
+import com.aliyun.cloudops.domain.TaskItemSummary;
+import com.aliyun.cloudops.domain.TaskOutputGroup;
+import com.aliyun.cloudops.repository.TaskInvocationRepository;
 import com.aliyun.cloudops.repository.TaskItemRepository;
 import com.aliyun.cloudops.repository.TaskRepository;
 import com.aliyun.cloudops.service.TaskService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class TaskServiceImpl implements TaskService {
@@ -23,40 +54,546 @@ public class TaskServiceImpl implements TaskService {
     @Autowired
     private TaskItemRepository taskItemRepository;
 
+    @Autowired
+    private TaskInvocationRepository taskInvocationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskOutputStore taskOutputStore;
+
+    @Autowired
+    private TaskHistoryExporter taskHistoryExporter;
+
+    @Autowired
+    private TaskLeaseStore taskLeaseStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 批量插入、更新任务明细时，每批的行数
+     */
+    @Value("${com.aliyun.cloudops.task.insertBatchSize:500}")
+    private int insertBatchSize = 500;
+
+    /**
+     * 是否异步批量写入轮询得到的任务状态，见 {@link TaskWriteBuffer}
+     */
+    @Value("${com.aliyun.cloudops.task.writeBehind.enabled:true}")
+    private boolean writeBehind = true;
+
+    /**
+     * 异步写入时，待写入数据的数量上限，超出后写入方阻塞等待
+     */
+    @Value("${com.aliyun.cloudops.task.writeBehind.capacity:10000}")
+    private int writeBehindCapacity = 10000;
+
+    /**
+     * 异步写入时，待写入数量达到该值立即写入
+     */
+    @Value("${com.aliyun.cloudops.task.writeBehind.flushSize:500}")
+    private int writeBehindFlushSize = 500;
+
+    /**
+     * 异步写入时，两次写入的最长间隔，以毫秒为单位
+     */
+    @Value("${com.aliyun.cloudops.task.writeBehind.flushMillis:200}")
+    private long writeBehindFlushMillis = 200;
+
+    /**
+     * 任务总数的缓存时间，以秒为单位，见 {@link #countTasks()}
+     */
+    @Value("${com.aliyun.cloudops.task.countCacheSeconds:30}")
+    private long countCacheSeconds = 30;
+
+    private TaskWriteBuffer writeBuffer;
+
+    /**
+     * 各数据库操作的耗时，启动时注册一次，见 {@link #persistenceTimer(String)}
+     */
+    private Timer saveTaskTimer;
+    private Timer updateTaskItemsTimer;
+    private Timer claimTasksTimer;
+    private Timer findUnfinishedTaskItemsTimer;
+    private Timer flushTimer;
+
+    private volatile long taskCount = -1;
+
+    private volatile long taskCountTime;
+
+    /**
+     * 任务明细使用自增主键，Hibernate 无法对其批量插入，因此新建的明细直接使用 JDBC 批量插入。
+     * 执行结果按内容保存在 ops_output_content 表中，明细只引用其摘要，见 {@link TaskOutputStore}
+     */
+    private static final String INSERT_TASK_ITEM = "INSERT INTO ops_task_item (region_id, invoke_id, instance_id,"
+            + " status, exit_code, output_size, output_digest, dropped, err_code, err_info,"
+            + " creation_time, update_time, finish_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_TASK_ITEM = "UPDATE ops_task_item SET status = ?, exit_code = ?, output_size = ?,"
+            + " output_digest = ?, dropped = ?, err_code = ?, err_info = ?, update_time = ?, finish_time = ?"
+            + " WHERE id = ? AND creation_time >= ?"; // 以创建时间限定分区，见 itemsSince
+
+    /**
+     * 任务明细的创建时间早于任务的创建时间，见 {@link #itemsSince(String)}
+     */
+    private static final long ITEMS_SINCE_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int GROUP_QUERY_ATTEMPTS = 3;
+
+    private static final long GROUP_QUERY_WAIT_MILLIS = 1000;
+
+    private static final Set<InvocationStatus> UNFINISHED = EnumSet.noneOf(InvocationStatus.class);
+
+    static {
+        for (InvocationStatus status : InvocationStatus.values()) {
+            if (!status.isFinished()) {
+                UNFINISHED.add(status);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        this.saveTaskTimer = this.persistenceTimer("saveTask");
+        this.updateTaskItemsTimer = this.persistenceTimer("updateTaskItems");
+        this.claimTasksTimer = this.persistenceTimer("claimTasks");
+        this.findUnfinishedTaskItemsTimer = this.persistenceTimer("findUnfinishedTaskItems");
+        this.flushTimer = this.persistenceTimer("flush");
+        if (this.writeBehind) {
+            this.writeBuffer = new TaskWriteBuffer(this.writeBehindCapacity, this.writeBehindFlushSize,
+                    this.writeBehindFlushMillis, this::write);
+            Gauge.builder("task.write.buffer.size", this.writeBuffer, TaskWriteBuffer::size)
+                    .description("task updates waiting to be written")
+                    .register(this.meterRegistry);
+            FunctionCounter.builder("task.write.dropped", this.writeBuffer, TaskWriteBuffer::getDropped)
+                    .description("task updates dropped after repeated write failures")
+                    .register(this.meterRegistry);
+        }
+    }
+
+    /**
+     * 记录数据库操作的耗时 task.persistence，operation 标签区分操作；异步写入时，updateTaskItems 只包含写入缓冲(及等待缓冲)的耗时，
+     * 批量写入数据库的耗时见 operation=flush
+     */
+    private Timer persistenceTimer(String operation) {
+        return Timer.builder("task.persistence")
+                .tag("operation", operation)
+                .description("task persistence latency")
+                .register(this.meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (this.writeBuffer != null) {
+            this.writeBuffer.shutdown();
+        }
+    }
+
     @Override
     public void saveTask(OpsTask opsTask, List<OpsTaskItem> items) {
-        this.taskRepository.saveAndFlush(opsTask);
-        for (OpsTaskItem item : items) {
-            this.taskItemRepository.saveAndFlush(item);
+        this.saveTask(opsTask, items, Collections.emptyList());
+    }
+
+    /**
+     * 在同一个事务中保存运维任务、各批次调用与任务明细。
+     * 注意：新建的任务明细通过 JDBC 批量插入，插入后不回填其主键。
+     */
+    @Override
+    public void saveTask(OpsTask opsTask, List<OpsTaskItem> items, List<OpsTaskInvocation> invocations) {
+        this.saveTaskTimer.record(() -> this.transactionTemplate.executeWithoutResult(status -> {
+            this.taskRepository.save(opsTask);
+            this.taskInvocationRepository.saveAll(invocations);
+
+            List<OpsTaskItem> created = new ArrayList<>();
+            List<OpsTaskItem> updated = new ArrayList<>();
+            for (OpsTaskItem item : items) {
+                (item.getId() == 0 ? created : updated).add(item);
+            }
+            this.batchUpdateTaskItems(updated);
+            this.insertTaskItems(created);
+        }));
+    }
+
+    @Override
+    public void updateTask(OpsTask opsTask) {
+        if (this.writeBuffer != null) {
+            this.writeBuffer.putTask(opsTask);
+        } else {
+            this.taskRepository.saveAndFlush(opsTask);
+        }
+    }
+
+    @Override
+    public void saveTaskInvocation(OpsTaskInvocation invocation) {
+        if (this.writeBuffer != null && invocation.getId() != 0) {
+            this.writeBuffer.putInvocation(invocation);
+        } else {
+            this.taskInvocationRepository.saveAndFlush(invocation);
         }
     }
 
     @Override
     public void saveTaskItem(OpsTaskItem taskItem) {
-        this.taskItemRepository.saveAndFlush(taskItem);
+        if (taskItem.getId() != 0) {
+            this.updateTaskItems(Collections.singletonList(taskItem));
+            return;
+        }
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.taskOutputStore.save(Collections.singletonList(taskItem), this.insertBatchSize);
+            this.taskItemRepository.saveAndFlush(taskItem);
+        });
+    }
+
+    /**
+     * 更新已存在的任务明细的执行结果
+     */
+    @Override
+    public void updateTaskItems(List<OpsTaskItem> taskItems) {
+        if (taskItems.isEmpty()) {
+            return;
+        }
+        this.updateTaskItemsTimer.record(() -> {
+            if (this.writeBuffer != null) {
+                this.writeBuffer.putItems(taskItems);
+            } else {
+                this.transactionTemplate.executeWithoutResult(status -> this.batchUpdateTaskItems(taskItems));
+            }
+        });
     }
 
     @Override
     public Page<OpsTask> findTasks(int pageSize, int pageNumber) {
         Sort sort = Sort.by("id").descending();
         Pageable pageable = PageRequest.of(pageNumber - 1, pageSize, sort);
-        return this.taskRepository.findAll(pageable);
+        Map<String, OpsTask> pending = this.writeBuffer != null ? this.writeBuffer.getTasks() : Collections.emptyMap();
+        return this.taskRepository.findAll(pageable).map(task -> pending.getOrDefault(task.getInvokeId(), task));
+    }
+
+    @Override
+    public List<OpsTask> findTasksAfter(Long after, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        Map<String, OpsTask> pending = this.writeBuffer != null ? this.writeBuffer.getTasks() : Collections.emptyMap();
+        List<OpsTask> tasks = after == null ? this.taskRepository.findByOrderByIdDesc(pageable)
+                : this.taskRepository.findByIdLessThanOrderByIdDesc(after, pageable);
+        if (pending.isEmpty()) {
+            return tasks;
+        }
+        return tasks.stream().map(task -> pending.getOrDefault(task.getInvokeId(), task)).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<OpsTask> findUnfinishedTasks(Date since, long after, int limit) {
+        return this.taskRepository.findByStatusInAndCreationTimeGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                UNFINISHED, since, after, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<OpsTask> claimTasks(String owner, Date since, Date expiry, boolean own, long after, int limit) {
+        List<Long> ids = this.claimTasksTimer.record(() ->
+                this.taskLeaseStore.claim(owner, since, expiry, own, after, limit));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<OpsTask> tasks = this.taskRepository.findAllById(ids);
+        tasks.sort(Comparator.comparingLong(OpsTask::getId));
+        return tasks;
+    }
+
+    @Override
+    public Set<String> renewTaskLeases(String owner, Set<String> invokeIds, Date expiry) {
+        return this.taskLeaseStore.renew(owner, invokeIds, expiry);
+    }
+
+    @Override
+    public Set<String> releaseTaskLeases(String owner, Set<String> polling, Date before) {
+        Set<String> keep = new HashSet<>(polling);
+        if (this.writeBuffer != null) {
+            keep.addAll(this.writeBuffer.getTasks().keySet()); // 已结束、但状态尚未写入数据库的任务
+        }
+        return this.taskLeaseStore.release(owner, keep, before);
+    }
+
+    @Override
+    public void discardTaskUpdates(String invokeId) {
+        if (this.writeBuffer != null) {
+            this.writeBuffer.removeTask(invokeId);
+        }
+    }
+
+    /**
+     * 大表上的 COUNT(*) 需要扫描整个索引，游标分页只需要总数的近似值，因此缓存统计结果
+     */
+    @Override
+    public long countTasks() {
+        long now = System.currentTimeMillis();
+        if (this.taskCount < 0 || now - this.taskCountTime > TimeUnit.SECONDS.toMillis(this.countCacheSeconds)) {
+            this.taskCount = this.taskRepository.count();
+            this.taskCountTime = now;
+        }
+        return this.taskCount;
     }
 
     @Override
     public OpsTask findTask(String invokeId) {
-        return this.taskRepository.findByInvokeId(invokeId);
+        OpsTask pending = this.writeBuffer != null ? this.writeBuffer.getTask(invokeId) : null;
+        return pending != null ? pending : this.taskRepository.findByInvokeId(invokeId);
     }
 
     @Override
     public List<OpsTaskItem> findTaskItems(String invokeId) {
-        return this.taskItemRepository.findByInvokeId(invokeId);
+        Map<String, OpsTaskItem> pending = this.getPendingItems(invokeId);
+        return overlay(this.taskItemRepository.findByInvokeIdAndCreationTimeGreaterThanEqual(invokeId,
+                this.itemsSince(invokeId)), pending);
     }
 
     @Override
     public OpsTaskItem findTaskItem(String invokeId, String instanceId) {
-        return this.taskItemRepository.findByInvokeIdAndInstanceId(invokeId, instanceId);
+        OpsTaskItem pending = this.getPendingItems(invokeId).get(instanceId);
+        if (pending != null) {
+            return pending;
+        }
+        return this.taskItemRepository.findByInvokeIdAndInstanceIdAndCreationTimeGreaterThanEqual(invokeId, instanceId,
+                this.itemsSince(invokeId));
+    }
+
+    @Override
+    public List<TaskItemSummary> findTaskItemSummaries(String invokeId) {
+        Map<String, OpsTaskItem> pending = this.getPendingItems(invokeId);
+        return overlaySummaries(this.taskItemRepository.findSummaryByInvokeId(invokeId, this.itemsSince(invokeId)),
+                pending);
+    }
+
+    @Override
+    public List<TaskItemSummary> findTaskItemSummariesAfter(String invokeId, Long after, int limit) {
+        Map<String, OpsTaskItem> pending = this.getPendingItems(invokeId);
+        List<TaskItemSummary> summaries = this.taskItemRepository.findSummaryByInvokeIdAfter(invokeId,
+                this.itemsSince(invokeId), after == null ? 0 : after, PageRequest.of(0, limit));
+        return overlaySummaries(summaries, pending);
+    }
+
+    @Override
+    public String findTaskOutput(String invokeId, String instanceId) {
+        OpsTaskItem item = this.findTaskItem(invokeId, instanceId);
+        if (item == null) {
+            return null;
+        }
+        if (item.getOutput() != null) {
+            return item.getOutput(); // 尚未写入数据库
+        }
+        return this.taskOutputStore.find(item);
+    }
+
+    @Override
+    public List<TaskOutputGroup> findTaskOutputGroups(String invokeId, int limit) {
+        Date since = this.itemsSince(invokeId);
+        if (this.writeBuffer == null) {
+            return this.taskOutputStore.findGroups(invokeId, since, limit);
+        }
+        // 缓冲中的数据与聚合查询的结果须互不重叠：期间有数据写入数据库时重新查询
+        try {
+            for (int attempt = 0; attempt < GROUP_QUERY_ATTEMPTS; attempt++) {
+                long version = this.writeBuffer.awaitFlushed(GROUP_QUERY_WAIT_MILLIS);
+                if (version % 2 != 0) {
+                    break;
+                }
+                Map<String, OpsTaskItem> pending = this.writeBuffer.getItems(invokeId);
+                int groupLimit = pending.isEmpty() ? limit : Integer.MAX_VALUE;
+                List<TaskOutputGroup> groups = this.taskOutputStore.findGroups(invokeId, since, groupLimit);
+                if (this.writeBuffer.getVersion() == version) {
+                    return pending.isEmpty() ? groups : mergeGroups(groups, pending.values(), limit);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return this.taskOutputStore.findGroups(invokeId, since, limit); // 写入持续进行，返回不含缓冲数据的结果
+    }
+
+    @Override
+    public List<OpsTaskItem> findUnfinishedTaskItems(String invokeId, Collection<String> instanceIds, Date since) {
+        if (instanceIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, OpsTaskItem> pending = this.getPendingItems(invokeId);
+        List<OpsTaskItem> items = this.findUnfinishedTaskItemsTimer.record(() -> {
+            if (since == null) {
+                return this.taskItemRepository.findByInvokeIdAndInstanceIdInAndStatusIn(invokeId, instanceIds,
+                        UNFINISHED);
+            }
+            // creation_time 不含毫秒，按秒向下取整
+            Date floor = new Date(since.getTime() - since.getTime() % 1000);
+            return this.taskItemRepository.findByInvokeIdAndInstanceIdInAndStatusInAndCreationTimeGreaterThanEqual(
+                    invokeId, instanceIds, UNFINISHED, floor);
+        });
+        return overlay(items, pending).stream()
+                .filter(item -> !item.getStatus().isFinished())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<OpsTaskInvocation> findTaskInvocations(String taskInvokeId) {
+        Map<Long, OpsTaskInvocation> pending = this.writeBuffer != null
+                ? this.writeBuffer.getInvocations() : Collections.emptyMap();
+        return this.taskInvocationRepository.findByTaskInvokeId(taskInvokeId).stream()
+                .map(invocation -> pending.getOrDefault(invocation.getId(), invocation))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long exportTasks(TaskExportQuery query, Writer writer) {
+        return this.taskHistoryExporter.exportTasks(query, writer);
+    }
+
+    @Override
+    public long exportTaskItems(TaskExportQuery query, Writer writer) {
+        return this.taskHistoryExporter.exportTaskItems(query, writer);
+    }
+
+    /**
+     * 将一批异步写入的数据在一个事务中写入数据库
+     */
+    private void write(TaskWriteBuffer.Batch batch) {
+        this.flushTimer.record(() -> this.transactionTemplate.executeWithoutResult(status -> {
+            this.batchUpdateTaskItems(batch.getItems());
+            this.taskInvocationRepository.saveAll(batch.getInvocations());
+            this.taskRepository.saveAll(batch.getTasks());
+        }));
+    }
+
+    /**
+     * <pre>
+     * 按任务查询任务明细时，任务明细创建时间的下限：任务的创建时间留出余量，按秒向下取整(creation_time 不含毫秒)。
+     * 任务明细与任务在同一事务中创建，分区存储时只需查询任务创建之后的分区；任务不存在时不限制。
+     * </pre>
+     */
+    private Date itemsSince(String invokeId) {
+        OpsTask task = this.findTask(invokeId);
+        if (task == null || task.getCreationTime() == null) {
+            return new Date(0);
+        }
+        long since = task.getCreationTime().getTime() - ITEMS_SINCE_MARGIN_MILLIS;
+        return new Date(since - since % 1000);
+    }
+
+    /**
+     * 尚未写入数据库的任务明细，须在查询数据库之前取得，见 {@link TaskWriteBuffer}
+     */
+    private Map<String, OpsTaskItem> getPendingItems(String invokeId) {
+        return this.writeBuffer != null ? this.writeBuffer.getItems(invokeId) : Collections.emptyMap();
     }
 
+    /**
+     * 将尚未写入数据库的任务明细计入分组。这些明细在数据库中均为未结束、没有执行结果的明细，
+     * 统计时从无执行结果的分组移到对应的分组。
+     */
+    private static List<TaskOutputGroup> mergeGroups(List<TaskOutputGroup> groups, Collection<OpsTaskItem> pending,
+                                                     int limit) {
+        Map<String, TaskOutputGroup> merged = new LinkedHashMap<>();
+        Map<String, Long> counts = new HashMap<>();
+        for (TaskOutputGroup group : groups) {
+            merged.put(group.getDigest(), group);
+            counts.put(group.getDigest(), group.getInstances());
+        }
+        for (OpsTaskItem item : pending) {
+            String output = item.getOutput() == null ? "" : item.getOutput();
+            String digest = output.isEmpty() ? null : TaskOutputStore.digest(output);
+            counts.merge(null, -1L, Long::sum);
+            counts.merge(digest, 1L, Long::sum);
+            merged.putIfAbsent(digest, new TaskOutputGroup(digest, 0, TaskOutputStore.sizeOf(output), output));
+        }
+        return merged.values().stream()
+                .map(group -> new TaskOutputGroup(group.getDigest(), counts.get(group.getDigest()),
+                        group.getSize(), group.getOutput()))
+                .filter(group -> group.getInstances() > 0)
+                .sorted(Comparator.comparingLong(TaskOutputGroup::getInstances).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 以尚未写入数据库的数据，覆盖从数据库中读取的记录
+     */
+    private static List<OpsTaskItem> overlay(List<OpsTaskItem> items, Map<String, OpsTaskItem> pending) {
+        if (pending.isEmpty()) {
+            return items;
+        }
+        return items.stream()
+                .map(item -> pending.getOrDefault(item.getInstanceId(), item))
+                .collect(Collectors.toList());
+    }
+
+    private static List<TaskItemSummary> overlaySummaries(List<TaskItemSummary> summaries,
+                                                          Map<String, OpsTaskItem> pending) {
+        if (pending.isEmpty()) {
+            return summaries;
+        }
+        return summaries.stream().map(summary -> {
+            OpsTaskItem item = pending.get(summary.getInstanceId());
+            return item != null ? new TaskItemSummary(item) : summary;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * 批量更新任务明细，并保存其执行结果
+     */
+    private void batchUpdateTaskItems(List<OpsTaskItem> taskItems) {
+        if (taskItems.isEmpty()) {
+            return;
+        }
+        this.taskOutputStore.save(taskItems, this.insertBatchSize);
+        this.jdbcTemplate.batchUpdate(UPDATE_TASK_ITEM, taskItems, this.insertBatchSize, (ps, item) -> {
+            ps.setInt(1, item.getStatus().ordinal());
+            if (item.getExitCode() != null) {
+                ps.setLong(2, item.getExitCode());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setInt(3, item.getOutputSize());
+            ps.setString(4, item.getOutputDigest());
+            ps.setInt(5, item.getDropped());
+            ps.setString(6, item.getErrorCode() == null ? "" : item.getErrorCode());
+            ps.setString(7, item.getErrorInfo() == null ? "" : item.getErrorInfo());
+            ps.setTimestamp(8, toTimestamp(item.getUpdateTime()));
+            ps.setTimestamp(9, toTimestamp(item.getFinishTime()));
+            ps.setLong(10, item.getId());
+            long since = item.getCreationTime() != null ? item.getCreationTime().getTime() - 1000 : 0;
+            ps.setTimestamp(11, new Timestamp(since - since % 1000));
+        });
+    }
+
+    private void insertTaskItems(List<OpsTaskItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        this.taskOutputStore.save(items, this.insertBatchSize);
+        this.jdbcTemplate.batchUpdate(INSERT_TASK_ITEM, items, this.insertBatchSize, (ps, item) -> {
+            ps.setString(1, item.getRegionId());
+            ps.setString(2, item.getInvokeId());
+            ps.setString(3, item.getInstanceId());
+            ps.setInt(4, item.getStatus().ordinal());
+            if (item.getExitCode() != null) {
+                ps.setLong(5, item.getExitCode());
+            } else {
+                ps.setNull(5, Types.BIGINT);
+            }
+            ps.setInt(6, item.getOutputSize());
+            ps.setString(7, item.getOutputDigest());
+            ps.setInt(8, item.getDropped());
+            ps.setString(9, item.getErrorCode() == null ? "" : item.getErrorCode());
+            ps.setString(10, item.getErrorInfo() == null ? "" : item.getErrorInfo());
+            ps.setTimestamp(11, toTimestamp(item.getCreationTime() == null ? new Date() : item.getCreationTime()));
+            ps.setTimestamp(12, toTimestamp(item.getUpdateTime()));
+            ps.setTimestamp(13, toTimestamp(item.getFinishTime()));
+        });
+    }
+
+    private static Timestamp toTimestamp(Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,453 @@
+package com.aliyun.cloudops.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.aliyun.cloudops.domain.OpsTask;
+import com.aliyun.cloudops.domain.OpsTaskInvocation;
+import com.aliyun.cloudops.domain.OpsTaskItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * <pre>
+ * 运维任务状态的异步写缓冲(write-behind)：
+ * 1. 任务、批次调用与任务明细的状态更新以副本的形式写入内存，同一任务明细按 (InvokeId, InstanceId) 合并，只保留最后一次写入；
+ *    调用方之后对原对象的修改不影响缓冲中的数据，读取时同样返回副本；
+ * 2. 后台线程在待写入数量达到批次大小、或等待超过写入间隔时，将全部待写入的数据交给写入方，在一个事务中批量写入；
+ * 3. 待写入数量达到上限时，写入线程阻塞等待，直到后台线程取走待写入的数据；
+ * 4. 整批写入失败时，逐条重新写入：全部因数据库不可用(连接失败等)而失败时，放回缓冲稍后重试，不计入失败次数；
+ *    其他失败的数据与之后的更新合并，连续失败 3 次后记录错误日志并丢弃，避免个别数据阻塞全部写入；
+ *    关闭时等待全部数据写入完成，之后的更新改为同步写入；
+ * 5. 正在写入和待写入的数据对读取可见。读取时应先取得缓冲中的数据，再查询数据库并以前者覆盖，
+ *    以免查询数据库与本批数据写入完成交错时，读到的两者均不包含该批数据。
+ * </pre>
+ */
+class TaskWriteBuffer {
+
+    private final int capacity;
+
+    private final int flushSize;
+
+    private final long flushMillis;
+
+    private final Consumer<Batch> writer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notFull = this.lock.newCondition();
+
+    private final Condition flushRequested = this.lock.newCondition();
+
+    private final Condition flushed = this.lock.newCondition();
+
+    private final Thread flusher;
+
+    private Batch pending = new Batch();
+
+    private Batch flushing = new Batch();
+
+    /**
+     * 每次开始与结束写入时加一，为偶数时没有正在进行的写入
+     */
+    private long version;
+
+    /**
+     * 逐条写入失败的次数，以数据的键为键，只由后台线程访问
+     */
+    private final Map<String, Integer> failures = new HashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean closed;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
+    private static final int MAX_ROW_ATTEMPTS = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskWriteBuffer.class);
+
+    /**
+     * @param capacity    - 待写入数据的数量上限，超出后写入线程阻塞等待
+     * @param flushSize   - 待写入数量达到该值时，立即写入
+     * @param flushMillis - 两次写入的最长间隔，以毫秒为单位
+     * @param writer      - 将一批数据写入数据库，写入失败时抛出异常
+     */
+    TaskWriteBuffer(int capacity, int flushSize, long flushMillis, Consumer<Batch> writer) {
+        this.capacity = Math.max(capacity, 1);
+        this.flushSize = Math.max(Math.min(flushSize, this.capacity), 1);
+        this.flushMillis = Math.max(flushMillis, 1);
+        this.writer = writer;
+        this.flusher = new Thread(this::run, "task-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    void putTask(OpsTask task) {
+        Batch updates = new Batch();
+        updates.tasks.put(task.getInvokeId(), task.copy());
+        this.put(updates);
+    }
+
+    void putInvocation(OpsTaskInvocation invocation) {
+        Batch updates = new Batch();
+        updates.invocations.put(invocation.getId(), invocation.copy());
+        this.put(updates);
+    }
+
+    void putItems(Collection<OpsTaskItem> items) {
+        Batch updates = new Batch();
+        items.forEach(item -> updates.putItem(item.copy()));
+        this.put(updates);
+    }
+
+    /**
+     * 丢弃待写入的任务状态更新，正在写入的不受影响
+     */
+    void removeTask(String invokeId) {
+        this.lock.lock();
+        try {
+            if (this.pending.tasks.remove(invokeId) != null) {
+                this.notFull.signalAll();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    OpsTask getTask(String invokeId) {
+        this.lock.lock();
+        try {
+            OpsTask task = this.pending.tasks.get(invokeId);
+            if (task == null) {
+                task = this.flushing.tasks.get(invokeId);
+            }
+            return task != null ? task.copy() : null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return - 尚未写入数据库的任务，以 InvokeId 为键
+     */
+    Map<String, OpsTask> getTasks() {
+        Map<String, OpsTask> tasks = new HashMap<>();
+        this.lock.lock();
+        try {
+            this.flushing.tasks.forEach((key, task) -> tasks.put(key, task.copy()));
+            this.pending.tasks.forEach((key, task) -> tasks.put(key, task.copy()));
+        } finally {
+            this.lock.unlock();
+        }
+        return tasks;
+    }
+
+    /**
+     * @return - 尚未写入数据库的批次调用，以主键为键
+     */
+    Map<Long, OpsTaskInvocation> getInvocations() {
+        Map<Long, OpsTaskInvocation> invocations = new HashMap<>();
+        this.lock.lock();
+        try {
+            this.flushing.invocations.forEach((key, invocation) -> invocations.put(key, invocation.copy()));
+            this.pending.invocations.forEach((key, invocation) -> invocations.put(key, invocation.copy()));
+        } finally {
+            this.lock.unlock();
+        }
+        return invocations;
+    }
+
+    /**
+     * @return - 指定任务尚未写入数据库的任务明细，以 InstanceId 为键
+     */
+    Map<String, OpsTaskItem> getItems(String invokeId) {
+        Map<String, OpsTaskItem> items = new LinkedHashMap<>();
+        this.lock.lock();
+        try {
+            this.flushing.items.getOrDefault(invokeId, Collections.emptyMap())
+                    .forEach((key, item) -> items.put(key, item.copy()));
+            this.pending.items.getOrDefault(invokeId, Collections.emptyMap())
+                    .forEach((key, item) -> items.put(key, item.copy()));
+        } finally {
+            this.lock.unlock();
+        }
+        return items;
+    }
+
+    /**
+     * 用于聚合查询的一致性检查：在取得缓冲中的数据之前与查询数据库之后各读取一次，两次相同且为偶数时，
+     * 期间没有数据写入数据库，缓冲中的数据与查询结果不重叠
+     */
+    long getVersion() {
+        this.lock.lock();
+        try {
+            return this.version;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 等待正在进行的写入完成
+     *
+     * @return - 写入完成后的版本号，超时则为奇数
+     */
+    long awaitFlushed(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.lock.lock();
+        try {
+            long remaining;
+            while (this.version % 2 != 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                this.flushed.awaitNanos(remaining);
+            }
+            return this.version;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return - 正在写入与待写入的数据量
+     */
+    int size() {
+        this.lock.lock();
+        try {
+            return this.pending.size() + this.flushing.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return - 连续写入失败而丢弃的数据量
+     */
+    long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * 停止接受异步写入，并等待全部数据写入完成
+     */
+    void shutdown() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.flushRequested.signalAll();
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        try {
+            this.flusher.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = this.size();
+        if (remaining > 0) {
+            logger.error("task write buffer closed with {} updates not written.", remaining);
+        }
+    }
+
+    private void put(Batch updates) {
+        this.lock.lock();
+        try {
+            // 待写入的数据为空时总是接受，避免单次写入超出上限时永久阻塞
+            while (!this.closed && !this.pending.isEmpty() && this.pending.size() + updates.size() > this.capacity) {
+                this.notFull.awaitUninterruptibly();
+            }
+            if (!this.closed) {
+                this.pending.merge(updates);
+                if (this.pending.size() >= this.flushSize) {
+                    this.flushRequested.signal();
+                }
+                return;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        this.writer.accept(updates); // 已关闭：同步写入
+    }
+
+    private void run() {
+        while (true) {
+            Batch batch;
+            this.lock.lock();
+            try {
+                if (!this.closed && this.pending.size() < this.flushSize) {
+                    this.flushRequested.await(this.flushMillis, TimeUnit.MILLISECONDS);
+                }
+                if (this.pending.isEmpty()) {
+                    if (this.closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch = this.pending;
+                this.pending = new Batch();
+                this.flushing = batch;
+                this.version++;
+                this.notFull.signalAll();
+            } catch (InterruptedException e) {
+                continue; // 不响应中断，由 shutdown 结束
+            } finally {
+                this.lock.unlock();
+            }
+            this.flush(batch);
+        }
+    }
+
+    private void flush(Batch batch) {
+        Batch failed = null;
+        boolean retry = false;
+        try {
+            this.writer.accept(batch);
+            this.failures.clear();
+        } catch (Exception e) {
+            logger.warn("write {} task updates failed, will write one by one, error: {}.", batch.size(), e.getMessage());
+            failed = this.flushRows(batch);
+            retry = failed.size() == batch.size();
+        }
+        this.lock.lock();
+        try {
+            if (failed != null && !failed.isEmpty()) {
+                // 失败的数据放回待写入队列，期间新的更新覆盖旧的更新
+                failed.merge(this.pending);
+                this.pending = failed;
+            }
+            this.flushing = new Batch();
+            this.version++;
+            this.flushed.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        if (retry) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(this.flushMillis);
+            } catch (InterruptedException ignored) {
+                // 不响应中断，由 shutdown 结束
+            }
+        }
+    }
+
+    /**
+     * 逐条写入，全部因数据库不可用而失败时不计入失败次数
+     *
+     * @return - 需要重试的数据
+     */
+    private Batch flushRows(Batch batch) {
+        Map<String, Batch> rows = batch.split();
+        Map<String, Exception> errors = new LinkedHashMap<>();
+        for (Map.Entry<String, Batch> entry : rows.entrySet()) {
+            try {
+                this.writer.accept(entry.getValue());
+                this.failures.remove(entry.getKey());
+            } catch (Exception e) {
+                errors.put(entry.getKey(), e);
+            }
+        }
+        Batch failed = new Batch();
+        if (errors.size() == rows.size() && errors.values().stream().allMatch(TaskWriteBuffer::isUnavailable)) {
+            logger.error("write {} task updates failed, will retry.", batch.size());
+            failed.merge(batch);
+            return failed;
+        }
+        errors.forEach((key, e) -> {
+            int attempts = this.failures.merge(key, 1, Integer::sum);
+            if (attempts >= MAX_ROW_ATTEMPTS) {
+                this.failures.remove(key);
+                this.dropped.incrementAndGet();
+                logger.error("drop task update {} after {} failed writes, error: {}.", key, attempts, e.getMessage());
+            } else {
+                logger.warn("write task update {} failed, will retry, error: {}.", key, e.getMessage());
+                failed.merge(rows.get(key));
+            }
+        });
+        return failed;
+    }
+
+    /**
+     * @return - 是否为数据库不可用(连接失败、暂时性错误)，而非数据本身的问题
+     */
+    private static boolean isUnavailable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException || cause instanceof TransientDataAccessException
+                    || cause instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 一批待写入的数据。任务按 InvokeId 合并，批次调用按主键合并，任务明细按 (InvokeId, InstanceId) 合并。
+     */
+    static class Batch {
+        private final Map<String, OpsTask> tasks = new LinkedHashMap<>();
+        private final Map<Long, OpsTaskInvocation> invocations = new LinkedHashMap<>();
+        private final Map<String, Map<String, OpsTaskItem>> items = new LinkedHashMap<>();
+        private int itemCount;
+
+        List<OpsTask> getTasks() {
+            return new ArrayList<>(this.tasks.values());
+        }
+
+        List<OpsTaskInvocation> getInvocations() {
+            return new ArrayList<>(this.invocations.values());
+        }
+
+        List<OpsTaskItem> getItems() {
+            List<OpsTaskItem> list = new ArrayList<>(this.itemCount);
+            this.items.values().forEach(map -> list.addAll(map.values()));
+            return list;
+        }
+
+        int size() {
+            return this.tasks.size() + this.invocations.size() + this.itemCount;
+        }
+
+        boolean isEmpty() {
+            return this.size() == 0;
+        }
+
+        private void putItem(OpsTaskItem item) {
+            Map<String, OpsTaskItem> map = this.items.computeIfAbsent(item.getInvokeId(), key -> new LinkedHashMap<>());
+            if (map.put(item.getInstanceId(), item) == null) {
+                this.itemCount++;
+            }
+        }
+
+        /**
+         * @return - 每条数据单独组成的一批数据，以 task:InvokeId、invocation:主键、item:InvokeId/InstanceId 为键
+         */
+        private Map<String, Batch> split() {
+            Map<String, Batch> rows = new LinkedHashMap<>();
+            this.tasks.forEach((invokeId, task) -> rows.computeIfAbsent("task:" + invokeId, key -> new Batch())
+                    .tasks.put(invokeId, task));
+            this.invocations.forEach((id, invocation) -> rows.computeIfAbsent("invocation:" + id, key -> new Batch())
+                    .invocations.put(id, invocation));
+            this.items.forEach((invokeId, map) -> map.values().forEach(item -> rows.computeIfAbsent(
+                    "item:" + invokeId + "/" + item.getInstanceId(), key -> new Batch()).putItem(item)));
+            return rows;
+        }
+
+        private void merge(Batch other) {
+            this.tasks.putAll(other.tasks);
+            this.invocations.putAll(other.invocations);
+            other.items.values().forEach(map -> map.values().forEach(this::putItem));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+CREATE TABLE `ops_task_invocation`
+(
+    `id`             BIGINT(20) UNSIGNED NOT NULL AUTO_INCREMENT COMMENT 'primary key',
+    `region_id`      VARCHAR(30)         NOT NULL COMMENT 'region id',
+    `task_invoke_id` VARCHAR(24)         NOT NULL COMMENT 'invoke id of the ops task',
+    `invoke_id`      VARCHAR(24)         NULL COMMENT 'invoke id of the chunk, null if submit failed',
+    `instances`      INT(11)             NOT NULL COMMENT 'instances count',
+    `status`         INT(11)             NOT NULL DEFAULT 0 COMMENT '0:Pending',
+    `err_code`       VARCHAR(64)         NOT NULL DEFAULT '' COMMENT 'submit error code',
+    `creation_time`  DATETIME            NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'creation time',
+    `finish_time`    DATETIME            NULL COMMENT 'finished time',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_chunk_invoke_id` (`invoke_id`),
+    INDEX `idx_task_invoke_id` (`task_invoke_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4; -- COMMENT '运维任务的分批调用';
@@ -0,0 +1,3 @@
+-- 按 (invoke_id, instance_id) 查询与更新任务明细，该联合索引同时覆盖按 invoke_id 的查询
+CREATE INDEX `idx_item_invoke_instance` ON `ops_task_item` (`invoke_id`, `instance_id`);
+DROP INDEX `idx_invoke_id` ON `ops_task_item`;
@@ -0,0 +1,13 @@
+CREATE TABLE `ops_task_output`
+(
+    `item_id` BIGINT(20) UNSIGNED NOT NULL COMMENT 'ops_task_item id',
+    `size`    INT(11)             NOT NULL COMMENT 'uncompressed size in bytes',
+    `content` MEDIUMBLOB          NOT NULL COMMENT 'gzip compressed command output',
+    PRIMARY KEY (`item_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4; -- COMMENT '运维任务明细的执行结果';
+
+-- 已有记录的执行结果仍保存在 ops_task_item.output 中，读取时作为后备
+ALTER TABLE `ops_task_item`
+    ADD COLUMN `output_size` INT(11) NOT NULL DEFAULT 0 COMMENT 'output size in bytes' AFTER `output`;
+UPDATE `ops_task_item` SET `output_size` = OCTET_LENGTH(`output`) WHERE `output` <> '';
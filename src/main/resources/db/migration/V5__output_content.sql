@@ -0,0 +1,14 @@
+CREATE TABLE `ops_output_content`
+(
+    `digest`        CHAR(64)    NOT NULL COMMENT 'sha-256 of the command output',
+    `size`          INT(11)     NOT NULL COMMENT 'uncompressed size in bytes',
+    `content`       MEDIUMBLOB  NOT NULL COMMENT 'gzip compressed command output',
+    `creation_time` DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'creation time',
+    PRIMARY KEY (`digest`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4; -- COMMENT '按内容寻址的执行结果，相同的执行结果只保存一份';
+
+-- ops_task_output 中已有的执行结果不迁移，读取时作为后备
+ALTER TABLE `ops_task_item`
+    ADD COLUMN `output_digest` CHAR(64) NULL COMMENT 'sha-256 of the command output' AFTER `output_size`;
+CREATE INDEX `idx_item_invoke_digest` ON `ops_task_item` (`invoke_id`, `output_digest`);
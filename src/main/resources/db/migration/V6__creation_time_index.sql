@@ -0,0 +1,3 @@
+-- 按创建时间范围导出任务历史
+CREATE INDEX `idx_task_creation_time` ON `ops_task` (`creation_time`);
+CREATE INDEX `idx_item_creation_time` ON `ops_task_item` (`creation_time`);
@@ -0,0 +1,19 @@
+-- 任务各状态的实例数，随轮询结果增量更新，查询任务进度时不再统计任务明细
+ALTER TABLE `ops_task`
+    ADD COLUMN `pending_count` INT(11) NOT NULL DEFAULT 0 COMMENT 'pending and scheduled instances' AFTER `instances`;
+ALTER TABLE `ops_task`
+    ADD COLUMN `running_count` INT(11) NOT NULL DEFAULT 0 COMMENT 'running and stopping instances' AFTER `pending_count`;
+ALTER TABLE `ops_task`
+    ADD COLUMN `success_count` INT(11) NOT NULL DEFAULT 0 COMMENT 'success instances' AFTER `running_count`;
+ALTER TABLE `ops_task`
+    ADD COLUMN `failed_count` INT(11) NOT NULL DEFAULT 0 COMMENT 'failed instances' AFTER `success_count`;
+ALTER TABLE `ops_task`
+    ADD COLUMN `stopped_count` INT(11) NOT NULL DEFAULT 0 COMMENT 'stopped instances' AFTER `failed_count`;
+
+-- 已有的任务按任务明细统计一次，状态序号见 CloudAssistant.InvocationStatus
+UPDATE `ops_task` t
+SET `pending_count` = (SELECT COUNT(*) FROM `ops_task_item` i WHERE i.`invoke_id` = t.`invoke_id` AND i.`status` IN (0, 7)),
+    `running_count` = (SELECT COUNT(*) FROM `ops_task_item` i WHERE i.`invoke_id` = t.`invoke_id` AND i.`status` IN (1, 5)),
+    `success_count` = (SELECT COUNT(*) FROM `ops_task_item` i WHERE i.`invoke_id` = t.`invoke_id` AND i.`status` = 2),
+    `failed_count`  = (SELECT COUNT(*) FROM `ops_task_item` i WHERE i.`invoke_id` = t.`invoke_id` AND i.`status` IN (3, 4)),
+    `stopped_count` = (SELECT COUNT(*) FROM `ops_task_item` i WHERE i.`invoke_id` = t.`invoke_id` AND i.`status` = 6);
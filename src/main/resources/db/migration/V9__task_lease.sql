@@ -0,0 +1,6 @@
+-- 多个实例共用数据库时，轮询任务的实例(owner)与租约的到期时间，租约过期的任务由其他实例接管
+ALTER TABLE `ops_task`
+    ADD COLUMN `owner` VARCHAR(64) NULL COMMENT 'replica polling the task' AFTER `status`;
+ALTER TABLE `ops_task`
+    ADD COLUMN `lease_expiry` DATETIME NULL COMMENT 'polling lease expiry time' AFTER `owner`;
+CREATE INDEX `idx_task_status_lease` ON `ops_task` (`status`, `lease_expiry`);
@@ -7,22 +7,37 @@ type Task = {
     invokeId: string,
     taskName: string,
     status: string,
-    instances: number
+    instances: number,
+    pendingCount: number,
+    runningCount: number,
+    successCount: number,
+    failedCount: number,
+    stoppedCount: number
 }
 
 type TaskItem = {
     instanceId: string,
     status: string,
     exitCode: number | undefined,
-    output: string,
+    outputSize: number,
+    dropped: number,
     errorCode: string,
     errorInfo: string
 }
 
+type OutputGroup = {
+    digest: string | null,
+    instances: number,
+    size: number,
+    output: string | null
+}
+
 interface TaskManagerState extends AcsResourcesState {
     operations: any[];
     openedTask?: Task;
     taskItems: TaskItem[];
+    outputs: { [instanceId: string]: string };
+    outputGroups: OutputGroup[];
 }
 
 /**
@@ -41,7 +56,9 @@ export default class TaskManager extends AcsResources<TaskManagerState> {
             loading: false,
             updated: 0,
             openedTask: undefined,
-            taskItems: []
+            taskItems: [],
+            outputs: {},
+            outputGroups: []
         }
     }
 
@@ -95,7 +112,12 @@ export default class TaskManager extends AcsResources<TaskManagerState> {
             },
             {
                 key: "instances", title: "目标实例", dataIndex: "instances", render: (count: string, task: Task) => {
-                    return <a onClick={() => this.listTaskItems(task)}>{count}</a>
+                    return <Space direction="vertical" size={0}>
+                        <a onClick={() => this.listTaskItems(task)}>{count}</a>
+                        <Typography.Text type="secondary">
+                            成功 {task.successCount} / 失败 {task.failedCount} / 运行中 {task.runningCount} / 等待 {task.pendingCount}
+                        </Typography.Text>
+                    </Space>
                 }
             },
             {
@@ -119,18 +141,36 @@ export default class TaskManager extends AcsResources<TaskManagerState> {
                 instanceId: "",
                 status: "",
                 exitCode: undefined,
-                output: "",
+                outputSize: 0,
+                dropped: 0,
                 errorCode: "",
                 errorInfo: ""
             })
         }
         // noinspection TypeScriptValidateTypes
-        this.setState({openedTask: task, taskItems: taskItems}, () => {
+        this.setState({openedTask: task, taskItems: taskItems, outputs: {}, outputGroups: []}, () => {
             const url = `/api/ecs/tasks/${task.invokeId}`
             axios.get(url).then(response => {
                 // noinspection TypeScriptValidateTypes
                 this.setState({taskItems: response.data})
             })
+            // 相同的执行结果只加载一次
+            axios.get(`/api/ecs/tasks/${task.invokeId}/output-groups`).then(response => {
+                // noinspection TypeScriptValidateTypes
+                this.setState({outputGroups: response.data})
+            })
+        })
+    }
+
+    /**
+     * 执行结果不随任务明细返回，展开时再按实例查询
+     */
+    loadTaskOutput = (item: TaskItem) => {
+        const {openedTask} = this.state;
+        const url = `/api/ecs/tasks/${openedTask?.invokeId}/outputs/${item.instanceId}`
+        axios.get(url, {responseType: "text"}).then(response => {
+            // noinspection TypeScriptValidateTypes
+            this.setState({outputs: {...this.state.outputs, [item.instanceId]: response.data}})
         })
     }
 
@@ -145,7 +185,7 @@ export default class TaskManager extends AcsResources<TaskManagerState> {
 
     closeTaskDetail = () => {
         // noinspection TypeScriptValidateTypes
-        this.setState({openedTask: undefined, taskItems: []})
+        this.setState({openedTask: undefined, taskItems: [], outputs: {}, outputGroups: []})
     }
 
     componentDidMount() {
@@ -156,7 +196,7 @@ export default class TaskManager extends AcsResources<TaskManagerState> {
     }
 
     render() {
-        const {openedTask, taskItems} = this.state;
+        const {openedTask, taskItems, outputs, outputGroups} = this.state;
         const colorBgContainer = theme.defaultConfig.token.colorBgBase
         return (
             <Layout style={{padding: '0 24px'}}>
@@ -200,6 +240,16 @@ export default class TaskManager extends AcsResources<TaskManagerState> {
                             </tr>
                         </table>
                         <Space direction="vertical" size={16}>
+                            {outputGroups.filter(group => group.digest != null).map(group => (
+                                <Card key={group.digest} size="small"
+                                      title={<div>执行结果相同的实例: {group.instances} 台</div>}
+                                      style={{minWidth: 666}} bodyStyle={{padding: 0}}
+                                >
+                                    <div style={{background: "black", color: "white", padding: "1px 12px"}}>
+                                        <pre>{group.output}</pre>
+                                    </div>
+                                </Card>
+                            ))}
                             {taskItems.map(item => (
                                 <Card key={item.instanceId} size="small"
                                       title={<div>{item.instanceId} - <a>{item.status}</a></div>}
@@ -207,7 +257,13 @@ export default class TaskManager extends AcsResources<TaskManagerState> {
                                       loading={item.instanceId.length == 0}
                                 >
                                     <div style={{background: "black", color: "white", padding: "1px 12px"}}>
-                                        <pre>{item.output}</pre>
+                                        {outputs[item.instanceId] != undefined
+                                            ? <pre>{outputs[item.instanceId]}</pre>
+                                            : item.outputSize > 0
+                                                ? <pre><a onClick={() => this.loadTaskOutput(item)}>
+                                                    查看执行结果 ({item.outputSize} 字节{item.dropped > 0 ? `，已截断 ${item.dropped} 字节` : ""})
+                                                </a></pre>
+                                                : <pre/>}
                                     </div>
                                 </Card>
                             ))}
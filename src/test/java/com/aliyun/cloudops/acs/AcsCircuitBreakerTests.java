@@ -0,0 +1,101 @@
+package com.aliyun.cloudops.acs;
+
+import com.aliyun.cloudops.acs.AcsCircuitBreaker.State;
+import com.aliyuncs.exceptions.ClientException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AcsCircuitBreakerTests {
+
+    private static final String ENDPOINT = "ecs.cn-hangzhou.aliyuncs.com";
+
+    private static AcsCircuitBreaker newBreaker(int failureThreshold, long openMillis) {
+        AcsCircuitBreaker breaker = new AcsCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "failureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(breaker, "openMillis", openMillis);
+        ReflectionTestUtils.setField(breaker, "halfOpenProbes", 1);
+        return breaker;
+    }
+
+    private static ClientException assertRejected(AcsCircuitBreaker breaker) {
+        ClientException e = Assertions.assertThrows(ClientException.class, () -> breaker.acquire(ENDPOINT));
+        Assertions.assertTrue(AcsCircuitBreaker.isOpen(e));
+        return e;
+    }
+
+    @Test
+    public void openAfterConsecutiveFailures() throws ClientException {
+        AcsCircuitBreaker breaker = newBreaker(3, 60000);
+        for (int i = 0; i < 2; i++) {
+            breaker.acquire(ENDPOINT);
+            breaker.onFailure(ENDPOINT);
+        }
+        // 成功的响应重置连续失败的计数
+        breaker.acquire(ENDPOINT);
+        breaker.onSuccess(ENDPOINT);
+        for (int i = 0; i < 2; i++) {
+            breaker.acquire(ENDPOINT);
+            breaker.onFailure(ENDPOINT);
+        }
+        Assertions.assertEquals(State.Closed, breaker.getStates().get(ENDPOINT));
+
+        breaker.acquire(ENDPOINT);
+        breaker.onFailure(ENDPOINT);
+        Assertions.assertEquals(State.Open, breaker.getStates().get(ENDPOINT));
+        assertRejected(breaker);
+    }
+
+    @Test
+    public void halfOpenProbe() throws Exception {
+        AcsCircuitBreaker breaker = newBreaker(1, 50);
+        breaker.acquire(ENDPOINT);
+        breaker.onFailure(ENDPOINT);
+        assertRejected(breaker);
+
+        Thread.sleep(80);
+        breaker.acquire(ENDPOINT); // 探测请求
+        Assertions.assertEquals(State.HalfOpen, breaker.getStates().get(ENDPOINT));
+        assertRejected(breaker);   // 探测名额已满
+
+        // 探测失败，再次打开
+        breaker.onFailure(ENDPOINT);
+        Assertions.assertEquals(State.Open, breaker.getStates().get(ENDPOINT));
+        assertRejected(breaker);
+
+        // 探测成功，关闭
+        Thread.sleep(80);
+        breaker.acquire(ENDPOINT);
+        breaker.onSuccess(ENDPOINT);
+        Assertions.assertEquals(State.Closed, breaker.getStates().get(ENDPOINT));
+        breaker.acquire(ENDPOINT);
+        breaker.acquire(ENDPOINT);
+    }
+
+    @Test
+    public void ignoredProbeReleasesPermit() throws Exception {
+        AcsCircuitBreaker breaker = newBreaker(1, 50);
+        breaker.acquire(ENDPOINT);
+        breaker.onFailure(ENDPOINT);
+        Thread.sleep(80);
+
+        // 探测请求被限流或出现非预期异常时，只释放名额，不改变状态
+        breaker.acquire(ENDPOINT);
+        breaker.onIgnored(ENDPOINT);
+        Assertions.assertEquals(State.HalfOpen, breaker.getStates().get(ENDPOINT));
+        breaker.acquire(ENDPOINT);
+        assertRejected(breaker);
+    }
+
+    @Test
+    public void disabled() throws ClientException {
+        AcsCircuitBreaker breaker = newBreaker(1, 60000);
+        ReflectionTestUtils.setField(breaker, "enabled", false);
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire(ENDPOINT);
+            breaker.onFailure(ENDPOINT);
+        }
+        breaker.acquire(ENDPOINT);
+        Assertions.assertTrue(breaker.getStates().isEmpty());
+    }
+}
@@ -0,0 +1,152 @@
+package com.aliyun.cloudops.acs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.aliyuncs.IAcsClient;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsRequest;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse;
+import com.aliyuncs.exceptions.ClientException;
+import com.aliyuncs.exceptions.ServerException;
+import com.aliyuncs.http.FormatType;
+import com.aliyuncs.http.HttpResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 使用解码器时，失败响应的处理与 SDK 一致；异步请求的重试与拒绝
+ */
+public class AcsClientTests {
+
+    private static final String ERROR = "{\"RequestId\":\"r-1\",\"HostId\":\"ecs.aliyuncs.com\","
+            + "\"Code\":\"%s\",\"Message\":\"message\"}";
+
+    private static IAcsClient respond(int status, FormatType format, String content) throws ClientException {
+        HttpResponse response = new HttpResponse();
+        response.setStatus(status);
+        response.setHttpContent(content.getBytes(StandardCharsets.UTF_8), "UTF-8", format);
+        IAcsClient client = Mockito.mock(IAcsClient.class);
+        Mockito.when(client.doAction(ArgumentMatchers.any(DescribeInvocationsRequest.class))).thenReturn(response);
+        return client;
+    }
+
+    private static DescribeInvocationsResponse decode(IAcsClient client) throws ClientException {
+        return AcsClient.decode(client, new DescribeInvocationsRequest(), content -> {
+            DescribeInvocationsResponse response = new DescribeInvocationsResponse();
+            response.setRequestId(new String(content, StandardCharsets.UTF_8));
+            return response;
+        });
+    }
+
+    @Test
+    public void success() throws ClientException {
+        DescribeInvocationsResponse response = decode(respond(200, FormatType.JSON, "{}"));
+        Assertions.assertEquals("{}", response.getRequestId());
+    }
+
+    @Test
+    public void serverError() throws ClientException {
+        IAcsClient client = respond(503, FormatType.JSON, String.format(ERROR, "ServiceUnavailable"));
+        ServerException e = Assertions.assertThrows(ServerException.class, () -> decode(client));
+        Assertions.assertEquals("ServiceUnavailable", e.getErrCode());
+        Assertions.assertEquals("message", e.getErrMsg());
+        Assertions.assertEquals("r-1", e.getRequestId());
+    }
+
+    @Test
+    public void clientError() throws ClientException {
+        IAcsClient client = respond(400, FormatType.JSON, String.format(ERROR, "InvalidRegionId.NotFound"));
+        ClientException e = Assertions.assertThrows(ClientException.class, () -> decode(client));
+        Assertions.assertFalse(e instanceof ServerException);
+        Assertions.assertEquals("InvalidRegionId.NotFound", e.getErrCode());
+        Assertions.assertEquals("r-1", e.getRequestId());
+    }
+
+    @Test
+    public void invalidResponse() throws ClientException {
+        IAcsClient xml = respond(200, FormatType.XML, "<Error/>");
+        Assertions.assertEquals("SDK.InvalidResponseFormat",
+                Assertions.assertThrows(ClientException.class, () -> decode(xml)).getErrCode());
+
+        IAcsClient html = respond(502, FormatType.JSON, "<html>Bad Gateway</html>");
+        Assertions.assertEquals("SDK.InvalidResponseFormat",
+                Assertions.assertThrows(ClientException.class, () -> decode(html)).getErrCode());
+
+        IAcsClient client = respond(200, FormatType.JSON, "{}");
+        ClientException e = Assertions.assertThrows(ClientException.class, () -> AcsClient.decode(client,
+                new DescribeInvocationsRequest(), content -> {
+                    throw new java.io.IOException("truncated");
+                }));
+        Assertions.assertEquals("SDK.InvalidResponseFormat", e.getErrCode());
+    }
+
+    /**
+     * 只有一个执行线程的异步客户端，重试前固定退避 1 秒
+     */
+    private static AcsClient asyncClient(IAcsClient client) {
+        AcsRetryPolicy retryPolicy = Mockito.mock(AcsRetryPolicy.class);
+        Mockito.when(retryPolicy.retryDelay(ArgumentMatchers.anyInt())).thenReturn(1000L);
+        AcsClient acsClient = new AcsClient();
+        ReflectionTestUtils.setField(acsClient, "regionId", "cn-hangzhou");
+        ReflectionTestUtils.setField(acsClient, "accessKeyId", "ak");
+        ReflectionTestUtils.setField(acsClient, "client", client);
+        ReflectionTestUtils.setField(acsClient, "rateLimiter", new AcsRateLimiter());
+        ReflectionTestUtils.setField(acsClient, "retryPolicy", retryPolicy);
+        ReflectionTestUtils.setField(acsClient, "circuitBreaker", new AcsCircuitBreaker());
+        ReflectionTestUtils.setField(acsClient, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(acsClient, "asyncMaxConcurrency", 1);
+        ReflectionTestUtils.setField(acsClient, "asyncVirtualThreads", false);
+        ReflectionTestUtils.setField(acsClient, "asyncExecutor",
+                ReflectionTestUtils.invokeMethod(acsClient, "createAsyncExecutor"));
+        ReflectionTestUtils.setField(acsClient, "asyncScheduler", Executors.newSingleThreadScheduledExecutor());
+        return acsClient;
+    }
+
+    private static DescribeInvocationsRequest newRequest(String invokeId) {
+        DescribeInvocationsRequest request = new DescribeInvocationsRequest();
+        request.setSysRegionId("cn-hangzhou");
+        request.setInvokeId(invokeId);
+        return request;
+    }
+
+    @Test
+    public void asyncRetryReleasesThread() throws Exception {
+        IAcsClient client = Mockito.mock(IAcsClient.class);
+        Mockito.when(client.getAcsResponse(ArgumentMatchers.any(DescribeInvocationsRequest.class)))
+                .thenThrow(new ServerException("ServiceUnavailable", "message", "r-1"))
+                .thenReturn(new DescribeInvocationsResponse());
+        AcsClient acsClient = asyncClient(client);
+        try {
+            CompletableFuture<DescribeInvocationsResponse> retried = acsClient.sendRequestAsync(newRequest("t-1"));
+            TimeUnit.MILLISECONDS.sleep(200); // 首次请求失败，等待退避
+            // 退避期间不占用唯一的执行线程，其他请求可以立即执行
+            CompletableFuture<DescribeInvocationsResponse> other = acsClient.sendRequestAsync(newRequest("t-2"));
+            Assertions.assertNotNull(other.get(500, TimeUnit.MILLISECONDS));
+            Assertions.assertFalse(retried.isDone());
+            Assertions.assertNotNull(retried.get(5, TimeUnit.SECONDS));
+            Mockito.verify(client, Mockito.times(3)).getAcsResponse(ArgumentMatchers.any(DescribeInvocationsRequest.class));
+        } finally {
+            acsClient.destroy();
+        }
+    }
+
+    @Test
+    public void asyncRejectedReleasesPending() throws Exception {
+        AcsClient acsClient = asyncClient(Mockito.mock(IAcsClient.class));
+        ((ExecutorService) ReflectionTestUtils.getField(acsClient, "asyncExecutor")).shutdown();
+        CompletableFuture<DescribeInvocationsResponse> future = acsClient.sendRequestAsync(newRequest("t-1"));
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, future::get);
+        Assertions.assertEquals("SDK.AsyncRejected", ((ClientException) e.getCause()).getErrCode());
+        Assertions.assertEquals(0, ((AtomicInteger) ReflectionTestUtils.getField(acsClient, "asyncPending")).get());
+        acsClient.destroy();
+    }
+}
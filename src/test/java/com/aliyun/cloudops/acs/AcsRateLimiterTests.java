@@ -0,0 +1,92 @@
+package com.aliyun.cloudops.acs;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.aliyuncs.exceptions.ClientException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 令牌桶的预约与“乘性减、加性增”的速率调整
+ */
+public class AcsRateLimiterTests {
+
+    private static final String ACCOUNT = "ak";
+
+    private static final String ACTION = "DescribeInvocations";
+
+    private final AtomicLong now = new AtomicLong(1000000L);
+
+    private AcsRateLimiter limiter;
+
+    @BeforeEach
+    public void setUp() {
+        this.limiter = new AcsRateLimiter();
+        ReflectionTestUtils.setField(this.limiter, "clock", (LongSupplier) this.now::get);
+    }
+
+    private long rate() {
+        return this.limiter.getActionRates().get(ACTION);
+    }
+
+    @Test
+    public void throttledDecreasesOncePerInterval() throws ClientException {
+        this.limiter.acquire(ACCOUNT, ACTION, 0);
+        Assertions.assertEquals(1000, rate());
+
+        this.limiter.onThrottled(ACCOUNT, ACTION); // 创建后 1 秒内不调整
+        Assertions.assertEquals(1000, rate());
+
+        this.now.addAndGet(1000);
+        this.limiter.onThrottled(ACCOUNT, ACTION);
+        this.limiter.onThrottled(ACCOUNT, ACTION); // 同一时间窗口内只降低一次
+        Assertions.assertEquals(500, rate());
+
+        for (int i = 0; i < 5; i++) {
+            this.now.addAndGet(1000);
+            this.limiter.onThrottled(ACCOUNT, ACTION);
+        }
+        Assertions.assertEquals(100, rate()); // 不低于上限的 10%
+    }
+
+    @Test
+    public void successIncreasesAdditively() throws ClientException {
+        this.limiter.acquire(ACCOUNT, ACTION, 0);
+        this.now.addAndGet(1000);
+        this.limiter.onThrottled(ACCOUNT, ACTION);
+        Assertions.assertEquals(500, rate());
+
+        this.limiter.onSuccess(ACCOUNT, ACTION); // 降低后 1 秒内不恢复
+        Assertions.assertEquals(500, rate());
+
+        this.now.addAndGet(1000);
+        this.limiter.onSuccess(ACCOUNT, ACTION);
+        this.limiter.onSuccess(ACCOUNT, ACTION);
+        Assertions.assertEquals(550, rate());
+
+        for (int i = 0; i < 20; i++) {
+            this.now.addAndGet(1000);
+            this.limiter.onSuccess(ACCOUNT, ACTION);
+        }
+        Assertions.assertEquals(1000, rate()); // 不超过上限
+    }
+
+    @Test
+    public void reserveWithinMaxWait() throws ClientException {
+        ReflectionTestUtils.setField(this.limiter, "actionLimits", Collections.singletonMap(ACTION, 60));
+        this.limiter.acquire(ACCOUNT, ACTION, 0); // 每秒 1 个令牌，桶内只有 1 个
+
+        // 下一个令牌需要等待 1 秒，超出等待时间的请求立即失败
+        ClientException e = Assertions.assertThrows(ClientException.class,
+                () -> this.limiter.acquire(ACCOUNT, ACTION, 200));
+        Assertions.assertEquals("Throttling.Client", e.getErrCode());
+        Assertions.assertTrue(AcsRateLimiter.isThrottling(e));
+
+        this.now.addAndGet(1000);
+        this.limiter.acquire(ACCOUNT, ACTION, 0);
+    }
+}
@@ -0,0 +1,84 @@
+package com.aliyun.cloudops.acs;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AcsRetryPolicyTests {
+
+    private static AcsRetryPolicy newPolicy(int budgetPercent, int minPerSecond) {
+        AcsRetryPolicy policy = new AcsRetryPolicy();
+        ReflectionTestUtils.setField(policy, "budgetPercent", budgetPercent);
+        ReflectionTestUtils.setField(policy, "minPerSecond", minPerSecond);
+        ReflectionTestUtils.setField(policy, "baseDelayMillis", 0L);
+        ReflectionTestUtils.setField(policy, "maxDelayMillis", 0L);
+        return policy;
+    }
+
+    @Test
+    public void retriesLimitedByBudget() {
+        AcsRetryPolicy policy = newPolicy(10, 0);
+        Assertions.assertEquals(-1, policy.retryDelay(1)); // 尚未发起请求，没有预算
+
+        // 每 10 个请求存入一次重试
+        for (int i = 0; i < 10; i++) {
+            policy.onRequest();
+        }
+        Assertions.assertEquals(0, policy.retryDelay(1));
+        Assertions.assertEquals(-1, policy.retryDelay(2));
+
+        for (int i = 0; i < 25; i++) {
+            policy.onRequest();
+        }
+        Assertions.assertEquals(0, policy.retryDelay(1));
+        Assertions.assertEquals(0, policy.retryDelay(1));
+        Assertions.assertEquals(-1, policy.retryDelay(1));
+
+        Assertions.assertEquals(35, policy.getRequests());
+        Assertions.assertEquals(3, policy.getRetries());
+        Assertions.assertEquals(3, policy.getBudgetExhausted());
+    }
+
+    @Test
+    public void delayWithinCeiling() {
+        AcsRetryPolicy policy = newPolicy(100, 0);
+        ReflectionTestUtils.setField(policy, "baseDelayMillis", 100L);
+        ReflectionTestUtils.setField(policy, "maxDelayMillis", 300L);
+        for (int i = 0; i < 50; i++) {
+            policy.onRequest();
+        }
+        for (int i = 0; i < 50; i++) {
+            long delay = policy.retryDelay(1 + i % 3); // 上限依次为 200、300(400 超出最大值)、300
+            Assertions.assertTrue(delay >= 0 && delay <= (i % 3 == 0 ? 200 : 300), "delay: " + delay);
+        }
+    }
+
+    @Test
+    public void budgetRefilledOverTime() throws InterruptedException {
+        AcsRetryPolicy policy = newPolicy(0, 10);
+        ReflectionTestUtils.setField(policy, "budgetTime", System.currentTimeMillis());
+        Assertions.assertEquals(-1, policy.retryDelay(1));
+        Thread.sleep(150); // 请求量很小时，每秒至少 10 次
+        Assertions.assertEquals(0, policy.retryDelay(1));
+    }
+
+    @Test
+    public void refillKeepsRemainder() {
+        AcsRetryPolicy policy = newPolicy(0, 3); // 每毫秒 0.3 个单位
+        long budgetTime = System.currentTimeMillis() - 1001;
+        ReflectionTestUtils.setField(policy, "budgetTime", budgetTime);
+        policy.onRequest();
+        long budget = (long) ReflectionTestUtils.getField(policy, "budget");
+        Assertions.assertTrue(budget >= 300, "budget: " + budget);
+        // budgetTime 只前进已计入预算的时长，不足一个单位的时长留到下次计入
+        Assertions.assertEquals(budgetTime + (budget * 1000 + 299) / 300,
+                (long) ReflectionTestUtils.getField(policy, "budgetTime"));
+
+        policy = newPolicy(0, 1); // 每毫秒 0.1 个单位
+        budgetTime = System.currentTimeMillis() - 2;
+        ReflectionTestUtils.setField(policy, "budgetTime", budgetTime);
+        policy.onRequest();
+        Assertions.assertEquals(0L, ReflectionTestUtils.getField(policy, "budget"));
+        Assertions.assertEquals(budgetTime, (long) ReflectionTestUtils.getField(policy, "budgetTime"));
+    }
+}
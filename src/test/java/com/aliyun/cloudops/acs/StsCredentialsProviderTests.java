@@ -0,0 +1,114 @@
+package com.aliyun.cloudops.acs;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyuncs.IAcsClient;
+import com.aliyuncs.auth.AlibabaCloudCredentials;
+import com.aliyuncs.auth.sts.AssumeRoleRequest;
+import com.aliyuncs.auth.sts.AssumeRoleResponse;
+import com.aliyuncs.exceptions.ClientException;
+import com.aliyuncs.exceptions.ServerException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class StsCredentialsProviderTests {
+
+    private static final String ROLE_ARN = "acs:ram::123456789:role/cloudops";
+
+    private static AssumeRoleResponse assumed(String accessKeyId) {
+        AssumeRoleResponse.Credentials credentials = new AssumeRoleResponse.Credentials();
+        credentials.setAccessKeyId(accessKeyId);
+        credentials.setAccessKeySecret("secret");
+        credentials.setSecurityToken("token");
+        credentials.setExpiration(Instant.now().plusSeconds(3600).toString());
+        AssumeRoleResponse response = new AssumeRoleResponse();
+        response.setCredentials(credentials);
+        return response;
+    }
+
+    @Test
+    public void fetchedAtStart() throws ClientException {
+        IAcsClient client = Mockito.mock(IAcsClient.class);
+        Mockito.when(client.getAcsResponse(ArgumentMatchers.any(AssumeRoleRequest.class))).thenReturn(assumed("STS.1"));
+        StsCredentialsProvider provider = new StsCredentialsProvider(client, ROLE_ARN, 3600, 600, null);
+        try {
+            provider.start();
+            Mockito.verify(client, Mockito.times(1)).getAcsResponse(ArgumentMatchers.any(AssumeRoleRequest.class));
+            for (int i = 0; i < 10; i++) {
+                AlibabaCloudCredentials credentials = provider.getCredentials();
+                Assertions.assertEquals("STS.1", credentials.getAccessKeyId());
+            }
+            Mockito.verify(client, Mockito.times(1)).getAcsResponse(ArgumentMatchers.any(AssumeRoleRequest.class));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void failFastAfterFailure() throws ClientException {
+        IAcsClient client = Mockito.mock(IAcsClient.class);
+        Mockito.when(client.getAcsResponse(ArgumentMatchers.any(AssumeRoleRequest.class)))
+                .thenThrow(new ServerException("ServiceUnavailable", "sts is unavailable", "r-1"));
+        StsCredentialsProvider provider = new StsCredentialsProvider(client, ROLE_ARN, 3600, 600, null);
+        try {
+            provider.start(); // 启动时获取失败，不抛出异常
+            // 重试间隔内的调用方立即失败，不再各自发起 AssumeRole
+            for (int i = 0; i < 10; i++) {
+                ClientException e = Assertions.assertThrows(ClientException.class, provider::getCredentials);
+                Assertions.assertEquals("SDK.InvalidCredentials", e.getErrCode());
+                Assertions.assertTrue(e.getErrMsg().contains("sts is unavailable"));
+            }
+            Mockito.verify(client, Mockito.times(1)).getAcsResponse(ArgumentMatchers.any(AssumeRoleRequest.class));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void singleFlightWhenExpired() throws Exception {
+        IAcsClient client = Mockito.mock(IAcsClient.class);
+        Mockito.when(client.getAcsResponse(ArgumentMatchers.any(AssumeRoleRequest.class))).thenAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(100);
+            return assumed("STS.1");
+        });
+        StsCredentialsProvider provider = new StsCredentialsProvider(client, ROLE_ARN, 3600, 600, null);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            // 尚无凭证(视为已过期)时，并发读取凭证的调用方只发起一次 AssumeRole
+            CountDownLatch ready = new CountDownLatch(1);
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        ready.await();
+                        return provider.getCredentials().getAccessKeyId();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, executor));
+            }
+            ready.countDown();
+            for (CompletableFuture<String> future : futures) {
+                Assertions.assertEquals("STS.1", future.get(5, TimeUnit.SECONDS));
+            }
+
+            // 判断凭证已过期之后，另一次刷新已完成：取得刷新权的调用方不再发起 AssumeRole
+            CompletableFuture<?> refreshed = ReflectionTestUtils.invokeMethod(provider, "refresh", false);
+            Assertions.assertNotNull(refreshed.get());
+            Mockito.verify(client, Mockito.times(1)).getAcsResponse(ArgumentMatchers.any(AssumeRoleRequest.class));
+        } finally {
+            executor.shutdownNow();
+            provider.shutdown();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.aliyun.cloudops.acs.ecs.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant;
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+import com.aliyun.cloudops.domain.OpsTask;
+import com.aliyun.cloudops.domain.OpsTaskInvocation;
+import com.aliyun.cloudops.service.TaskService;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 恢复的任务中，未查询到的批次记为失败，其他批次继续轮询
+ */
+public class OpsTaskControllerTests {
+
+    private static final String TASK_INVOKE_ID = "t-1";
+
+    private final CloudAssistant cloudAssistant = Mockito.mock(CloudAssistant.class);
+
+    private final TaskService taskService = Mockito.mock(TaskService.class);
+
+    private OpsTaskController controller;
+
+    private OpsTask task;
+
+    private List<OpsTaskInvocation> chunks;
+
+    @BeforeEach
+    public void setUp() {
+        this.controller = new OpsTaskController();
+        ReflectionTestUtils.setField(this.controller, "cloudAssistant", this.cloudAssistant);
+        ReflectionTestUtils.setField(this.controller, "taskService", this.taskService);
+
+        this.task = new OpsTask();
+        this.task.setId(1);
+        this.task.setRegionId("cn-hangzhou");
+        this.task.setInvokeId(TASK_INVOKE_ID);
+        this.task.setInstances(200);
+        this.task.setStatus(InvocationStatus.Pending);
+        this.task.setCreationTime(new Date());
+        this.chunks = Arrays.asList(newChunk(TASK_INVOKE_ID), newChunk("t-2"));
+        Mockito.when(this.taskService.findTaskInvocations(TASK_INVOKE_ID)).thenReturn(this.chunks);
+    }
+
+    private OpsTaskInvocation newChunk(String invokeId) {
+        OpsTaskInvocation chunk = new OpsTaskInvocation();
+        chunk.setRegionId("cn-hangzhou");
+        chunk.setTaskInvokeId(TASK_INVOKE_ID);
+        chunk.setInvokeId(invokeId);
+        chunk.setInstances(100);
+        chunk.setStatus(InvocationStatus.Pending);
+        chunk.setErrorCode("");
+        chunk.setCreationTime(new Date());
+        return chunk;
+    }
+
+    private static Invocation newInvocation(String invokeId, InvocationStatus status) {
+        Invocation invocation = new Invocation();
+        invocation.setInvokeId(invokeId);
+        invocation.setInvocationStatus(status.name());
+        invocation.setInvokeInstances(new ArrayList<>());
+        return invocation;
+    }
+
+    /**
+     * @return - 各批次注册的轮询回调，与批次的顺序相同
+     */
+    @SuppressWarnings("unchecked")
+    private List<Predicate<Invocation>> callbacks() {
+        ArgumentCaptor<Predicate<Invocation>> captor = ArgumentCaptor.forClass(Predicate.class);
+        Mockito.verify(this.cloudAssistant, Mockito.times(this.chunks.size())).scheduleTaskQuery(
+                ArgumentMatchers.eq("cn-hangzhou"), ArgumentMatchers.anyString(), ArgumentMatchers.anyLong(),
+                captor.capture(), ArgumentMatchers.anyLong(), ArgumentMatchers.eq(TimeUnit.MILLISECONDS));
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void notFoundChunkFailsWithLease() {
+        ReflectionTestUtils.setField(this.controller, "leaseEnabled", true);
+        ReflectionTestUtils.invokeMethod(this.controller, "resumeClaimedTask", this.task);
+        List<Predicate<Invocation>> callbacks = this.callbacks();
+
+        Assertions.assertTrue(callbacks.get(0).test(null)); // 未查询到的批次停止轮询
+        OpsTaskInvocation missing = this.chunks.get(0);
+        Assertions.assertEquals(InvocationStatus.Failed, missing.getStatus());
+        Assertions.assertEquals("InvocationNotFound", missing.getErrorCode());
+        Mockito.verify(this.taskService).saveTaskInvocation(missing);
+
+        // 仍持有该任务，其他批次继续轮询，租约不会被释放后重新接管
+        Map<?, ?> ownedTasks = (Map<?, ?>) ReflectionTestUtils.getField(this.controller, "ownedTasks");
+        Assertions.assertTrue(ownedTasks.containsKey(TASK_INVOKE_ID));
+        Assertions.assertFalse(callbacks.get(1).test(newInvocation("t-2", InvocationStatus.Running)));
+        Assertions.assertEquals(InvocationStatus.Pending, this.task.getStatus());
+
+        Assertions.assertTrue(callbacks.get(1).test(newInvocation("t-2", InvocationStatus.Success)));
+        Assertions.assertEquals(InvocationStatus.PartialFailed, this.task.getStatus());
+        Assertions.assertNotNull(this.task.getFinishTime());
+        Assertions.assertFalse(ownedTasks.containsKey(TASK_INVOKE_ID));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void notFoundTaskFinishesOnResume() {
+        // 早期没有批次记录的任务，以任务的 InvokeId 补充一个批次
+        this.chunks = Collections.emptyList();
+        Mockito.when(this.taskService.findTaskInvocations(TASK_INVOKE_ID)).thenReturn(this.chunks);
+        Mockito.when(this.taskService.findUnfinishedTasks(ArgumentMatchers.any(Date.class), ArgumentMatchers.eq(0L),
+                ArgumentMatchers.anyInt())).thenReturn(Collections.singletonList(this.task));
+        this.controller.resumeTasks();
+
+        ArgumentCaptor<Predicate<Invocation>> captor = ArgumentCaptor.forClass(Predicate.class);
+        Mockito.verify(this.cloudAssistant).scheduleTaskQuery(ArgumentMatchers.eq("cn-hangzhou"),
+                ArgumentMatchers.eq(TASK_INVOKE_ID), ArgumentMatchers.anyLong(), captor.capture(),
+                ArgumentMatchers.anyLong(), ArgumentMatchers.eq(TimeUnit.MILLISECONDS));
+        Assertions.assertTrue(captor.getValue().test(null));
+
+        // 云助手的执行记录已过期，任务记为失败，下次启动时不再恢复
+        Assertions.assertEquals(InvocationStatus.Failed, this.task.getStatus());
+        Assertions.assertNotNull(this.task.getFinishTime());
+        Mockito.verify(this.taskService).updateTask(this.task);
+    }
+}
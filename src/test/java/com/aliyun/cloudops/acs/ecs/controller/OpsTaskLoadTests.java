@@ -0,0 +1,199 @@
+package com.aliyun.cloudops.acs.ecs.controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.aliyun.cloudops.acs.simulator.AcsSimulator;
+import com.aliyun.cloudops.domain.OpsTask;
+import com.aliyun.cloudops.domain.OpsTaskInvocation;
+import com.aliyun.cloudops.service.TaskService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * <pre>
+ * 运维任务全流程的压力测试：以固定速率调用 PUT /api/ecs/tasks/{regionId} 创建任务，OpenAPI 请求发送到本地的
+ * {@link AcsSimulator}，经过发送命令、保存任务、轮询状态、更新任务明细，直到任务在数据库中结束。报告：
+ *   - 持续的任务吞吐量：从第一个任务提交到最后一个任务结束，每秒结束的任务数；
+ *   - 轮询发现的延迟：任务在模拟服务上执行结束，到 DescribeInvocations 首次返回结束状态的时间；
+ *   - 全流程的延迟：任务在模拟服务上执行结束，到任务在数据库中记为结束的时间。
+ * 默认不执行，运行方式：
+ *   mvn test -Dtest=OpsTaskLoadTests -Dbenchmark=true -Dload.tasksPerSecond=20 -Dload.seconds=60
+ * 其他参数：load.instances(每个任务的实例数)、load.timeout(命令的超时秒数)、load.drainSeconds(等待任务结束的时长)、
+ * load.rateLimit(是否启用客户端限流)，以及 simulator.latency、simulator.dispatch、simulator.duration、
+ * simulator.qps、simulator.throttleRate、simulator.errorRate、simulator.failureRate，格式见 {@link AcsSimulator}。
+ * </pre>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class OpsTaskLoadTests {
+
+    private static final String REGION_ID = "cn-hangzhou";
+
+    private static final AcsSimulator simulator = new AcsSimulator();
+
+    private static final Logger logger = LoggerFactory.getLogger(OpsTaskLoadTests.class);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TaskService taskService;
+
+    @DynamicPropertySource
+    static void simulatorProperties(DynamicPropertyRegistry registry) throws IOException {
+        simulator.setLatency(System.getProperty("simulator.latency", "lognormal:15,0.5"));
+        simulator.setDispatch(System.getProperty("simulator.dispatch", "uniform:200,1000"));
+        simulator.setDuration(System.getProperty("simulator.duration", "lognormal:5000,0.5"));
+        simulator.setQps(Integer.getInteger("simulator.qps", 0));
+        simulator.setThrottleRate(Double.parseDouble(System.getProperty("simulator.throttleRate", "0")));
+        simulator.setErrorRate(Double.parseDouble(System.getProperty("simulator.errorRate", "0")));
+        simulator.setFailureRate(Double.parseDouble(System.getProperty("simulator.failureRate", "0")));
+        simulator.start(0);
+        registry.add("acs.profile.endpoint", simulator::getEndpoint);
+        registry.add("acs.profile.http.protocol", () -> "HTTP");
+        registry.add("acs.profile.accessKeyId", () -> "simulator");
+        registry.add("acs.profile.accessSecret", () -> "simulator");
+        registry.add("acs.profile.ramRoleArn", () -> "");
+        registry.add("acs.profile.rateLimit.enabled", () -> System.getProperty("load.rateLimit", "false"));
+        registry.add("com.aliyun.cloudops.task.resume.enabled", () -> "false");
+    }
+
+    @AfterAll
+    static void stopSimulator() {
+        simulator.stop();
+    }
+
+    @Test
+    public void sustainedThroughput() throws InterruptedException {
+        int tasksPerSecond = Integer.getInteger("load.tasksPerSecond", 10);
+        int seconds = Integer.getInteger("load.seconds", 60);
+        int instances = Integer.getInteger("load.instances", 10);
+        int timeout = Integer.getInteger("load.timeout", 60);
+        int drainSeconds = Integer.getInteger("load.drainSeconds", 180);
+
+        List<String> instanceIds = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            instanceIds.add(String.format("i-sim%015d", i));
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("name", "load-test");
+        body.put("type", "RunShellScript");
+        body.put("commandContent", "echo hello");
+        body.put("timeout", timeout);
+        body.put("instanceIds", instanceIds);
+
+        Map<String, Long> submitted = new ConcurrentHashMap<>();
+        List<Long> submitMillis = new CopyOnWriteArrayList<>();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicReference<String> rejection = new AtomicReference<>();
+        ExecutorService submitters = Executors.newFixedThreadPool(Math.max(8, tasksPerSecond));
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        long startTime = System.currentTimeMillis();
+        ticker.scheduleAtFixedRate(() -> submitters.execute(() -> {
+            long begin = System.currentTimeMillis();
+            try {
+                ResponseEntity<Map> response = this.restTemplate.exchange("/api/ecs/tasks/" + REGION_ID,
+                        HttpMethod.PUT, new HttpEntity<>(body), Map.class);
+                Object invokeId = response.getBody() == null ? null : response.getBody().get("invokeId");
+                if (response.getStatusCode().is2xxSuccessful() && invokeId != null) {
+                    submitted.put(invokeId.toString(), begin);
+                    submitMillis.add(System.currentTimeMillis() - begin);
+                } else {
+                    rejected.incrementAndGet();
+                    rejection.compareAndSet(null, response.getStatusCode() + " " + response.getBody());
+                }
+            } catch (RuntimeException e) {
+                rejected.incrementAndGet();
+                rejection.compareAndSet(null, e.toString());
+            }
+        }), 0, TimeUnit.SECONDS.toNanos(1) / tasksPerSecond, TimeUnit.NANOSECONDS);
+        TimeUnit.SECONDS.sleep(seconds);
+        ticker.shutdownNow();
+        submitters.shutdown();
+        Assertions.assertTrue(submitters.awaitTermination(60, TimeUnit.SECONDS));
+
+        // 等待已提交的任务在数据库中结束
+        Map<String, Long> pending = new HashMap<>(submitted);
+        List<Long> detectMillis = new ArrayList<>();
+        List<Long> pipelineMillis = new ArrayList<>();
+        long lastFinish = startTime;
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(drainSeconds);
+        while (!pending.isEmpty() && System.currentTimeMillis() < deadline) {
+            for (Iterator<String> iterator = pending.keySet().iterator(); iterator.hasNext(); ) {
+                String invokeId = iterator.next();
+                OpsTask task = this.taskService.findTask(invokeId);
+                if (task == null || task.getFinishTime() == null) {
+                    continue;
+                }
+                iterator.remove();
+                long finishTime = 0;
+                for (OpsTaskInvocation invocation : this.taskService.findTaskInvocations(invokeId)) {
+                    if (invocation.getInvokeId() == null) {
+                        continue;
+                    }
+                    long simulatedFinish = simulator.getFinishTime(invocation.getInvokeId());
+                    long detectTime = simulator.getDetectTime(invocation.getInvokeId());
+                    if (detectTime > 0) {
+                        detectMillis.add(detectTime - simulatedFinish);
+                    }
+                    finishTime = Math.max(finishTime, simulatedFinish);
+                }
+                pipelineMillis.add(task.getFinishTime().getTime() - finishTime);
+                lastFinish = Math.max(lastFinish, task.getFinishTime().getTime());
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+        }
+
+        int finished = submitted.size() - pending.size();
+        logger.info("target: {} tasks/s x {}s, instances: {}, submitted: {}, rejected: {}, finished: {}.",
+                tasksPerSecond, seconds, instances, submitted.size(), rejected.get(), finished);
+        logger.info("sustained throughput: {} tasks/s.",
+                String.format("%.1f", finished * 1000.0 / (lastFinish - startTime)));
+        logger.info("submit latency (ms): {}.", percentiles(submitMillis));
+        logger.info("poll detection latency (ms): {}.", percentiles(detectMillis));
+        logger.info("pipeline latency (ms): {}.", percentiles(pipelineMillis));
+        logger.info("simulator requests: {}.", simulator.getRequestCounts());
+        Assertions.assertEquals(0, rejected.get(), "submissions rejected, first: " + rejection.get());
+        Assertions.assertTrue(pending.isEmpty(), pending.size() + " tasks not finished in " + drainSeconds + "s");
+    }
+
+    private static String percentiles(List<Long> values) {
+        if (values.isEmpty()) {
+            return "n/a";
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return String.format("p50: %d, p90: %d, p99: %d, max: %d", percentile(sorted, 50), percentile(sorted, 90),
+                percentile(sorted, 99), sorted.get(sorted.size() - 1));
+    }
+
+    private static long percentile(List<Long> sorted, int percent) {
+        return sorted.get(Math.min(sorted.size() - 1, sorted.size() * percent / 100));
+    }
+}
@@ -0,0 +1,68 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aliyuncs.ecs.model.v20140526.RunCommandRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CommandChunkTests {
+
+    private static RunCommandRequest newRequest(int instances) {
+        List<String> instanceIds = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            instanceIds.add("i-" + i);
+        }
+        Map<Object, Object> parameters = new HashMap<>();
+        parameters.put("path", "/tmp");
+        RunCommandRequest request = new RunCommandRequest();
+        request.setSysRegionId("cn-hangzhou");
+        request.setInstanceIds(instanceIds);
+        request.setClientToken("token");
+        request.setType("RunShellScript");
+        request.setCommandContent("ls {{path}}");
+        request.setEnableParameter(true);
+        request.setParameters(parameters);
+        request.setTimeout(600L);
+        request.putQueryParameter("Tag.1.Key", "owner"); // 未逐个复制的参数
+        return request;
+    }
+
+    @Test
+    public void chunksKeepParameters() {
+        RunCommandRequest request = newRequest(250);
+        List<RunCommandRequest> chunks = CloudAssistant.chunkRequests(request);
+        Assertions.assertEquals(3, chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            RunCommandRequest chunk = chunks.get(i);
+            Assertions.assertEquals("token-" + i, chunk.getClientToken());
+            Assertions.assertEquals("cn-hangzhou", chunk.getSysRegionId());
+            Assertions.assertEquals(600L, chunk.getTimeout());
+            Assertions.assertEquals(request.getParameters(), chunk.getParameters());
+            Assertions.assertEquals("ls {{path}}", chunk.getCommandContent());
+
+            Map<String, String> query = chunk.getSysQueryParameters();
+            Assertions.assertEquals("token-" + i, query.get("ClientToken"));
+            Assertions.assertEquals("600", query.get("Timeout"));
+            Assertions.assertEquals(request.getSysQueryParameters().get("Parameters"), query.get("Parameters"));
+            Assertions.assertEquals("owner", query.get("Tag.1.Key"));
+            Assertions.assertEquals(chunk.getInstanceIds().size(),
+                    query.keySet().stream().filter(name -> name.startsWith("InstanceId.")).count());
+        }
+        Assertions.assertEquals(100, chunks.get(0).getInstanceIds().size());
+        Assertions.assertEquals("i-100", chunks.get(1).getInstanceIds().get(0));
+        Assertions.assertEquals(50, chunks.get(2).getInstanceIds().size());
+        Assertions.assertNull(chunks.get(2).getSysQueryParameters().get("InstanceId.51"));
+    }
+
+    @Test
+    public void singleChunkKeepsClientToken() {
+        List<RunCommandRequest> chunks = CloudAssistant.chunkRequests(newRequest(100));
+        Assertions.assertEquals(1, chunks.size());
+        Assertions.assertEquals("token", chunks.get(0).getClientToken());
+        Assertions.assertEquals("token", chunks.get(0).getSysQueryParameters().get("ClientToken"));
+    }
+}
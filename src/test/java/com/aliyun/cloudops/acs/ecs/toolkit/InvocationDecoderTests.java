@@ -0,0 +1,217 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.aliyuncs.AcsResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationResultsResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationResultsResponse.Invocation.InvocationResult;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation;
+import com.aliyuncs.ecs.model.v20140526.DescribeInvocationsResponse.Invocation.InvokeInstance;
+import com.aliyuncs.http.FormatType;
+import com.aliyuncs.http.HttpResponse;
+import com.aliyuncs.reader.ReaderFactory;
+import com.aliyuncs.transform.UnmarshallerContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 流式解码的结果与 SDK 解析的结果在轮询读取的字段上一致
+ */
+public class InvocationDecoderTests {
+
+    // DescribeInvocations 的响应，包含解码器跳过的命令内容、参数、标签等字段
+    private static final String INVOCATIONS = "{"
+            + "\"PageSize\":10,\"RequestId\":\"E69EF3CC-94CD-42E7-8926-F133B86387C0\",\"PageNumber\":1,\"TotalCount\":2,"
+            + "\"Invocations\":{\"Invocation\":[{"
+            + "\"CreationTime\":\"2024-05-11T08:00:00Z\",\"InvocationStatus\":\"Running\",\"InvokeStatus\":\"Running\","
+            + "\"Frequency\":\"\",\"CommandId\":\"c-hz01272yr52****\",\"CommandName\":\"ops-check\",\"CommandType\":\"RunShellScript\","
+            + "\"InvokeId\":\"t-hz0jdfwd9f****\",\"RepeatMode\":\"Once\",\"Timeout\":60,\"Username\":\"root\",\"Parameters\":\"{}\","
+            + "\"CommandContent\":\"ZWNobyAxMjM=\",\"Tags\":{\"Tag\":[{\"TagKey\":\"owner\",\"TagValue\":\"ops\"}]},"
+            + "\"InvokeInstances\":{\"InvokeInstance\":[{"
+            + "\"InstanceId\":\"i-bp1i7gg30r52z2em****\",\"InvocationStatus\":\"Success\",\"InstanceInvokeStatus\":\"Finished\","
+            + "\"ExitCode\":0,\"Output\":\"MTIz\",\"Dropped\":0,\"ErrorCode\":\"\",\"ErrorInfo\":\"\",\"Repeats\":1,"
+            + "\"CreationTime\":\"2024-05-11T08:00:00Z\",\"StartTime\":\"2024-05-11T08:00:01Z\","
+            + "\"UpdateTime\":\"2024-05-11T08:00:02Z\",\"FinishTime\":\"2024-05-11T08:00:02Z\",\"Timed\":false"
+            + "},{"
+            + "\"InstanceId\":\"i-bp1i7gg30r52z2em****2\",\"InvocationStatus\":\"Failed\",\"InstanceInvokeStatus\":\"Finished\","
+            + "\"ExitCode\":1,\"Output\":\"ZXJyb3I=\",\"Dropped\":12,\"ErrorCode\":\"InstanceNotExists\","
+            + "\"ErrorInfo\":\"the specified instance does not exist\",\"FinishTime\":\"2024-05-11T08:00:03Z\""
+            + "}]}},{"
+            + "\"CreationTime\":\"2024-05-11T08:01:00Z\",\"InvocationStatus\":\"Pending\",\"InvokeStatus\":\"Running\","
+            + "\"CommandId\":\"c-hz01272yr53****\",\"CommandName\":\"ops-restart\",\"CommandType\":\"RunPowerShellScript\","
+            + "\"InvokeId\":\"t-hz0jdfwd9g****\",\"RepeatMode\":\"Once\",\"Timeout\":3600,"
+            + "\"InvokeInstances\":{\"InvokeInstance\":[{"
+            + "\"InstanceId\":\"i-bp1i7gg30r52z2em****3\",\"InvocationStatus\":\"Pending\",\"InstanceInvokeStatus\":\"Pending\","
+            + "\"Dropped\":0,\"ErrorCode\":\"\",\"ErrorInfo\":\"\",\"Repeats\":0"
+            + "}]}}]}}";
+
+    // DescribeInvocationResults 的响应
+    private static final String INVOCATION_RESULTS = "{"
+            + "\"RequestId\":\"E69EF3CC-94CD-42E7-8926-F133B86387C1\","
+            + "\"Invocation\":{\"PageSize\":10,\"PageNumber\":1,\"TotalCount\":2,\"NextToken\":\"\","
+            + "\"InvocationResults\":{\"InvocationResult\":[{"
+            + "\"CommandId\":\"c-hz01272yr52****\",\"InvokeId\":\"t-hz0jdfwd9f****\",\"InstanceId\":\"i-bp1i7gg30r52z2em****\","
+            + "\"InvocationStatus\":\"Success\",\"InvokeRecordStatus\":\"Finished\",\"ExitCode\":0,\"Output\":\"MTIz\","
+            + "\"Dropped\":0,\"ErrorCode\":\"\",\"ErrorInfo\":\"\",\"Repeats\":1,\"Username\":\"root\","
+            + "\"StartTime\":\"2024-05-11T08:00:01Z\",\"StopTime\":\"\",\"FinishedTime\":\"2024-05-11T08:00:02Z\","
+            + "\"Tags\":{\"Tag\":[{\"TagKey\":\"owner\",\"TagValue\":\"ops\"}]}"
+            + "},{"
+            + "\"CommandId\":\"c-hz01272yr52****\",\"InvokeId\":\"t-hz0jdfwd9f****\",\"InstanceId\":\"i-bp1i7gg30r52z2em****2\","
+            + "\"InvocationStatus\":\"Running\",\"InvokeRecordStatus\":\"Running\",\"Output\":\"\",\"Dropped\":0,"
+            + "\"ErrorCode\":\"\",\"ErrorInfo\":\"\",\"Repeats\":0"
+            + "}]}}}";
+
+    private static <T extends AcsResponse> T sdkDecode(T response, String action, String json) throws Exception {
+        UnmarshallerContext context = new UnmarshallerContext();
+        context.setResponseMap(ReaderFactory.createInstance(FormatType.JSON).read(json, action));
+        HttpResponse httpResponse = new HttpResponse();
+        httpResponse.setHttpContent(json.getBytes(StandardCharsets.UTF_8), "UTF-8", FormatType.JSON);
+        context.setHttpResponse(httpResponse);
+        return (T) response.getInstance(context);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void invocationsMatchSdk() throws Exception {
+        DescribeInvocationsResponse expected = sdkDecode(new DescribeInvocationsResponse(), "DescribeInvocationsResponse", INVOCATIONS);
+        DescribeInvocationsResponse actual = InvocationDecoder.decodeInvocations(bytes(INVOCATIONS));
+
+        Assertions.assertEquals(expected.getRequestId(), actual.getRequestId());
+        Assertions.assertEquals(expected.getTotalCount(), actual.getTotalCount());
+        Assertions.assertEquals(expected.getPageNumber(), actual.getPageNumber());
+        Assertions.assertEquals(expected.getPageSize(), actual.getPageSize());
+        Assertions.assertEquals(2, actual.getInvocations().size());
+        Assertions.assertEquals(expected.getInvocations().size(), actual.getInvocations().size());
+        for (int i = 0; i < expected.getInvocations().size(); i++) {
+            Invocation e = expected.getInvocations().get(i);
+            Invocation a = actual.getInvocations().get(i);
+            Assertions.assertEquals(e.getInvokeId(), a.getInvokeId());
+            Assertions.assertEquals(e.getCommandId(), a.getCommandId());
+            Assertions.assertEquals(e.getCommandName(), a.getCommandName());
+            Assertions.assertEquals(e.getCommandType(), a.getCommandType());
+            Assertions.assertEquals(e.getRepeatMode(), a.getRepeatMode());
+            Assertions.assertEquals(e.getInvocationStatus(), a.getInvocationStatus());
+            Assertions.assertEquals(e.getInvokeStatus(), a.getInvokeStatus());
+            Assertions.assertEquals(e.getCreationTime(), a.getCreationTime());
+            Assertions.assertEquals(e.getTimeout(), a.getTimeout());
+            Assertions.assertEquals(e.getInvokeInstances().size(), a.getInvokeInstances().size());
+            for (int j = 0; j < e.getInvokeInstances().size(); j++) {
+                assertInstance(e.getInvokeInstances().get(j), a.getInvokeInstances().get(j));
+            }
+            // 轮询不需要的字段不解码
+            Assertions.assertNull(a.getCommandContent());
+        }
+    }
+
+    private static void assertInstance(InvokeInstance expected, InvokeInstance actual) {
+        Assertions.assertEquals(expected.getInstanceId(), actual.getInstanceId());
+        Assertions.assertEquals(expected.getInvocationStatus(), actual.getInvocationStatus());
+        Assertions.assertEquals(expected.getInstanceInvokeStatus(), actual.getInstanceInvokeStatus());
+        Assertions.assertEquals(expected.getExitCode(), actual.getExitCode());
+        Assertions.assertEquals(expected.getOutput(), actual.getOutput());
+        Assertions.assertEquals(expected.getDropped(), actual.getDropped());
+        Assertions.assertEquals(expected.getErrorCode(), actual.getErrorCode());
+        Assertions.assertEquals(expected.getErrorInfo(), actual.getErrorInfo());
+        Assertions.assertEquals(expected.getFinishTime(), actual.getFinishTime());
+    }
+
+    @Test
+    public void invocationResultsMatchSdk() throws Exception {
+        DescribeInvocationResultsResponse expected = sdkDecode(new DescribeInvocationResultsResponse(),
+                "DescribeInvocationResultsResponse", INVOCATION_RESULTS);
+        DescribeInvocationResultsResponse actual = InvocationDecoder.decodeInvocationResults(bytes(INVOCATION_RESULTS));
+
+        Assertions.assertEquals(expected.getRequestId(), actual.getRequestId());
+        Assertions.assertEquals(expected.getInvocation().getTotalCount(), actual.getInvocation().getTotalCount());
+        Assertions.assertEquals(expected.getInvocation().getPageNumber(), actual.getInvocation().getPageNumber());
+        Assertions.assertEquals(expected.getInvocation().getPageSize(), actual.getInvocation().getPageSize());
+        List<InvocationResult> expectedResults = expected.getInvocation().getInvocationResults();
+        List<InvocationResult> actualResults = actual.getInvocation().getInvocationResults();
+        Assertions.assertEquals(2, actualResults.size());
+        Assertions.assertEquals(expectedResults.size(), actualResults.size());
+        for (int i = 0; i < expectedResults.size(); i++) {
+            InvocationResult e = expectedResults.get(i);
+            InvocationResult a = actualResults.get(i);
+            Assertions.assertEquals(e.getInvokeId(), a.getInvokeId());
+            Assertions.assertEquals(e.getInstanceId(), a.getInstanceId());
+            Assertions.assertEquals(e.getInvocationStatus(), a.getInvocationStatus());
+            Assertions.assertEquals(e.getInvokeRecordStatus(), a.getInvokeRecordStatus());
+            Assertions.assertEquals(e.getExitCode(), a.getExitCode());
+            Assertions.assertEquals(e.getOutput(), a.getOutput());
+            Assertions.assertEquals(e.getDropped(), a.getDropped());
+            Assertions.assertEquals(e.getErrorCode(), a.getErrorCode());
+            Assertions.assertEquals(e.getErrorInfo(), a.getErrorInfo());
+            Assertions.assertEquals(e.getFinishedTime(), a.getFinishedTime());
+        }
+    }
+
+    @Test
+    public void nullAndStringValues() throws IOException {
+        String json = "{\"RequestId\":null,\"TotalCount\":\"1\",\"Invocations\":{\"Invocation\":[{"
+                + "\"InvokeId\":\"t-1\",\"Timeout\":\"\",\"InvokeInstances\":{\"InvokeInstance\":[{"
+                + "\"InstanceId\":\"i-1\",\"ExitCode\":null,\"Output\":null,\"Dropped\":\"3\",\"ErrorInfo\":{\"Detail\":\"x\"}"
+                + "},{\"InstanceId\":\"i-2\",\"ExitCode\":\"-1\"}]}}]}}";
+        DescribeInvocationsResponse response = InvocationDecoder.decodeInvocations(bytes(json));
+        Assertions.assertNull(response.getRequestId());
+        Assertions.assertEquals(1L, response.getTotalCount());
+        Invocation invocation = response.getInvocations().get(0);
+        Assertions.assertNull(invocation.getTimeout());
+        InvokeInstance first = invocation.getInvokeInstances().get(0);
+        Assertions.assertNull(first.getExitCode());
+        Assertions.assertNull(first.getOutput());
+        Assertions.assertEquals(3, first.getDropped());
+        Assertions.assertNull(first.getErrorInfo()); // 非标量的值跳过
+        Assertions.assertEquals(-1L, invocation.getInvokeInstances().get(1).getExitCode());
+    }
+
+    @Test
+    public void nonObjectListItems() throws IOException {
+        // 数组中非对象的元素跳过；未以 {"Invocation": [...]} 包装的列表视为空
+        String json = "{\"Invocations\":{\"Invocation\":[null,1,\"t-0\",[{\"InvokeId\":\"t-x\"}],{"
+                + "\"InvokeId\":\"t-1\",\"InvokeInstances\":[{\"InstanceId\":\"i-1\"}]"
+                + "},{\"InvokeId\":\"t-2\",\"InvokeInstances\":\"\"},{"
+                + "\"InvokeId\":\"t-3\",\"InvokeInstances\":{\"InvokeInstance\":[]}"
+                + "}],\"Extra\":{\"Ignored\":true}},\"TotalCount\":3}";
+        DescribeInvocationsResponse response = InvocationDecoder.decodeInvocations(bytes(json));
+        Assertions.assertEquals(3L, response.getTotalCount());
+        Assertions.assertEquals(3, response.getInvocations().size());
+        Assertions.assertEquals("t-1", response.getInvocations().get(0).getInvokeId());
+        Assertions.assertEquals("t-2", response.getInvocations().get(1).getInvokeId());
+        Assertions.assertEquals("t-3", response.getInvocations().get(2).getInvokeId());
+        for (Invocation invocation : response.getInvocations()) {
+            Assertions.assertTrue(invocation.getInvokeInstances().isEmpty());
+        }
+
+        DescribeInvocationResultsResponse results = InvocationDecoder.decodeInvocationResults(
+                bytes("{\"Invocation\":[],\"RequestId\":\"r-1\"}"));
+        Assertions.assertEquals("r-1", results.getRequestId());
+        Assertions.assertTrue(results.getInvocation().getInvocationResults().isEmpty());
+    }
+
+    @Test
+    public void errorResponse() throws IOException {
+        // 错误响应由 AcsClient 按状态码处理，不会交给解码器；即使交给解码器，也只得到空的列表
+        String json = "{\"RequestId\":\"r-1\",\"HostId\":\"ecs.aliyuncs.com\",\"Code\":\"InvalidRegionId.NotFound\","
+                + "\"Message\":\"The specified RegionId does not exist.\"}";
+        DescribeInvocationsResponse response = InvocationDecoder.decodeInvocations(bytes(json));
+        Assertions.assertEquals("r-1", response.getRequestId());
+        Assertions.assertTrue(response.getInvocations().isEmpty());
+    }
+
+    @Test
+    public void malformedResponse() {
+        Assertions.assertThrows(IOException.class, () -> InvocationDecoder.decodeInvocations(bytes("[]")));
+        Assertions.assertThrows(IOException.class, () -> InvocationDecoder.decodeInvocationResults(bytes("\"text\"")));
+        Assertions.assertThrows(IOException.class, () -> InvocationDecoder.decodeInvocations(bytes("")));
+        String truncated = INVOCATIONS.substring(0, INVOCATIONS.indexOf("\"ExitCode\":1"));
+        Assertions.assertThrows(IOException.class, () -> InvocationDecoder.decodeInvocations(bytes(truncated)));
+        String truncatedResults = INVOCATION_RESULTS.substring(0, INVOCATION_RESULTS.length() - 10);
+        Assertions.assertThrows(IOException.class, () -> InvocationDecoder.decodeInvocationResults(bytes(truncatedResults)));
+    }
+}
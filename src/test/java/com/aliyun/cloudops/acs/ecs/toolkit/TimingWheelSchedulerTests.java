@@ -0,0 +1,48 @@
+package com.aliyun.cloudops.acs.ecs.toolkit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TimingWheelSchedulerTests {
+
+    @Test
+    public void scheduleAfterDelay() throws InterruptedException {
+        TimingWheelScheduler scheduler = new TimingWheelScheduler(10, 8, 2, 16);
+        try {
+            long start = System.currentTimeMillis();
+            AtomicLong executed = new AtomicLong();
+            CountDownLatch latch = new CountDownLatch(1);
+            // 延迟超过一整圈，验证圈数的计算
+            scheduler.schedule(() -> {
+                executed.set(System.currentTimeMillis());
+                latch.countDown();
+            }, 200, TimeUnit.MILLISECONDS);
+            Assertions.assertEquals(1, scheduler.getQueueSize());
+            Assertions.assertTrue(latch.await(2, TimeUnit.SECONDS));
+            Assertions.assertTrue(executed.get() - start >= 190);
+            Assertions.assertEquals(0, scheduler.getQueueSize());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void scheduleManyTasks() throws InterruptedException {
+        TimingWheelScheduler scheduler = new TimingWheelScheduler(5, 16, 2, 4);
+        try {
+            int count = 1000;
+            CountDownLatch latch = new CountDownLatch(count);
+            for (int i = 0; i < count; i++) {
+                scheduler.schedule(latch::countDown, i % 50, TimeUnit.MILLISECONDS);
+            }
+            // I/O 线程池队列很小，被拒绝的任务应顺延后重新提交，而不是丢失
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.aliyun.cloudops.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.CommandType;
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.RepeatMode;
+import com.aliyun.cloudops.domain.OpsTask;
+import com.aliyun.cloudops.domain.OpsTaskItem;
+import com.aliyun.cloudops.repository.TaskItemRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * <pre>
+ * 创建运维任务时写入任务明细的吞吐量对比：逐条 saveAndFlush 与批量插入。
+ * 默认不执行，运行方式：
+ *   mvn test -Dtest=TaskServiceBenchmarkTests -Dbenchmark=true
+ * 对 MariaDB 测试时，再通过 -Dspring.datasource.url 等参数指定数据源。
+ * </pre>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TaskServiceBenchmarkTests {
+
+    private static final int[] INSTANCES = {100, 1000, 5000};
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskServiceBenchmarkTests.class);
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskItemRepository taskItemRepository;
+
+    @Test
+    public void saveTaskItems() {
+        for (int instances : INSTANCES) {
+            OpsTask legacy = newTask(instances);
+            List<OpsTaskItem> legacyItems = newItems(legacy.getInvokeId(), instances);
+            long start = System.nanoTime();
+            this.taskService.saveTask(legacy, Collections.emptyList());
+            for (OpsTaskItem item : legacyItems) {
+                this.taskItemRepository.saveAndFlush(item);
+            }
+            long legacyNanos = System.nanoTime() - start;
+
+            OpsTask batch = newTask(instances);
+            List<OpsTaskItem> batchItems = newItems(batch.getInvokeId(), instances);
+            start = System.nanoTime();
+            this.taskService.saveTask(batch, batchItems);
+            long batchNanos = System.nanoTime() - start;
+
+            Assertions.assertEquals(instances, this.taskService.findTaskItems(batch.getInvokeId()).size());
+            logger.info("instances: {}, saveAndFlush: {} rows/s, batch: {} rows/s.",
+                    instances, rate(instances, legacyNanos), rate(instances, batchNanos));
+        }
+    }
+
+    private static long rate(int rows, long nanos) {
+        return Math.round(rows * 1e9 / nanos);
+    }
+
+    private static OpsTask newTask(int instances) {
+        OpsTask task = new OpsTask();
+        task.setRegionId("cn-hangzhou");
+        task.setTaskName("benchmark");
+        task.setCommandType(CommandType.RunShellScript);
+        task.setCommandText("uptime");
+        task.setParameters("{}");
+        task.setTimeout(60);
+        task.setRepeatMode(RepeatMode.Once);
+        task.setStatus(InvocationStatus.Pending);
+        task.setInvokeId("t-bench" + Long.toHexString(System.nanoTime()));
+        task.setInstances(instances);
+        task.setCreationTime(new Date());
+        return task;
+    }
+
+    private static List<OpsTaskItem> newItems(String invokeId, int instances) {
+        List<OpsTaskItem> items = new ArrayList<>(instances);
+        for (int i = 0; i < instances; i++) {
+            OpsTaskItem item = new OpsTaskItem();
+            item.setRegionId("cn-hangzhou");
+            item.setInvokeId(invokeId);
+            item.setInstanceId(String.format("i-bench%08d", i));
+            item.setStatus(InvocationStatus.Pending);
+            item.setOutput("");
+            item.setErrorCode("");
+            item.setErrorInfo("");
+            item.setCreationTime(new Date());
+            items.add(item);
+        }
+        return items;
+    }
+}
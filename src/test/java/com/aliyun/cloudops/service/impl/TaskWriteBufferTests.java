@@ -0,0 +1,139 @@
+package com.aliyun.cloudops.service.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import com.aliyun.cloudops.acs.ecs.toolkit.CloudAssistant.InvocationStatus;
+import com.aliyun.cloudops.domain.OpsTaskItem;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+public class TaskWriteBufferTests {
+
+    private static final String INVOKE_ID = "t-1";
+
+    private final List<OpsTaskItem> written = new CopyOnWriteArrayList<>();
+
+    private static OpsTaskItem newItem(String instanceId, InvocationStatus status) {
+        OpsTaskItem item = new OpsTaskItem();
+        item.setInvokeId(INVOKE_ID);
+        item.setInstanceId(instanceId);
+        item.setStatus(status);
+        return item;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "condition not met in 5s");
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    @Test
+    public void lastWriteWins() {
+        TaskWriteBuffer buffer = new TaskWriteBuffer(100, 100, 60000, batch -> this.written.addAll(batch.getItems()));
+        OpsTaskItem item = newItem("i-1", InvocationStatus.Running);
+        buffer.putItems(Collections.singletonList(item));
+        item.setStatus(InvocationStatus.Failed); // 之后对原对象的修改不影响缓冲中的数据
+        buffer.putItems(Collections.singletonList(newItem("i-1", InvocationStatus.Success)));
+        Assertions.assertEquals(1, buffer.size());
+        Assertions.assertEquals(InvocationStatus.Success, buffer.getItems(INVOKE_ID).get("i-1").getStatus());
+
+        buffer.shutdown();
+        Assertions.assertEquals(1, this.written.size());
+        Assertions.assertEquals(InvocationStatus.Success, this.written.get(0).getStatus());
+    }
+
+    @Test
+    public void blockWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        TaskWriteBuffer buffer = new TaskWriteBuffer(2, 2, 60000, batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.written.addAll(batch.getItems());
+        });
+        buffer.putItems(Arrays.asList(newItem("i-1", InvocationStatus.Success),
+                newItem("i-2", InvocationStatus.Success))); // 达到批次大小，开始写入并阻塞在写入方
+        await(() -> buffer.getVersion() % 2 == 1);
+        buffer.putItems(Arrays.asList(newItem("i-3", InvocationStatus.Success),
+                newItem("i-4", InvocationStatus.Success)));
+
+        Thread producer = new Thread(() -> buffer.putItems(
+                Collections.singletonList(newItem("i-5", InvocationStatus.Success))));
+        producer.start();
+        producer.join(200);
+        Assertions.assertTrue(producer.isAlive()); // 待写入数量已达上限
+
+        release.countDown();
+        producer.join(5000);
+        Assertions.assertFalse(producer.isAlive());
+        buffer.shutdown();
+        Assertions.assertEquals(5, this.written.size());
+    }
+
+    @Test
+    public void dropAfterFailedWrites() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        TaskWriteBuffer buffer = new TaskWriteBuffer(100, 100, 10, batch -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("Data too long for column 'error_code'");
+        });
+        // 只有一条数据时，逐条写入全部失败，但不是数据库不可用，同样计入失败次数
+        buffer.putItems(Collections.singletonList(newItem("i-1", InvocationStatus.Failed)));
+        await(() -> buffer.getDropped() == 1);
+        Assertions.assertEquals(0, buffer.size());
+        Assertions.assertEquals(6, attempts.get()); // 每次整批写入一次、逐条写入一次
+        buffer.shutdown();
+    }
+
+    @Test
+    public void retryWhileUnavailable() throws InterruptedException {
+        AtomicBoolean unavailable = new AtomicBoolean(true);
+        AtomicInteger attempts = new AtomicInteger();
+        TaskWriteBuffer buffer = new TaskWriteBuffer(100, 100, 10, batch -> {
+            attempts.incrementAndGet();
+            if (unavailable.get()) {
+                throw new DataAccessResourceFailureException("Connection refused");
+            }
+            this.written.addAll(batch.getItems());
+        });
+        buffer.putItems(Collections.singletonList(newItem("i-1", InvocationStatus.Success)));
+        await(() -> attempts.get() > 10);
+        Assertions.assertEquals(0, buffer.getDropped()); // 数据库不可用时不计入失败次数
+        Assertions.assertEquals(1, buffer.size());
+        Assertions.assertNotNull(buffer.getItems(INVOKE_ID).get("i-1"));
+
+        unavailable.set(false);
+        await(() -> buffer.size() == 0);
+        Assertions.assertEquals(1, this.written.size());
+        buffer.shutdown();
+    }
+
+    @Test
+    public void drainOnShutdown() {
+        TaskWriteBuffer buffer = new TaskWriteBuffer(100, 100, 60000, batch -> this.written.addAll(batch.getItems()));
+        for (int i = 0; i < 3; i++) {
+            buffer.putItems(Collections.singletonList(newItem("i-" + i, InvocationStatus.Success)));
+        }
+        Assertions.assertTrue(this.written.isEmpty());
+        buffer.shutdown();
+        Assertions.assertEquals(3, this.written.size());
+        Assertions.assertEquals(0, buffer.size());
+
+        buffer.putItems(Collections.singletonList(newItem("i-3", InvocationStatus.Success))); // 关闭后同步写入
+        Assertions.assertEquals(4, this.written.size());
+    }
+}